@@ -0,0 +1,161 @@
+package com.flight.flightservice.cache;
+
+import com.flight.flightservice.model.Flight;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of search results keyed by route and date. Entries expire after a short TTL
+ * and are invalidated as soon as a flight on the same route and date is added or changes its
+ * seat count. Hit, miss and eviction counts are published as cache.* meters named flightSearch.
+ * <p>
+ * Cached flights are never handed out: every read returns copies, so callers can overlay live
+ * seat counts without racing other threads that are serializing the same result.
+ */
+@Component
+public class FlightSearchCache implements MeterBinder {
+
+    static final String CACHE_NAME = "flightSearch";
+
+    private final boolean enabled;
+    private final Cache<RouteKey, List<Flight>> cache;
+
+    // flight id -> route it is cached under, so seat changes know which entry to drop. Kept in
+    // step with the cache: entries are added and removed under the route key's own lock
+    private final Map<String, RouteKey> routeByFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FlightSearchCache(@Value("${flight.search-cache.max-size:10000}") long maxSize,
+                             @Value("${flight.search-cache.ttl:30s}") Duration ttl) {
+        this(maxSize, ttl, ForkJoinPool.commonPool());
+    }
+
+    FlightSearchCache(long maxSize, Duration ttl, Executor executor) {
+        this.enabled = maxSize > 0;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .executor(executor)
+                // runs inside the removal, so a reload of the same route cannot be untracked
+                .evictionListener((RouteKey key, List<Flight> flights, RemovalCause cause) -> untrack(key, flights))
+                .recordStats()
+                .build();
+    }
+
+    public static FlightSearchCache disabled() {
+        return new FlightSearchCache(0, Duration.ZERO);
+    }
+
+    public List<Flight> get(String source, String destination, String date, Supplier<List<Flight>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        RouteKey key = new RouteKey(source, destination, date);
+        return copies(cache.get(key, k -> track(k, copies(loader.get()))));
+    }
+
+    // non-blocking counterpart of get for callers that load asynchronously; null on a miss
+    public List<Flight> getIfPresent(String source, String destination, String date) {
+        List<Flight> cached = enabled ? cache.getIfPresent(new RouteKey(source, destination, date)) : null;
+        return cached == null ? null : copies(cached);
+    }
+
+    public List<Flight> put(String source, String destination, String date, List<Flight> flights) {
+        if (enabled) {
+            RouteKey key = new RouteKey(source, destination, date);
+            List<Flight> snapshot = copies(flights);
+            cache.asMap().compute(key, (k, previous) -> {
+                if (previous != null) {
+                    untrack(k, previous);
+                }
+                return track(k, snapshot);
+            });
+        }
+        return copies(flights);
+    }
+
+    public void invalidateRoute(String source, String destination, String date) {
+        if (enabled) {
+            invalidate(new RouteKey(source, destination, date));
+        }
+    }
+
+    public void invalidateFlight(String flightId) {
+        if (!enabled) {
+            return;
+        }
+        RouteKey key = routeByFlight.get(flightId);
+        if (key != null) {
+            invalidate(key);
+        }
+    }
+
+    int trackedFlights() {
+        return routeByFlight.size();
+    }
+
+    private void invalidate(RouteKey key) {
+        cache.asMap().computeIfPresent(key, (k, flights) -> {
+            untrack(k, flights);
+            return null;
+        });
+    }
+
+    private List<Flight> track(RouteKey key, List<Flight> flights) {
+        flights.forEach(flight -> {
+            if (flight.getId() != null) {
+                routeByFlight.put(flight.getId(), key);
+            }
+        });
+        return flights;
+    }
+
+    private void untrack(RouteKey key, List<Flight> flights) {
+        flights.forEach(flight -> {
+            if (flight.getId() != null) {
+                routeByFlight.remove(flight.getId(), key);
+            }
+        });
+    }
+
+    private static List<Flight> copies(List<Flight> flights) {
+        return flights.stream().map(FlightSearchCache::copy).toList();
+    }
+
+    private static Flight copy(Flight flight) {
+        Flight copy = new Flight();
+        copy.setId(flight.getId());
+        copy.setFlightNumber(flight.getFlightNumber());
+        copy.setAirline(flight.getAirline());
+        copy.setSource(flight.getSource());
+        copy.setDestination(flight.getDestination());
+        copy.setDate(flight.getDate());
+        copy.setAvailableSeats(flight.getAvailableSeats());
+        return copy;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        }
+    }
+
+    record RouteKey(String source, String destination, String date) {
+    }
+}
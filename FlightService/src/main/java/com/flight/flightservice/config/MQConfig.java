@@ -0,0 +1,87 @@
+package com.flight.flightservice.config;
+
+import com.flight.flightservice.metrics.ConsumeLag;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class MQConfig {
+    public static final String SEAT_EXCHANGE = "flight.seats";
+    public static final String SEAT_RELEASE_QUEUE = "flight.seats.release";
+    public static final String SEAT_RELEASE_ROUTING_KEY = "seats.release";
+    public static final String SEAT_LISTENER_FACTORY = "seatListenerContainerFactory";
+
+    // bookingservice declares the same exchange, queue and binding; the arguments must match
+    @Bean
+    public DirectExchange seatExchange() {
+        return new DirectExchange(SEAT_EXCHANGE, true, false);
+    }
+
+    // one active consumer across all instances keeps the commands for a flight in order
+    @Bean
+    public Queue seatReleaseQueue() {
+        return QueueBuilder.durable(SEAT_RELEASE_QUEUE)
+                .singleActiveConsumer()
+                .build();
+    }
+
+    @Bean
+    public Binding seatReleaseBinding() {
+        return BindingBuilder.bind(seatReleaseQueue()).to(seatExchange()).with(SEAT_RELEASE_ROUTING_KEY);
+    }
+
+    /**
+     * Batch listener for seat commands: a batch is acknowledged only after SeatReleaseConsumer
+     * has applied it, and requeued if that fails.
+     */
+    @Bean(SEAT_LISTENER_FACTORY)
+    public SimpleRabbitListenerContainerFactory seatListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            MeterRegistry meterRegistry,
+            @Value("${flight.seat-events.prefetch:250}") int prefetch,
+            @Value("${flight.seat-events.batch-size:100}") int batchSize,
+            @Value("${flight.seat-events.receive-timeout:200ms}") Duration receiveTimeout) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setPrefetchCount(prefetch);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        // how long the consumer waits to fill a batch before applying a partial one
+        factory.setReceiveTimeout(receiveTimeout.toMillis());
+        factory.setDefaultRequeueRejected(true);
+        factory.setAfterReceivePostProcessors(new ConsumeLag(meterRegistry));
+        return factory;
+    }
+
+    // payload types come from the listener signature; the sender's __TypeId__ names a bookingservice class.
+    // Reads JSON or Smile by content type, whichever booking.messaging.encoding bookingservice sends.
+    @Bean
+    public MessageConverter messageConverter() {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(SmileMessageConverter.CONTENT_TYPE, new SmileMessageConverter());
+        return converter;
+    }
+}
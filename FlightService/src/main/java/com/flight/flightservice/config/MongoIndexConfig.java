@@ -0,0 +1,91 @@
+package com.flight.flightservice.config;
+
+import com.flight.flightservice.model.Flight;
+import com.flight.flightservice.model.SeatCommand;
+import com.flight.flightservice.model.SeatHold;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Duration;
+
+/**
+ * Spring Data no longer creates annotated indexes automatically, so the ones declared on
+ * the model are ensured here once the application is up. ensureIndex is a no-op when the
+ * index already exists.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+    private final Duration seatCommandRetention;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate,
+                            MongoMappingContext mappingContext,
+                            @Value("${flight.seat-commands.retention:7d}") Duration seatCommandRetention) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+        this.seatCommandRetention = seatCommandRetention;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        ensureIndexes(Flight.class);
+        ensureIndexes(SeatHold.class);
+        // the retention is configured, so this TTL index is not declared on the model
+        ensureIndex(SeatCommand.class, new Index().on("appliedAt", Sort.Direction.ASC)
+                .named("applied_at_ttl_idx")
+                .expire(seatCommandRetention));
+        // replaced by route_date_id_idx, which also serves the route lookups
+        dropIndex(Flight.class, "route_date_idx");
+    }
+
+    private void dropIndex(Class<?> entity, String name) {
+        IndexOperations indexOps = mongoTemplate.indexOps(entity);
+        try {
+            if (indexOps.getIndexInfo().stream().anyMatch(index -> index.getName().equals(name))) {
+                log.info("Dropping index {} on {}", name, entity.getSimpleName());
+                indexOps.dropIndex(name);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not drop {} index {}: {}", entity.getSimpleName(), name, e.getMessage());
+        }
+    }
+
+    private void ensureIndex(Class<?> entity, Index index) {
+        try {
+            log.info("Ensuring index {} on {}", index.getIndexKeys(), entity.getSimpleName());
+            mongoTemplate.indexOps(entity).ensureIndex(index);
+        } catch (DataAccessException e) {
+            log.warn("Could not ensure {} index {}: {}", entity.getSimpleName(), index.getIndexKeys(), e.getMessage());
+        }
+    }
+
+    private void ensureIndexes(Class<?> entity) {
+        IndexOperations indexOps = mongoTemplate.indexOps(entity);
+        try {
+            new MongoPersistentEntityIndexResolver(mappingContext)
+                    .resolveIndexFor(entity)
+                    .forEach(index -> {
+                        log.info("Ensuring index {} on {}", index.getIndexKeys(), entity.getSimpleName());
+                        indexOps.ensureIndex(index);
+                    });
+        } catch (DataAccessException e) {
+            // queries still work without the index, just slower; don't keep the service down for it
+            log.warn("Could not ensure {} indexes: {}", entity.getSimpleName(), e.getMessage());
+        }
+    }
+}
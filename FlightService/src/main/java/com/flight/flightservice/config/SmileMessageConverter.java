@@ -0,0 +1,32 @@
+package com.flight.flightservice.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.converter.AbstractJackson2MessageConverter;
+import org.springframework.util.MimeType;
+
+/**
+ * Reads seat commands bookingservice sends as application/x-jackson-smile; must decode what
+ * bookingservice's converter of the same name writes.
+ */
+public class SmileMessageConverter extends AbstractJackson2MessageConverter {
+
+    public static final String CONTENT_TYPE = "application/x-jackson-smile";
+
+    public SmileMessageConverter() {
+        super(SmileMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+                .build(), MimeType.valueOf(CONTENT_TYPE), "*");
+    }
+
+    @Override
+    public Object fromMessage(Message message, Object conversionHint) {
+        // read the body as bytes whatever encoding the sender declared
+        message.getMessageProperties().setContentEncoding(null);
+        return super.fromMessage(message, conversionHint);
+    }
+}
@@ -0,0 +1,81 @@
+package com.flight.flightservice.consumer;
+
+import com.flight.flightservice.config.MQConfig;
+import com.flight.flightservice.dto.SeatRelease;
+import com.flight.flightservice.service.FlightService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies seat release commands sent by bookingservice. The releases in a batch are summed per
+ * flight and written with one bulk update, so a burst of cancellations on a popular flight costs
+ * one Mongo write instead of one per booking. Releases that carry an id are checked against the
+ * flight's ledger in the same write that gives the seats back, so a redelivered one is applied
+ * once: a reservation's release in its own update, other commands summed per flight with only
+ * the ids not applied yet counted.
+ */
+@Component
+public class SeatReleaseConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatReleaseConsumer.class);
+    private final FlightService flightService;
+    private final Duration retryInterval;
+    private final Timer consumeLatency;
+
+    public SeatReleaseConsumer(FlightService flightService,
+                               MeterRegistry meterRegistry,
+                               @Value("${flight.seat-events.retry-interval:1s}") Duration retryInterval) {
+        this.flightService = flightService;
+        this.retryInterval = retryInterval;
+        this.consumeLatency = Timer.builder("seat.release.consume.latency")
+                .description("Time to apply a batch of seat release commands")
+                .register(meterRegistry);
+    }
+
+    @RabbitListener(queues = MQConfig.SEAT_RELEASE_QUEUE, containerFactory = MQConfig.SEAT_LISTENER_FACTORY)
+    public void receive(List<SeatRelease> releases) throws InterruptedException {
+        // a command delivered twice within the batch is kept once, before anything is summed
+        Map<String, SeatRelease> reservations = new LinkedHashMap<>();
+        Map<String, SeatRelease> commands = new LinkedHashMap<>();
+        Map<String, Integer> seatsByFlight = new LinkedHashMap<>();
+        for (SeatRelease release : releases) {
+            if (release.getFlightId() == null || release.getSeats() <= 0) {
+                log.warn("Ignoring invalid seat release {}", release);
+                continue;
+            }
+            if (release.getReservationId() != null) {
+                reservations.putIfAbsent(release.getReservationId(), release);
+            } else if (release.getCommandId() != null) {
+                commands.putIfAbsent(release.getCommandId(), release);
+            } else {
+                seatsByFlight.merge(release.getFlightId(), release.getSeats(), Integer::sum);
+            }
+        }
+
+        try {
+            // commands with an id first: they are safe to apply again if the batch is redelivered
+            consumeLatency.record(() -> {
+                flightService.releaseReservations(List.copyOf(reservations.values()));
+                flightService.releaseCommands(List.copyOf(commands.values()));
+                flightService.releaseSeats(seatsByFlight);
+            });
+        } catch (RuntimeException e) {
+            // the batch is requeued; pause so a Mongo outage does not turn into a redelivery loop
+            log.error("Failed to apply {} seat releases, retrying in {}: {}", releases.size(), retryInterval, e.getMessage());
+            Thread.sleep(retryInterval.toMillis());
+            throw e;
+        }
+        log.info("Applied {} seat releases ({} of reservations, {} other commands with an id)",
+                releases.size(), reservations.size(), commands.size());
+    }
+}
@@ -1,26 +1,40 @@
 package com.flight.flightservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flight.flightservice.dto.FlightSearchPage;
+import com.flight.flightservice.dto.FlightSummary;
+import com.flight.flightservice.dto.SeatReservation;
 import com.flight.flightservice.model.Flight;
 import com.flight.flightservice.service.FlightService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/flights")
+@ConditionalOnProperty(name = "flight.reactive.enabled", havingValue = "false", matchIfMissing = true)
 public class FlightController {
 
     private static final Logger log = LoggerFactory.getLogger(FlightController.class);
 
     private final FlightService service;
+    private final ObjectMapper mapper;
 
-    public FlightController(FlightService service) {
+    public FlightController(FlightService service, ObjectMapper mapper) {
         this.service = service;
+        this.mapper = mapper;
     }
 
     // -------------------- ADD FLIGHT --------------------
@@ -44,13 +58,48 @@ public class FlightController {
         return service.searchFlights(source, destination, date);
     }
 
+    // -------------------- SEARCH FLIGHTS (PAGED) --------------------
+    @GetMapping("/search/page")
+    @Operation(summary = "Search flights page by page",
+            description = "Returns one page of flight summaries without counting the total")
+    public FlightSearchPage searchFlightPage(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam String date,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Paged search request received for flights {} -> {} on {}", source, destination, date);
+        Slice<FlightSummary> flights = service.searchFlightPage(source, destination, date, page, size);
+        return new FlightSearchPage(flights.getContent(), flights.getNumber(), flights.getSize(), flights.hasNext());
+    }
+
+    // -------------------- SEARCH FLIGHTS (STREAMING) --------------------
+    @GetMapping(value = "/search/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream flights",
+            description = "Streams flight summaries as newline-delimited JSON straight from the database cursor")
+    public ResponseEntity<StreamingResponseBody> streamFlights(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam String date) {
+        log.info("Streaming search request received for flights {} -> {} on {}", source, destination, date);
+        StreamingResponseBody body = out -> {
+            try (Stream<FlightSummary> flights = service.streamFlights(source, destination, date)) {
+                Iterator<FlightSummary> it = flights.iterator();
+                while (it.hasNext()) {
+                    out.write(mapper.writeValueAsBytes(it.next()));
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     // -------------------- CHECK SEAT AVAILABILITY (INTERNAL) --------------------
     @GetMapping("/internal/{id}/check")
     @Operation(summary = "Check flight availability (internal API)")
     public boolean checkAvailability(@PathVariable String id) {
         log.info("Checking availability for flight {}", id);
-        Flight flight = service.getFlight(id);
-        return flight.getAvailableSeats() > 0;
+        return service.isAvailable(id);
     }
 
     // -------------------- REDUCE SEATS (INTERNAL) --------------------
@@ -61,6 +110,16 @@ public class FlightController {
         return service.reduceSeats(id, count);
     }
 
+    // -------------------- RESERVE SEATS (INTERNAL) --------------------
+    @PostMapping("/internal/{id}/reserve")
+    @Operation(summary = "Reserve seats (internal API)",
+            description = "Atomically checks availability and reduces seats in a single call")
+    public SeatReservation reserveSeats(@PathVariable String id, @RequestParam int count,
+                                         @RequestParam(required = false) String reservationId) {
+        log.info("Request received to reserve {} seats on flight {}", count, id);
+        return service.reserveSeats(id, count, reservationId);
+    }
+
     // -------------------- INCREASE SEATS (INTERNAL) --------------------
     @PutMapping("/internal/{id}/increase")
     @Operation(summary = "Increase seats (internal API)")
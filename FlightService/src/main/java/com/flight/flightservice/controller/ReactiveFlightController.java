@@ -0,0 +1,116 @@
+package com.flight.flightservice.controller;
+
+import com.flight.flightservice.dto.FlightSearchPage;
+import com.flight.flightservice.dto.FlightSummary;
+import com.flight.flightservice.dto.SeatReservation;
+import com.flight.flightservice.model.Flight;
+import com.flight.flightservice.service.ReactiveFlightService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same API as {@link FlightController}, answered with Mono/Flux so request threads are released
+ * while Mongo works. Replaces FlightController when flight.reactive.enabled=true.
+ */
+@RestController
+@RequestMapping("/flights")
+@ConditionalOnProperty(name = "flight.reactive.enabled", havingValue = "true")
+public class ReactiveFlightController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveFlightController.class);
+
+    private final ReactiveFlightService service;
+
+    public ReactiveFlightController(ReactiveFlightService service) {
+        this.service = service;
+    }
+
+    // -------------------- ADD FLIGHT --------------------
+    @PostMapping("/add")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Add a new flight", description = "Creates a new flight record")
+    @ApiResponse(responseCode = "201", description = "Flight created successfully")
+    public Mono<Flight> addFlight(@RequestBody Flight flight) {
+        log.info("Request received to add flight");
+        return service.addFlight(flight);
+    }
+
+    // -------------------- SEARCH FLIGHTS --------------------
+    @GetMapping("/search")
+    @Operation(summary = "Search flights", description = "Searches flights by source, destination and date")
+    public Flux<Flight> searchFlights(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam String date) {
+        log.info("Search request received for flights {} -> {} on {}", source, destination, date);
+        return service.searchFlights(source, destination, date);
+    }
+
+    // -------------------- SEARCH FLIGHTS (PAGED) --------------------
+    @GetMapping("/search/page")
+    @Operation(summary = "Search flights page by page",
+            description = "Returns one page of flight summaries without counting the total")
+    public Mono<FlightSearchPage> searchFlightPage(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam String date,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Paged search request received for flights {} -> {} on {}", source, destination, date);
+        return service.searchFlightPage(source, destination, date, page, size);
+    }
+
+    // -------------------- SEARCH FLIGHTS (STREAMING) --------------------
+    @GetMapping(value = "/search/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream flights",
+            description = "Streams flight summaries as newline-delimited JSON straight from the database cursor")
+    public Flux<FlightSummary> streamFlights(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam String date) {
+        log.info("Streaming search request received for flights {} -> {} on {}", source, destination, date);
+        return service.streamFlights(source, destination, date);
+    }
+
+    // -------------------- CHECK SEAT AVAILABILITY (INTERNAL) --------------------
+    @GetMapping("/internal/{id}/check")
+    @Operation(summary = "Check flight availability (internal API)")
+    public Mono<Boolean> checkAvailability(@PathVariable String id) {
+        log.info("Checking availability for flight {}", id);
+        return service.isAvailable(id);
+    }
+
+    // -------------------- REDUCE SEATS (INTERNAL) --------------------
+    @PutMapping("/internal/{id}/reduce")
+    @Operation(summary = "Reduce seats (internal API)")
+    public Mono<Boolean> reduceSeats(@PathVariable String id, @RequestParam int count) {
+        log.info("Request received to reduce seats for flight {}", id);
+        return service.reserveSeats(id, count).map(SeatReservation::isReserved);
+    }
+
+    // -------------------- RESERVE SEATS (INTERNAL) --------------------
+    @PostMapping("/internal/{id}/reserve")
+    @Operation(summary = "Reserve seats (internal API)",
+            description = "Atomically checks availability and reduces seats in a single call")
+    public Mono<SeatReservation> reserveSeats(@PathVariable String id, @RequestParam int count,
+                                              @RequestParam(required = false) String reservationId) {
+        log.info("Request received to reserve {} seats on flight {}", count, id);
+        return service.reserveSeats(id, count, reservationId);
+    }
+
+    // -------------------- INCREASE SEATS (INTERNAL) --------------------
+    @PutMapping("/internal/{id}/increase")
+    @Operation(summary = "Increase seats (internal API)")
+    public Mono<Void> increaseSeats(@PathVariable String id, @RequestParam int count) {
+        log.info("Request received to increase seats for flight {}", id);
+        return service.increaseSeats(id, count);
+    }
+}
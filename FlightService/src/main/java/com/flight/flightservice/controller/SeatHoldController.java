@@ -0,0 +1,53 @@
+package com.flight.flightservice.controller;
+
+import com.flight.flightservice.dto.SeatHoldResult;
+import com.flight.flightservice.service.SeatHoldService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/flights/internal")
+public class SeatHoldController {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatHoldController.class);
+
+    private final SeatHoldService service;
+
+    public SeatHoldController(SeatHoldService service) {
+        this.service = service;
+    }
+
+    // -------------------- HOLD SEATS (INTERNAL) --------------------
+    @PostMapping("/{id}/hold")
+    @Operation(summary = "Hold seats (internal API)",
+            description = "Takes seats for a limited time; they return to the flight unless the hold is confirmed")
+    public SeatHoldResult holdSeats(@PathVariable String id,
+                                    @RequestParam int count,
+                                    @RequestParam(required = false) Long ttlSeconds) {
+        log.info("Request received to hold {} seats on flight {}", count, id);
+        return service.hold(id, count, ttlSeconds == null ? null : Duration.ofSeconds(ttlSeconds));
+    }
+
+    // -------------------- CONFIRM HOLD (INTERNAL) --------------------
+    @PostMapping("/holds/{holdId}/confirm")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(summary = "Confirm a seat hold (internal API)", description = "Makes the held seats permanent")
+    public void confirmHold(@PathVariable String holdId) {
+        log.info("Request received to confirm hold {}", holdId);
+        service.confirm(holdId);
+    }
+
+    // -------------------- RELEASE HOLD (INTERNAL) --------------------
+    @DeleteMapping("/holds/{holdId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(summary = "Release a seat hold (internal API)")
+    public void releaseHold(@PathVariable String holdId) {
+        log.info("Request received to release hold {}", holdId);
+        service.release(holdId);
+    }
+}
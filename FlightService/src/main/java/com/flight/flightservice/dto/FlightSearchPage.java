@@ -0,0 +1,17 @@
+package com.flight.flightservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FlightSearchPage {
+    private List<FlightSummary> flights;
+    private int page;
+    private int size;
+    private boolean hasNext;
+}
@@ -0,0 +1,17 @@
+package com.flight.flightservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Search result projection. Source, destination and date are the search key, so only the
+ * fields that differ between matches are read from Mongo.
+ */
+@Data
+@AllArgsConstructor
+public class FlightSummary {
+    private String id;
+    private String flightNumber;
+    private String airline;
+    private int availableSeats;
+}
@@ -0,0 +1,23 @@
+package com.flight.flightservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeatHoldResult {
+    private String holdId;
+    private String flightId;
+    private int seats;
+    private int remainingSeats;
+    private boolean held;
+    private Date expiresAt;
+
+    public static SeatHoldResult rejected(String flightId, int seats, int remainingSeats) {
+        return new SeatHoldResult(null, flightId, seats, remainingSeats, false, null);
+    }
+}
@@ -0,0 +1,23 @@
+package com.flight.flightservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SeatRelease {
+    private String flightId;
+    private int seats;
+    // set when the seats belong to one reservation: they go back only if it was applied
+    private String reservationId;
+    // set by senders that may deliver the command more than once: it is applied once per id
+    private String commandId;
+
+    public SeatRelease(String flightId, int seats) {
+        this(flightId, seats, null, null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.flight.flightservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeatReservation {
+    private String reservationId;
+    private String flightId;
+    private int seats;
+    private int remainingSeats;
+    private boolean reserved;
+
+    public static SeatReservation rejected(String flightId, int seats, int remainingSeats) {
+        return new SeatReservation(null, flightId, seats, remainingSeats, false);
+    }
+}
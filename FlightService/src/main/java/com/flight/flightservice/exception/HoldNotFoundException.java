@@ -0,0 +1,7 @@
+package com.flight.flightservice.exception;
+
+public class HoldNotFoundException extends RuntimeException {
+    public HoldNotFoundException(String id) {
+        super("Seat hold not found or expired with ID: " + id);
+    }
+}
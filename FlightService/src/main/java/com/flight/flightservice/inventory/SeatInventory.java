@@ -0,0 +1,459 @@
+package com.flight.flightservice.inventory;
+
+import com.flight.flightservice.exception.FlightNotFoundException;
+import com.flight.flightservice.model.Flight;
+import com.flight.flightservice.repo.FlightRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory seat counts for flights that are being booked. Reservations and releases are
+ * answered from memory, journaled to disk before they are acknowledged, and written back to
+ * Mongo in batches by {@link #flush()}. On startup anything left in the journal is pushed to
+ * Mongo before the first request is served.
+ * <p>
+ * The journal is split into stripes, one directory each, and a flight always appends to the
+ * same stripe, so appends for different flights do not queue behind each other's I/O.
+ * Counters idle for longer than idle-timeout are dropped once their count is in Mongo and
+ * loaded again on next use.
+ * <p>
+ * Each counter also keeps the flight's recent seat command ids, loaded with the count and written
+ * back with it, so reservations and releases that carry an id are applied at most once here too.
+ * Once a flight has seen more commands than that, an id the counter does not know is looked up in
+ * seat_commands.
+ * <p>
+ * Memory is the source of truth for a flight once it is loaded, so this mode assumes a single
+ * FlightService instance owns seat changes. It is off unless flight.inventory.in-memory=true.
+ */
+@Component
+@ConditionalOnProperty(name = "flight.inventory.in-memory", havingValue = "true")
+public class SeatInventory {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatInventory.class);
+    private static final String STRIPE_PREFIX = "stripe-";
+
+    private final FlightRepository repository;
+    private final Path journalDir;
+    private final boolean fsync;
+    private final SeatJournal[] journals;
+    private final Duration idleTimeout;
+    private final Map<String, SeatCounter> counters = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public SeatInventory(FlightRepository repository, String journalDir, boolean fsync) {
+        this(repository, journalDir, fsync, 1, Duration.ofMinutes(10));
+    }
+
+    @Autowired
+    public SeatInventory(FlightRepository repository,
+                         @Value("${flight.inventory.journal-dir:./data/seat-journal}") String journalDir,
+                         @Value("${flight.inventory.journal-fsync:false}") boolean fsync,
+                         @Value("${flight.inventory.journal-stripes:8}") int stripes,
+                         @Value("${flight.inventory.idle-timeout:10m}") Duration idleTimeout) {
+        this.repository = repository;
+        this.journalDir = Path.of(journalDir);
+        this.fsync = fsync;
+        this.idleTimeout = idleTimeout;
+        this.journals = new SeatJournal[stripes];
+        for (int i = 0; i < stripes; i++) {
+            journals[i] = new SeatJournal(this.journalDir.resolve(STRIPE_PREFIX + i), fsync);
+        }
+    }
+
+    @PostConstruct
+    public void recover() {
+        Map<String, Integer> journaled = new HashMap<>();
+        Map<String, List<String>> commands = new HashMap<>();
+        for (SeatJournal journal : journals) {
+            journal.replay(journaled, commands);
+        }
+        // stripes left behind by a run configured with more of them
+        List<SeatJournal> leftover = leftoverJournals();
+        for (SeatJournal journal : leftover) {
+            journal.replay(journaled, commands);
+        }
+        if (!journaled.isEmpty()) {
+            log.info("Recovering seat counts for {} flights from journal", journaled.size());
+            repository.setSeats(journaled, commands);
+        }
+        for (SeatJournal journal : journals) {
+            journal.delete(journal.rotate());
+        }
+        for (SeatJournal journal : leftover) {
+            journal.delete(journal.rotate());
+            closeQuietly(journal);
+        }
+    }
+
+    /**
+     * @return the remaining seats, or -1 if fewer than count seats are available
+     */
+    public int reserve(String id, int count) {
+        return reserve(id, count, null);
+    }
+
+    /**
+     * Reserves count seats, at most once per reservation id when one is given. A reservation that
+     * was already released is refused.
+     *
+     * @return the remaining seats, or -1 if fewer than count seats are available or the
+     * reservation was released
+     */
+    public int reserve(String id, int count, @Nullable String reservationId) {
+        SeatCounter counter = lock(id);
+        try {
+            if (reservationId != null) {
+                Set<String> known = counter.applied(reservationId, Flight.released(reservationId));
+                if (known.contains(Flight.released(reservationId))) {
+                    return -1;
+                }
+                if (known.contains(reservationId)) {
+                    return counter.available;
+                }
+            }
+            if (counter.available < count) {
+                return -1;
+            }
+            return counter.set(counter.available - count, reservationId);
+        } finally {
+            counter.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the new seat count
+     */
+    public int release(String id, int count) {
+        return release(id, count, null);
+    }
+
+    /**
+     * Gives back count seats, at most once per command id when one is given.
+     *
+     * @return the new seat count
+     */
+    public int release(String id, int count, @Nullable String commandId) {
+        SeatCounter counter = lock(id);
+        try {
+            if (commandId != null && !counter.applied(commandId).isEmpty()) {
+                return counter.available;
+            }
+            return counter.set(counter.available + count, commandId);
+        } finally {
+            counter.lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back the seats of a reservation if it was applied and not released yet. The
+     * reservation is marked released either way, so it is refused if it arrives later.
+     *
+     * @return false if the reservation was never applied, so no seats went back for it
+     */
+    public boolean releaseReservation(String id, int count, String reservationId) {
+        SeatCounter counter = lock(id);
+        try {
+            String released = Flight.released(reservationId);
+            Set<String> known = counter.applied(reservationId, released);
+            if (known.contains(released)) {
+                return true;
+            }
+            boolean applied = known.contains(reservationId);
+            counter.set(applied ? counter.available + count : counter.available, released);
+            return applied;
+        } finally {
+            counter.lock.unlock();
+        }
+    }
+
+    public int available(String id) {
+        SeatCounter counter = counters.get(id);
+        if (counter != null && counter.loaded && !counter.evicted) {
+            counter.lastUsed = System.nanoTime();
+            return counter.available;
+        }
+        counter = lock(id);
+        try {
+            return counter.available;
+        } finally {
+            counter.lock.unlock();
+        }
+    }
+
+    /**
+     * Current in-memory count for a flight that is already loaded, without touching Mongo.
+     */
+    public OptionalInt peek(String id) {
+        SeatCounter counter = counters.get(id);
+        return counter == null || !counter.loaded ? OptionalInt.empty() : OptionalInt.of(counter.available);
+    }
+
+    int loadedFlights() {
+        return counters.size();
+    }
+
+    @Scheduled(fixedDelayString = "${flight.inventory.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (!dirty.isEmpty() && !writeBack()) {
+                return;
+            }
+            evictIdle();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        for (SeatJournal journal : journals) {
+            journal.close();
+        }
+    }
+
+    private boolean writeBack() {
+        // a change is marked dirty before it is journaled, so every change in the sealed
+        // segments belongs to a flight in dirty and is covered by that flight's snapshot
+        List<List<Path>> sealed = new ArrayList<>(journals.length);
+        for (SeatJournal journal : journals) {
+            sealed.add(journal.rotate());
+        }
+
+        Map<String, Integer> batch = new HashMap<>();
+        Map<String, List<String>> commands = new HashMap<>();
+        Map<String, SeatCounter> flushed = new HashMap<>();
+        for (String id : dirty) {
+            SeatCounter counter = counters.get(id);
+            if (counter == null) {
+                dirty.remove(id);
+                continue;
+            }
+            Snapshot snapshot = counter.snapshot();
+            batch.put(id, snapshot.seats());
+            if (!snapshot.commands().isEmpty()) {
+                commands.put(id, snapshot.commands());
+                flushed.put(id, counter);
+            }
+        }
+
+        try {
+            repository.setSeats(batch, commands);
+            commands.forEach((id, ids) -> flushed.get(id).flushed(ids.size()));
+            for (int i = 0; i < journals.length; i++) {
+                journals[i].delete(sealed.get(i));
+            }
+            log.debug("Flushed seat counts for {} flights", batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            // sealed segments stay on disk and are retried with the next flush
+            dirty.addAll(batch.keySet());
+            log.error("Failed to flush seat counts for {} flights: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    // runs after a successful write-back, so a counter that is not dirty has its count in Mongo
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - idleTimeout.toNanos();
+        for (SeatCounter counter : counters.values()) {
+            if (counter.lastUsed - cutoff > 0 || dirty.contains(counter.flightId) || !counter.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (!dirty.contains(counter.flightId)) {
+                    counter.evicted = true;
+                    counters.remove(counter.flightId, counter);
+                }
+            } finally {
+                counter.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the flight's counter locked and loaded. The Mongo load runs under the counter's own
+     * lock, not inside the map, so loading one flight does not block others that hash nearby.
+     */
+    private SeatCounter lock(String id) {
+        while (true) {
+            SeatCounter counter = counters.computeIfAbsent(id, SeatCounter::new);
+            counter.lock.lock();
+            if (counter.evicted) {
+                // dropped while we waited for it; take the one that replaced it
+                counter.lock.unlock();
+                continue;
+            }
+            try {
+                counter.load();
+            } catch (RuntimeException e) {
+                counter.lock.unlock();
+                throw e;
+            }
+            counter.lastUsed = System.nanoTime();
+            return counter;
+        }
+    }
+
+    private SeatJournal journal(String flightId) {
+        return journals[Math.floorMod(flightId.hashCode(), journals.length)];
+    }
+
+    private List<SeatJournal> leftoverJournals() {
+        List<SeatJournal> leftover = new ArrayList<>();
+        try (Stream<Path> dirs = Files.list(journalDir)) {
+            for (Path dir : dirs.toList()) {
+                String name = dir.getFileName().toString();
+                if (Files.isDirectory(dir) && name.startsWith(STRIPE_PREFIX)
+                        && Integer.parseInt(name.substring(STRIPE_PREFIX.length())) >= journals.length) {
+                    leftover.add(new SeatJournal(dir, fsync));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Cannot list seat journal stripes in {}: {}", journalDir, e.toString());
+        }
+        return leftover;
+    }
+
+    private static void closeQuietly(SeatJournal journal) {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Failed to close seat journal: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Per-flight lock stripe. Writes are serialized so the journal order matches the count
+     * order for a flight; reads of {@code available} are lock-free once loaded. A ReentrantLock
+     * rather than synchronized keeps virtual threads from pinning their carrier during I/O.
+     */
+    private final class SeatCounter {
+
+        private final String flightId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile int available;
+        private volatile boolean loaded;
+        private volatile boolean evicted;
+        private volatile long lastUsed = System.nanoTime();
+        // guarded by lock: recent seat command ids, oldest first, and those not in Mongo yet
+        private final Set<String> commands = new LinkedHashSet<>();
+        private final List<String> unflushed = new ArrayList<>();
+        // guarded by lock: older ids were dropped, so commands alone cannot tell an id is new
+        private boolean trimmed;
+
+        private SeatCounter(String flightId) {
+            this.flightId = flightId;
+        }
+
+        // called with the lock held
+        void load() {
+            if (loaded) {
+                return;
+            }
+            try {
+                Flight flight = repository.findSeats(flightId);
+                if (flight == null) {
+                    throw new FlightNotFoundException(flightId);
+                }
+                if (flight.getSeatCommands() != null) {
+                    commands.addAll(flight.getSeatCommands());
+                    trimmed = commands.size() >= Flight.SEAT_COMMAND_HISTORY;
+                }
+                available = flight.getAvailableSeats();
+                loaded = true;
+            } catch (RuntimeException e) {
+                // threads waiting on this counter retry with a fresh one
+                evicted = true;
+                counters.remove(flightId, this);
+                throw e;
+            }
+        }
+
+        // called with the lock held; dirty first, so a flush that seals this append also flushes it
+        int set(int next, @Nullable String commandId) {
+            dirty.add(flightId);
+            journal(flightId).append(flightId, next, commandId);
+            available = next;
+            if (commandId != null) {
+                commands.add(commandId);
+                unflushed.add(commandId);
+                if (commands.size() > Flight.SEAT_COMMAND_HISTORY) {
+                    Iterator<String> oldest = commands.iterator();
+                    oldest.next();
+                    oldest.remove();
+                    trimmed = true;
+                }
+            }
+            return next;
+        }
+
+        // called with the lock held; which of the ids were applied to this flight
+        Set<String> applied(String... ids) {
+            Set<String> known = new HashSet<>();
+            List<String> unknown = new ArrayList<>();
+            for (String id : ids) {
+                if (commands.contains(id) || unflushed.contains(id)) {
+                    known.add(id);
+                } else {
+                    unknown.add(id);
+                }
+            }
+            if (trimmed && !unknown.isEmpty()) {
+                known.addAll(repository.findAppliedCommands(unknown));
+            }
+            return known;
+        }
+
+        // taking the lock waits out a change whose append has already been sealed
+        Snapshot snapshot() {
+            lock.lock();
+            try {
+                dirty.remove(flightId);
+                return new Snapshot(available, List.copyOf(unflushed));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // the first count unflushed command ids were written back
+        void flushed(int count) {
+            lock.lock();
+            try {
+                unflushed.subList(0, count).clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private record Snapshot(int seats, List<String> commands) {
+    }
+}
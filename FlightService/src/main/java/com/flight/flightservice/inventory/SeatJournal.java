@@ -0,0 +1,151 @@
+package com.flight.flightservice.inventory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of absolute seat counts, one "flightId seats" line per change, or
+ * "flightId seats commandId" for a change made by a seat command that must not be applied twice.
+ * Every change is appended to the active segment before it is acknowledged. A flush
+ * seals the active segment with {@link #rotate()} and deletes the sealed segments once
+ * the values they cover are in Mongo, so replaying whatever is left always ends on the
+ * latest count per flight.
+ */
+class SeatJournal implements Closeable {
+
+    private static final String ACTIVE = "active.log";
+    private static final String SEALED_PREFIX = "sealed-";
+
+    private final Path dir;
+    private final boolean fsync;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long sequence = System.currentTimeMillis();
+    private FileChannel channel;
+
+    SeatJournal(Path dir, boolean fsync) {
+        this.dir = dir;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(dir);
+            this.channel = openActive();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open seat journal in " + dir, e);
+        }
+    }
+
+    void append(String flightId, int seats, String commandId) {
+        String entry = commandId == null ? flightId + " " + seats : flightId + " " + seats + " " + commandId;
+        ByteBuffer line = ByteBuffer.wrap((entry + "\n").getBytes(StandardCharsets.UTF_8));
+        lock.lock();
+        try {
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to seat journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Seals the active segment and starts a new one.
+     *
+     * @return every sealed segment on disk, including ones left over from failed flushes
+     */
+    List<Path> rotate() {
+        lock.lock();
+        try {
+            channel.close();
+            Files.move(dir.resolve(ACTIVE), dir.resolve(String.format("%s%020d.log", SEALED_PREFIX, ++sequence)));
+            channel = openActive();
+            return sealedSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to rotate seat journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void delete(List<Path> segments) {
+        lock.lock();
+        try {
+            for (Path segment : segments) {
+                Files.deleteIfExists(segment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete seat journal segment", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads sealed segments oldest first and then the active one, putting the last journaled seat
+     * count per flight into seats and adding the journaled command ids, oldest first, to commands.
+     */
+    void replay(Map<String, Integer> seats, Map<String, List<String>> commands) {
+        lock.lock();
+        try {
+            List<Path> segments = sealedSegments();
+            segments.add(dir.resolve(ACTIVE));
+            for (Path segment : segments) {
+                String content = Files.readString(segment, StandardCharsets.UTF_8);
+                // a line without its trailing newline was torn by a crash mid-write and is skipped
+                content = content.substring(0, content.lastIndexOf('\n') + 1);
+                for (String line : content.split("\n")) {
+                    String[] parts = line.split(" ");
+                    if (parts.length == 2 || parts.length == 3) {
+                        seats.put(parts[0], Integer.parseInt(parts[1]));
+                    }
+                    if (parts.length == 3) {
+                        commands.computeIfAbsent(parts[0], id -> new ArrayList<>()).add(parts[2]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay seat journal", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FileChannel openActive() throws IOException {
+        return FileChannel.open(dir.resolve(ACTIVE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> sealedSegments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return new ArrayList<>(files
+                    .filter(p -> p.getFileName().toString().startsWith(SEALED_PREFIX))
+                    .sorted()
+                    .toList());
+        }
+    }
+}
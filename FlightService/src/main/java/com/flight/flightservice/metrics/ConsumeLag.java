@@ -0,0 +1,38 @@
+package com.flight.flightservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records rabbit.consume.lag, the time from publish to delivery per queue, for listener
+ * containers it is added to as an after-receive post processor. Relies on the sender setting
+ * the timestamp property; messages without one are passed through unrecorded.
+ */
+public class ConsumeLag implements MessagePostProcessor {
+
+    private final MeterRegistry registry;
+
+    public ConsumeLag(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Message postProcessMessage(Message message) throws AmqpException {
+        Date sent = message.getMessageProperties().getTimestamp();
+        String queue = message.getMessageProperties().getConsumerQueue();
+        if (sent != null && queue != null) {
+            Timer.builder("rabbit.consume.lag")
+                    .description("Time from publish to delivery to a consumer")
+                    .tag("queue", queue)
+                    .register(registry)
+                    .record(Math.max(0, System.currentTimeMillis() - sent.getTime()), TimeUnit.MILLISECONDS);
+        }
+        return message;
+    }
+}
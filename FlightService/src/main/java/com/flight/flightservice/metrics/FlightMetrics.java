@@ -0,0 +1,93 @@
+package com.flight.flightservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers for the flight search and seat paths. Seat timers are tagged with the seat store
+ * (mongo or memory); reservations are also tagged with their outcome, so the count of
+ * outcome=rejected is the number of bookings that lost the race for the last seats. Releases of a
+ * reservation that was never applied, e.g. one that timed out before reaching flightservice, are
+ * counted separately.
+ */
+@Component
+public class FlightMetrics {
+
+    public static final String RESERVED = "reserved";
+    public static final String REJECTED = "rejected";
+    public static final String ERROR = "error";
+
+    private static final String[] STORES = {"mongo", "memory"};
+    private static final String[] OUTCOMES = {RESERVED, REJECTED, ERROR};
+
+    private final Timer listSearch;
+    private final Timer pageSearch;
+    private final Map<String, Timer> reservations = new HashMap<>();
+    private final Map<String, Timer> releases = new HashMap<>();
+    private final Counter unmatchedReleases;
+
+    public FlightMetrics(MeterRegistry registry) {
+        this.listSearch = searchTimer(registry, "list");
+        this.pageSearch = searchTimer(registry, "page");
+        this.unmatchedReleases = Counter.builder("flight.seats.release.unmatched")
+                .description("Reservation releases that found no applied reservation, so gave no seats back")
+                .register(registry);
+        for (String store : STORES) {
+            for (String outcome : OUTCOMES) {
+                reservations.put(store + outcome, Timer.builder("flight.seats.reserve.latency")
+                        .description("Time to reserve seats on a flight")
+                        .tags("store", store, "outcome", outcome)
+                        .register(registry));
+            }
+            for (String mode : new String[]{"single", "bulk"}) {
+                releases.put(store + mode, Timer.builder("flight.seats.release.latency")
+                        .description("Time to give seats back to one flight or, in bulk, to many")
+                        .tags("store", store, "mode", mode)
+                        .register(registry));
+            }
+        }
+    }
+
+    public static FlightMetrics disabled() {
+        return new FlightMetrics(new CompositeMeterRegistry());
+    }
+
+    public <T> T timeSearch(Supplier<T> search) {
+        return listSearch.record(search);
+    }
+
+    public <T> T timePageSearch(Supplier<T> search) {
+        return pageSearch.record(search);
+    }
+
+    public void recordReservation(boolean inMemory, String outcome, long nanos) {
+        reservations.get(store(inMemory) + outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRelease(boolean inMemory, boolean bulk, long nanos) {
+        releases.get(store(inMemory) + (bulk ? "bulk" : "single")).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUnmatchedReleases(int count) {
+        unmatchedReleases.increment(count);
+    }
+
+    private static String store(boolean inMemory) {
+        return inMemory ? "memory" : "mongo";
+    }
+
+    private static Timer searchTimer(MeterRegistry registry, String type) {
+        return Timer.builder("flight.search.latency")
+                .description("Time to search flights on a route, including the search cache")
+                .tag("type", type)
+                .register(registry);
+    }
+}
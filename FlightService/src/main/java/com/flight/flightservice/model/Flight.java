@@ -1,13 +1,27 @@
 package com.flight.flightservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 @Document(collection = "flights")
+// _id last: route searches are equality matches on the first three, so pages sorted by _id come
+// straight off the index in a stable order
+@CompoundIndex(name = "route_date_id_idx", def = "{'source': 1, 'destination': 1, 'date': 1, '_id': 1}")
 public class Flight {
+
+    /**
+     * How many seat command ids a flight keeps in seatCommands. Older ones are recognised through
+     * {@link SeatCommand}, which holds every applied id for the configured retention.
+     */
+    public static final int SEAT_COMMAND_HISTORY = 500;
+
     @Id
     private String id;
     private String flightNumber;
@@ -16,4 +30,16 @@ public class Flight {
     private String destination;
     private String date;
     private int availableSeats;
+
+    // ids of the latest reservations and releases applied to availableSeats, oldest first; written
+    // in the same update as the seat count and left out of the usual reads
+    @JsonIgnore
+    private List<String> seatCommands;
+
+    /**
+     * Ledger entry for a reservation that was given back, or refused before it arrived.
+     */
+    public static String released(String reservationId) {
+        return "released:" + reservationId;
+    }
 }
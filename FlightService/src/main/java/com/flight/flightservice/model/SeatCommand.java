@@ -0,0 +1,25 @@
+package com.flight.flightservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * A seat command id that was applied to a flight: a reservation id, its released marker, or the
+ * id of a release. Kept until flight.seat-commands.retention after appliedAt (a TTL index set up
+ * by MongoIndexConfig), so a command retried any time within that window is recognised.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "seat_commands")
+public class SeatCommand {
+    @Id
+    private String id;
+    private String flightId;
+    private Date appliedAt;
+}
@@ -0,0 +1,40 @@
+package com.flight.flightservice.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Seats taken out of a flight's inventory for a limited time. Confirming a hold keeps the seats
+ * and marks it confirmed, so a retried confirm still succeeds, until the record ages out a day
+ * later; a hold that is released or expires is deleted once its seats are back.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "seat_holds")
+public class SeatHold {
+    @Id
+    private String id;
+    private String flightId;
+    private int seats;
+    @Indexed(name = "expires_at_idx")
+    private Date expiresAt;
+    private String sweptBy;      // sweeper run releasing this hold
+    private Date sweepLockedUntil;
+    // set on confirm, which also clears expiresAt so the hold can no longer expire
+    @Indexed(name = "confirmed_at_ttl_idx", expireAfter = "1d")
+    private Date confirmedAt;
+    // set on release, which deletes the hold once its seats are back; until then it cannot be confirmed
+    private Date releasedAt;
+
+    public SeatHold(String id, String flightId, int seats, Date expiresAt) {
+        this.id = id;
+        this.flightId = flightId;
+        this.seats = seats;
+        this.expiresAt = expiresAt;
+    }
+}
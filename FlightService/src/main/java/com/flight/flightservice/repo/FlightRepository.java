@@ -1,12 +1,31 @@
 package com.flight.flightservice.repo;
 
+import com.flight.flightservice.dto.FlightSummary;
 import com.flight.flightservice.model.Flight;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface FlightRepository extends MongoRepository<Flight, String> {
+public interface FlightRepository extends MongoRepository<Flight, String>, FlightRepositoryCustom {
 
+    // seatCommands is only needed by seat updates, which read it inside the write
+    String NO_SEAT_COMMANDS = "{'seatCommands': 0}";
+
+    @Query(value = "{'_id': ?0}", fields = NO_SEAT_COMMANDS)
+    Optional<Flight> findById(String id);
+
+    @Query(fields = NO_SEAT_COMMANDS)
     List<Flight> findBySourceAndDestinationAndDate(String source, String destination, String date);
 
+    Slice<FlightSummary> findSummariesBySourceAndDestinationAndDate(String source, String destination, String date,
+                                                                    Pageable pageable);
+
+    // backed by a Mongo cursor; callers must close the stream
+    Stream<FlightSummary> streamSummariesBySourceAndDestinationAndDate(String source, String destination, String date);
+
 }
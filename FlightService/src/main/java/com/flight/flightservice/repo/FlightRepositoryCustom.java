@@ -0,0 +1,84 @@
+package com.flight.flightservice.repo;
+
+import com.flight.flightservice.dto.SeatRelease;
+import com.flight.flightservice.model.Flight;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single round-trip seat updates that are applied atomically by MongoDB.
+ * <p>
+ * Updates that carry a reservation or command id are applied at most once. The id is recorded in
+ * the flight's recent seatCommands in the same write as the seat count, which guards against
+ * concurrent and quick retries, and then in the seat_commands collection, which remembers it for
+ * flight.seat-commands.retention however many commands the flight sees meanwhile; see
+ * {@link Flight#SEAT_COMMAND_HISTORY} and {@link com.flight.flightservice.model.SeatCommand}.
+ */
+public interface FlightRepositoryCustom {
+
+    /**
+     * Decrements availableSeats by count only if at least count seats remain.
+     *
+     * @return the new seat count, or -1 if the flight does not exist or has too few seats
+     */
+    int decrementSeats(String id, int count);
+
+    /**
+     * Like {@link #decrementSeats(String, int)}, applied at most once per reservation id. A
+     * reservation that was already released is refused.
+     *
+     * @return the new seat count, the current one if the reservation was applied before, or -1
+     * if the flight does not exist, has too few seats or the reservation was released
+     */
+    int reserveSeats(String id, int count, String reservationId);
+
+    /**
+     * Increments availableSeats by count.
+     *
+     * @return the new seat count, or -1 if the flight does not exist
+     */
+    int incrementSeats(String id, int count);
+
+    /**
+     * Increments availableSeats of every flight in the map by its count with one unordered bulk write.
+     */
+    void incrementSeats(Map<String, Integer> seatsByFlight);
+
+    /**
+     * Gives back the seats of each reservation that was applied and not yet released, with one
+     * unordered bulk write. Every reservation is marked released either way, so one that has not
+     * arrived yet is refused when it does.
+     *
+     * @return the releases whose reservation was never applied, so no seats went back for them
+     */
+    List<SeatRelease> releaseReservations(List<SeatRelease> releases);
+
+    /**
+     * Gives back the seats of each release whose command id the flight has not applied yet, and
+     * records the ids, with one update per flight in an unordered bulk write. The releases must
+     * carry distinct command ids.
+     */
+    void releaseCommands(List<SeatRelease> releases);
+
+    /**
+     * Overwrites availableSeats for every flight in the map and appends the seat command ids
+     * applied since the last write, with one unordered bulk write; the ids are then recorded in
+     * seat_commands.
+     */
+    void setSeats(Map<String, Integer> seatsByFlight, Map<String, List<String>> commandsByFlight);
+
+    /**
+     * availableSeats and seatCommands of a flight, the state the in-memory inventory starts from.
+     *
+     * @return the flight with only those fields set, or null if it does not exist
+     */
+    Flight findSeats(String id);
+
+    /**
+     * @return those of the given seat command ids that are recorded in seat_commands
+     */
+    Set<String> findAppliedCommands(Collection<String> commandIds);
+}
@@ -0,0 +1,293 @@
+package com.flight.flightservice.repo;
+
+import com.flight.flightservice.dto.SeatRelease;
+import com.flight.flightservice.model.Flight;
+import com.flight.flightservice.model.SeatCommand;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class FlightRepositoryCustomImpl implements FlightRepositoryCustom {
+
+    private static final String AVAILABLE_SEATS = "availableSeats";
+    private static final String SEAT_COMMANDS = "seatCommands";
+    private static final String APPLIED_AT = "appliedAt";
+
+    private final MongoTemplate mongoTemplate;
+
+    public FlightRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public int decrementSeats(String id, int count) {
+        // the seat guard is part of the filter, so check and decrement happen in one atomic findAndModify
+        Query query = new Query(Criteria.where("id").is(id).and(AVAILABLE_SEATS).gte(count));
+        return applyDelta(query, -count);
+    }
+
+    @Override
+    public int reserveSeats(String id, int count, String reservationId) {
+        String released = Flight.released(reservationId);
+        Set<String> known = findAppliedCommands(List.of(reservationId, released));
+        if (known.contains(released)) {
+            return -1;
+        }
+        if (known.contains(reservationId)) {
+            // applied long enough ago to have left the flight's recent commands
+            return currentSeats(id);
+        }
+
+        Query query = new Query(Criteria.where("id").is(id).and(AVAILABLE_SEATS).gte(count)
+                .and(SEAT_COMMANDS).nin(reservationId, released));
+        query.fields().include(AVAILABLE_SEATS);
+
+        Flight updated = mongoTemplate.findAndModify(
+                query,
+                new Update().inc(AVAILABLE_SEATS, -count)
+                        .push(SEAT_COMMANDS).slice(-Flight.SEAT_COMMAND_HISTORY).each(reservationId),
+                FindAndModifyOptions.options().returnNew(true),
+                Flight.class);
+        if (updated == null) {
+            // a retry of a reservation that went through still counts as reserved
+            Query applied = new Query(Criteria.where("id").is(id)
+                    .and(SEAT_COMMANDS).all(reservationId).nin(released));
+            applied.fields().include(AVAILABLE_SEATS);
+            updated = mongoTemplate.findOne(applied, Flight.class);
+        }
+        if (updated == null) {
+            return -1;
+        }
+        recordCommands(Map.of(id, List.of(reservationId)));
+        return updated.getAvailableSeats();
+    }
+
+    @Override
+    public int incrementSeats(String id, int count) {
+        return applyDelta(new Query(Criteria.where("id").is(id)), count);
+    }
+
+    @Override
+    public void incrementSeats(Map<String, Integer> seatsByFlight) {
+        bulkUpdate(seatsByFlight, seats -> new Update().inc(AVAILABLE_SEATS, seats));
+    }
+
+    @Override
+    public List<SeatRelease> releaseReservations(List<SeatRelease> releases) {
+        if (releases.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> known = findAppliedCommands(releases.stream()
+                .flatMap(release -> Stream.of(release.getReservationId(), Flight.released(release.getReservationId())))
+                .toList());
+        List<SeatRelease> pending = releases.stream()
+                .filter(release -> !known.contains(Flight.released(release.getReservationId())))
+                .toList();
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+
+        // read before the write, only to report releases that will find nothing to give back
+        Map<String, List<String>> recent = recentCommands(pending.stream()
+                .filter(release -> !known.contains(release.getReservationId()))
+                .map(SeatRelease::getFlightId)
+                .collect(Collectors.toSet()));
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Flight.class);
+        Map<String, List<String>> releasedByFlight = new LinkedHashMap<>();
+        List<SeatRelease> unmatched = new ArrayList<>();
+        for (SeatRelease release : pending) {
+            String reservationId = release.getReservationId();
+            String released = Flight.released(reservationId);
+            boolean applied = known.contains(reservationId);
+            if (!applied && !recent.getOrDefault(release.getFlightId(), List.of()).contains(reservationId)) {
+                unmatched.add(release);
+            }
+            bulk.updateOne(
+                    new Query(Criteria.where("id").is(release.getFlightId()).and(SEAT_COMMANDS).ne(released)),
+                    AggregationUpdate.from(List.of(releaseStage(reservationId, applied, released, release.getSeats()))));
+            releasedByFlight.computeIfAbsent(release.getFlightId(), id -> new ArrayList<>()).add(released);
+        }
+        bulk.execute();
+        recordCommands(releasedByFlight);
+        return unmatched;
+    }
+
+    @Override
+    public void releaseCommands(List<SeatRelease> releases) {
+        Set<String> known = findAppliedCommands(releases.stream().map(SeatRelease::getCommandId).toList());
+        Map<String, List<SeatRelease>> byFlight = new LinkedHashMap<>();
+        releases.stream()
+                .filter(release -> !known.contains(release.getCommandId()))
+                .forEach(release -> byFlight.computeIfAbsent(release.getFlightId(), id -> new ArrayList<>()).add(release));
+        if (byFlight.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Flight.class);
+        byFlight.forEach((id, flightReleases) -> bulk.updateOne(
+                new Query(Criteria.where("id").is(id)),
+                AggregationUpdate.from(List.of(commandStage(flightReleases)))));
+        bulk.execute();
+
+        Map<String, List<String>> commandsByFlight = new LinkedHashMap<>();
+        byFlight.forEach((id, flightReleases) ->
+                commandsByFlight.put(id, flightReleases.stream().map(SeatRelease::getCommandId).toList()));
+        recordCommands(commandsByFlight);
+    }
+
+    @Override
+    public void setSeats(Map<String, Integer> seatsByFlight, Map<String, List<String>> commandsByFlight) {
+        if (seatsByFlight.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Flight.class);
+        seatsByFlight.forEach((id, seats) -> {
+            Update update = new Update().set(AVAILABLE_SEATS, seats);
+            List<String> commands = commandsByFlight.getOrDefault(id, List.of());
+            if (!commands.isEmpty()) {
+                update.push(SEAT_COMMANDS).slice(-Flight.SEAT_COMMAND_HISTORY).each(commands.toArray());
+            }
+            bulk.updateOne(new Query(Criteria.where("id").is(id)), update);
+        });
+        bulk.execute();
+        recordCommands(commandsByFlight);
+    }
+
+    @Override
+    public Flight findSeats(String id) {
+        Query query = new Query(Criteria.where("id").is(id));
+        query.fields().include(AVAILABLE_SEATS, SEAT_COMMANDS);
+        return mongoTemplate.findOne(query, Flight.class);
+    }
+
+    @Override
+    public Set<String> findAppliedCommands(Collection<String> commandIds) {
+        if (commandIds.isEmpty()) {
+            return Set.of();
+        }
+        Query query = new Query(Criteria.where("id").in(commandIds));
+        query.fields().include("id");
+        return mongoTemplate.find(query, SeatCommand.class).stream()
+                .map(SeatCommand::getId)
+                .collect(Collectors.toSet());
+    }
+
+    // after the seat write: a command applied but not recorded yet is still caught by the flight's
+    // recent seatCommands, and recorded when its retry finds it there
+    private void recordCommands(Map<String, List<String>> commandsByFlight) {
+        if (commandsByFlight.values().stream().allMatch(List::isEmpty)) {
+            return;
+        }
+
+        Date now = new Date();
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SeatCommand.class);
+        commandsByFlight.forEach((id, commands) -> commands.forEach(command -> bulk.upsert(
+                new Query(Criteria.where("id").is(command)),
+                new Update().setOnInsert("flightId", id).setOnInsert(APPLIED_AT, now))));
+        bulk.execute();
+    }
+
+    private int currentSeats(String id) {
+        Query query = new Query(Criteria.where("id").is(id));
+        query.fields().include(AVAILABLE_SEATS);
+        Flight flight = mongoTemplate.findOne(query, Flight.class);
+        return flight == null ? -1 : flight.getAvailableSeats();
+    }
+
+    private Map<String, List<String>> recentCommands(Set<String> flightIds) {
+        if (flightIds.isEmpty()) {
+            return Map.of();
+        }
+        Query query = new Query(Criteria.where("id").in(flightIds));
+        query.fields().include(SEAT_COMMANDS);
+        Map<String, List<String>> recent = new HashMap<>();
+        for (Flight flight : mongoTemplate.find(query, Flight.class)) {
+            recent.put(flight.getId(), flight.getSeatCommands() != null ? flight.getSeatCommands() : List.of());
+        }
+        return recent;
+    }
+
+    // one $set stage, so the seat check and both writes see the same document: the seats go back
+    // only if the reservation is in seat_commands or the flight's recent commands, and the
+    // released marker is appended either way
+    private static AggregationOperation releaseStage(String reservationId, boolean applied, String released, int seats) {
+        Document commands = new Document("$ifNull", List.of("$" + SEAT_COMMANDS, List.of()));
+        Document availableSeats = new Document("$cond", List.of(
+                new Document("$or", List.of(applied, new Document("$in", List.of(new Document("$literal", reservationId), commands)))),
+                new Document("$add", List.of("$" + AVAILABLE_SEATS, seats)),
+                "$" + AVAILABLE_SEATS));
+        Document seatCommands = new Document("$slice", List.of(
+                new Document("$concatArrays", List.of(commands, List.of(new Document("$literal", released)))),
+                -Flight.SEAT_COMMAND_HISTORY));
+        return context -> new Document("$set", new Document(AVAILABLE_SEATS, availableSeats)
+                .append(SEAT_COMMANDS, seatCommands));
+    }
+
+    // one $set stage per flight: the releases are summed, leaving out those whose command id is
+    // already in the ledger, and only the new ids are appended, all against the same document
+    private static AggregationOperation commandStage(List<SeatRelease> releases) {
+        Document commands = new Document("$ifNull", List.of("$" + SEAT_COMMANDS, List.of()));
+        List<Object> seats = new ArrayList<>();
+        List<Object> commandIds = new ArrayList<>();
+        seats.add("$" + AVAILABLE_SEATS);
+        for (SeatRelease release : releases) {
+            Document commandId = new Document("$literal", release.getCommandId());
+            seats.add(new Document("$cond", List.of(
+                    new Document("$in", List.of(commandId, commands)), 0, release.getSeats())));
+            commandIds.add(commandId);
+        }
+        Document newCommands = new Document("$filter", new Document("input", commandIds)
+                .append("as", "command")
+                .append("cond", new Document("$not", List.of(new Document("$in", List.of("$$command", commands))))));
+        Document seatCommands = new Document("$slice", List.of(
+                new Document("$concatArrays", List.of(commands, newCommands)),
+                -Flight.SEAT_COMMAND_HISTORY));
+        return context -> new Document("$set", new Document(AVAILABLE_SEATS, new Document("$add", seats))
+                .append(SEAT_COMMANDS, seatCommands));
+    }
+
+    private void bulkUpdate(Map<String, Integer> seatsByFlight, IntFunction<Update> update) {
+        if (seatsByFlight.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Flight.class);
+        seatsByFlight.forEach((id, seats) -> bulk.updateOne(
+                new Query(Criteria.where("id").is(id)),
+                update.apply(seats)));
+        bulk.execute();
+    }
+
+    private int applyDelta(Query query, int delta) {
+        query.fields().include(AVAILABLE_SEATS);
+
+        Flight updated = mongoTemplate.findAndModify(
+                query,
+                new Update().inc(AVAILABLE_SEATS, delta),
+                FindAndModifyOptions.options().returnNew(true),
+                Flight.class);
+
+        return updated == null ? -1 : updated.getAvailableSeats();
+    }
+}
@@ -0,0 +1,20 @@
+package com.flight.flightservice.repo;
+
+import com.flight.flightservice.dto.FlightSummary;
+import com.flight.flightservice.model.Flight;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveFlightRepository extends ReactiveMongoRepository<Flight, String>, ReactiveFlightRepositoryCustom {
+
+    @Query(value = "{'_id': ?0}", fields = FlightRepository.NO_SEAT_COMMANDS)
+    Mono<Flight> findById(String id);
+
+    @Query(fields = FlightRepository.NO_SEAT_COMMANDS)
+    Flux<Flight> findBySourceAndDestinationAndDate(String source, String destination, String date);
+
+    Flux<FlightSummary> streamSummariesBySourceAndDestinationAndDate(String source, String destination, String date);
+
+}
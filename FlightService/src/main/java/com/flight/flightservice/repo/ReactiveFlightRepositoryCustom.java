@@ -0,0 +1,36 @@
+package com.flight.flightservice.repo;
+
+import com.flight.flightservice.dto.FlightSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link FlightRepositoryCustom} for the reactive stack.
+ */
+public interface ReactiveFlightRepositoryCustom {
+
+    /**
+     * Decrements availableSeats by count only if at least count seats remain.
+     *
+     * @return the new seat count, or -1 if the flight does not exist or has too few seats
+     */
+    Mono<Integer> decrementSeats(String id, int count);
+
+    /**
+     * Like {@link #decrementSeats(String, int)}, applied at most once per reservation id; see
+     * {@link FlightRepositoryCustom#reserveSeats(String, int, String)}.
+     */
+    Mono<Integer> reserveSeats(String id, int count, String reservationId);
+
+    /**
+     * Increments availableSeats by count.
+     *
+     * @return the new seat count, or -1 if the flight does not exist
+     */
+    Mono<Integer> incrementSeats(String id, int count);
+
+    /**
+     * Summaries for one route and date, skipping the first skip matches and returning at most limit.
+     */
+    Flux<FlightSummary> findSummaries(String source, String destination, String date, long skip, int limit);
+}
@@ -0,0 +1,118 @@
+package com.flight.flightservice.repo;
+
+import com.flight.flightservice.dto.FlightSummary;
+import com.flight.flightservice.model.Flight;
+import com.flight.flightservice.model.SeatCommand;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.stream.Collectors;
+
+public class ReactiveFlightRepositoryCustomImpl implements ReactiveFlightRepositoryCustom {
+
+    private static final String AVAILABLE_SEATS = "availableSeats";
+    private static final String SEAT_COMMANDS = "seatCommands";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReactiveFlightRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<Integer> decrementSeats(String id, int count) {
+        // same single-document guard as FlightRepositoryCustomImpl, without blocking the caller
+        Query query = new Query(Criteria.where("id").is(id).and(AVAILABLE_SEATS).gte(count));
+        return applyDelta(query, -count);
+    }
+
+    @Override
+    public Mono<Integer> reserveSeats(String id, int count, String reservationId) {
+        // the same two ledgers as FlightRepositoryCustomImpl.reserveSeats
+        String released = Flight.released(reservationId);
+        Query known = new Query(Criteria.where("id").in(reservationId, released));
+        known.fields().include("id");
+
+        return mongoTemplate.find(known, SeatCommand.class)
+                .map(SeatCommand::getId)
+                .collect(Collectors.toSet())
+                .flatMap(commands -> {
+                    if (commands.contains(released)) {
+                        return Mono.just(-1);
+                    }
+                    if (commands.contains(reservationId)) {
+                        // applied long enough ago to have left the flight's recent commands
+                        Query current = new Query(Criteria.where("id").is(id));
+                        current.fields().include(AVAILABLE_SEATS);
+                        return mongoTemplate.findOne(current, Flight.class)
+                                .map(Flight::getAvailableSeats)
+                                .defaultIfEmpty(-1);
+                    }
+                    return reserveOnce(id, count, reservationId, released);
+                });
+    }
+
+    private Mono<Integer> reserveOnce(String id, int count, String reservationId, String released) {
+        Query query = new Query(Criteria.where("id").is(id).and(AVAILABLE_SEATS).gte(count)
+                .and(SEAT_COMMANDS).nin(reservationId, released));
+        query.fields().include(AVAILABLE_SEATS);
+
+        Query applied = new Query(Criteria.where("id").is(id)
+                .and(SEAT_COMMANDS).all(reservationId).nin(released));
+        applied.fields().include(AVAILABLE_SEATS);
+
+        return mongoTemplate.findAndModify(
+                        query,
+                        new Update().inc(AVAILABLE_SEATS, -count)
+                                .push(SEAT_COMMANDS).slice(-Flight.SEAT_COMMAND_HISTORY).each(reservationId),
+                        FindAndModifyOptions.options().returnNew(true),
+                        Flight.class)
+                // a retry of a reservation that went through still counts as reserved
+                .switchIfEmpty(Mono.defer(() -> mongoTemplate.findOne(applied, Flight.class)))
+                .flatMap(flight -> mongoTemplate.upsert(
+                                new Query(Criteria.where("id").is(reservationId)),
+                                new Update().setOnInsert("flightId", id).setOnInsert("appliedAt", new Date()),
+                                SeatCommand.class)
+                        .thenReturn(flight.getAvailableSeats()))
+                .defaultIfEmpty(-1);
+    }
+
+    @Override
+    public Mono<Integer> incrementSeats(String id, int count) {
+        return applyDelta(new Query(Criteria.where("id").is(id)), count);
+    }
+
+    @Override
+    public Flux<FlightSummary> findSummaries(String source, String destination, String date, long skip, int limit) {
+        Query query = new Query(Criteria.where("source").is(source)
+                .and("destination").is(destination)
+                .and("date").is(date))
+                .with(Sort.by("id"))
+                .skip(skip)
+                .limit(limit);
+
+        return mongoTemplate.query(Flight.class)
+                .as(FlightSummary.class)
+                .matching(query)
+                .all();
+    }
+
+    private Mono<Integer> applyDelta(Query query, int delta) {
+        query.fields().include(AVAILABLE_SEATS);
+
+        return mongoTemplate.findAndModify(
+                        query,
+                        new Update().inc(AVAILABLE_SEATS, delta),
+                        FindAndModifyOptions.options().returnNew(true),
+                        Flight.class)
+                .map(Flight::getAvailableSeats)
+                .defaultIfEmpty(-1);
+    }
+}
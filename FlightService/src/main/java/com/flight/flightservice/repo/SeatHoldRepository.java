@@ -0,0 +1,7 @@
+package com.flight.flightservice.repo;
+
+import com.flight.flightservice.model.SeatHold;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface SeatHoldRepository extends MongoRepository<SeatHold, String>, SeatHoldRepositoryCustom {
+}
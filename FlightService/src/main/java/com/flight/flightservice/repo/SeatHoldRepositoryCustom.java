@@ -0,0 +1,44 @@
+package com.flight.flightservice.repo;
+
+import com.flight.flightservice.model.SeatHold;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Atomic hand-over of holds, so a hold is confirmed, released or expired exactly once.
+ */
+public interface SeatHoldRepositoryCustom {
+
+    /**
+     * Marks a hold that has not expired or been confirmed yet as released. The hold keeps its
+     * expiry, so if its seats never make it back the sweeper releases it once it expires.
+     * Releasing a hold that is already marked released returns it again, so a retried release
+     * gives its seats back.
+     *
+     * @return the released hold, or null if it does not exist, has expired or was confirmed
+     */
+    SeatHold markReleased(String id);
+
+    /**
+     * Marks a hold that has not expired yet as confirmed. Confirming a hold that is already
+     * confirmed changes nothing and returns it, so a retried confirm succeeds.
+     *
+     * @return the confirmed hold, or null if it does not exist, has expired or is being released
+     */
+    SeatHold confirm(String id);
+
+    /**
+     * Claims up to limit expired holds, soonest expiry first, for the given lease. Only holds past
+     * their expiry are read, through the expiresAt index, so the cost follows the number expired.
+     *
+     * @return the claimed holds
+     */
+    List<SeatHold> claimExpired(int limit, Duration lease);
+
+    /**
+     * Deletes holds returned by {@link #claimExpired}, as long as they are still claimed by that
+     * sweep; holds whose claim lapsed and went to another sweep are left to it.
+     */
+    void deleteClaimed(List<SeatHold> claimed);
+}
@@ -0,0 +1,101 @@
+package com.flight.flightservice.repo;
+
+import com.flight.flightservice.model.SeatHold;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+public class SeatHoldRepositoryCustomImpl implements SeatHoldRepositoryCustom {
+
+    private static final String EXPIRES_AT = "expiresAt";
+    private static final String SWEPT_BY = "sweptBy";
+    private static final String SWEEP_LOCKED_UNTIL = "sweepLockedUntil";
+    private static final String CONFIRMED_AT = "confirmedAt";
+    private static final String RELEASED_AT = "releasedAt";
+
+    private final MongoTemplate mongoTemplate;
+
+    public SeatHoldRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public SeatHold markReleased(String id) {
+        // expired holds belong to the sweeper, so confirm and release cannot race it; confirmed
+        // holds have no expiresAt and never match
+        SeatHold released = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(id).and(EXPIRES_AT).gt(new Date()).and(RELEASED_AT).is(null)),
+                new Update().set(RELEASED_AT, new Date()),
+                FindAndModifyOptions.options().returnNew(true),
+                SeatHold.class);
+        if (released != null) {
+            return released;
+        }
+        // a retry of a release whose seats may not have made it back
+        return mongoTemplate.findOne(new Query(Criteria.where("id").is(id).and(RELEASED_AT).ne(null)), SeatHold.class);
+    }
+
+    @Override
+    public SeatHold confirm(String id) {
+        SeatHold confirmed = mongoTemplate.findAndModify(
+                new Query(Criteria.where("id").is(id).and(EXPIRES_AT).gt(new Date()).and(RELEASED_AT).is(null)),
+                new Update().set(CONFIRMED_AT, new Date()).unset(EXPIRES_AT),
+                FindAndModifyOptions.options().returnNew(true),
+                SeatHold.class);
+        if (confirmed != null) {
+            return confirmed;
+        }
+        // a retry of a confirm that already went through
+        return mongoTemplate.findOne(new Query(Criteria.where("id").is(id).and(CONFIRMED_AT).ne(null)), SeatHold.class);
+    }
+
+    @Override
+    public List<SeatHold> claimExpired(int limit, Duration lease) {
+        Date now = new Date();
+
+        Query candidates = new Query(expiredAndUnclaimed(now))
+                .with(Sort.by(Sort.Direction.ASC, EXPIRES_AT))
+                .limit(limit);
+        candidates.fields().include("id");
+        List<String> ids = mongoTemplate.find(candidates, SeatHold.class).stream()
+                .map(SeatHold::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // the filter is repeated so holds another sweeper claimed since the read are skipped
+        String owner = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("id").in(ids)).addCriteria(expiredAndUnclaimed(now)),
+                new Update().set(SWEPT_BY, owner).set(SWEEP_LOCKED_UNTIL, new Date(now.getTime() + lease.toMillis())),
+                SeatHold.class);
+
+        return mongoTemplate.find(new Query(Criteria.where(SWEPT_BY).is(owner)), SeatHold.class);
+    }
+
+    @Override
+    public void deleteClaimed(List<SeatHold> claimed) {
+        if (claimed.isEmpty()) {
+            return;
+        }
+        mongoTemplate.remove(
+                new Query(Criteria.where("id").in(claimed.stream().map(SeatHold::getId).toList())
+                        .and(SWEPT_BY).is(claimed.get(0).getSweptBy())),
+                SeatHold.class);
+    }
+
+    private static Criteria expiredAndUnclaimed(Date now) {
+        return Criteria.where(EXPIRES_AT).lte(now).orOperator(
+                Criteria.where(SWEEP_LOCKED_UNTIL).is(null),
+                Criteria.where(SWEEP_LOCKED_UNTIL).lte(now));
+    }
+}
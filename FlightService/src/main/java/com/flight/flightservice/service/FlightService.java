@@ -1,66 +1,288 @@
 package com.flight.flightservice.service;
 
+import com.flight.flightservice.cache.FlightSearchCache;
+import com.flight.flightservice.dto.FlightSummary;
+import com.flight.flightservice.dto.SeatRelease;
+import com.flight.flightservice.dto.SeatReservation;
 import com.flight.flightservice.exception.FlightNotFoundException;
+import com.flight.flightservice.inventory.SeatInventory;
+import com.flight.flightservice.metrics.FlightMetrics;
 import com.flight.flightservice.model.Flight;
 import com.flight.flightservice.repo.FlightRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 public class FlightService {
 
     private static final Logger log = LoggerFactory.getLogger(FlightService.class);
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Sort PAGE_ORDER = Sort.by("id");
 
     private final FlightRepository repository;
+    private final SeatInventory inventory; // null unless flight.inventory.in-memory=true
+    private final FlightSearchCache searchCache;
+    private final FlightMetrics metrics;
 
     public FlightService(FlightRepository repository) {
+        this(repository, null, FlightSearchCache.disabled());
+    }
+
+    public FlightService(FlightRepository repository, @Nullable SeatInventory inventory,
+                         FlightSearchCache searchCache) {
+        this(repository, inventory, searchCache, FlightMetrics.disabled());
+    }
+
+    @Autowired
+    public FlightService(FlightRepository repository, @Nullable SeatInventory inventory,
+                         FlightSearchCache searchCache, FlightMetrics metrics) {
         this.repository = repository;
+        this.inventory = inventory;
+        this.searchCache = searchCache;
+        this.metrics = metrics;
     }
 
     public Flight addFlight(Flight flight) {
         log.info("Adding flight: {}", flight.getFlightNumber());
-        return repository.save(flight);
+        Flight saved = repository.save(flight);
+        searchCache.invalidateRoute(flight.getSource(), flight.getDestination(), flight.getDate());
+        return saved;
     }
 
     public List<Flight> searchFlights(String source, String destination, String date) {
         log.info("Searching flights from {} to {} on {}", source, destination, date);
-        return repository.findBySourceAndDestinationAndDate(source, destination, date);
+        return metrics.timeSearch(() -> {
+            List<Flight> flights = searchCache.get(source, destination, date,
+                    () -> repository.findBySourceAndDestinationAndDate(source, destination, date));
+            flights.forEach(this::applyLiveSeats);
+            return flights;
+        });
+    }
+
+    public Slice<FlightSummary> searchFlightPage(String source, String destination, String date, int page, int size) {
+        log.info("Searching flights from {} to {} on {} (page {}, size {})", source, destination, date, page, size);
+        // without a sort Mongo's natural order can shift between pages, repeating or skipping flights
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE), PAGE_ORDER);
+        return metrics.timePageSearch(() -> {
+            Slice<FlightSummary> flights = repository.findSummariesBySourceAndDestinationAndDate(
+                    source, destination, date, pageable);
+            flights.forEach(this::applyLiveSeats);
+            return flights;
+        });
+    }
+
+    // the caller owns the returned stream and must close it to release the cursor
+    public Stream<FlightSummary> streamFlights(String source, String destination, String date) {
+        log.info("Streaming flights from {} to {} on {}", source, destination, date);
+        return repository.streamSummariesBySourceAndDestinationAndDate(source, destination, date)
+                .peek(this::applyLiveSeats);
     }
 
     public Flight getFlight(String id) {
-        return repository.findById(id)
+        Flight flight = repository.findById(id)
                 .orElseThrow(() -> new FlightNotFoundException(id));
+        applyLiveSeats(flight);
+        return flight;
+    }
+
+    public boolean isAvailable(String id) {
+        if (inventory != null) {
+            return inventory.available(id) > 0;
+        }
+        return getFlight(id).getAvailableSeats() > 0;
     }
 
     public boolean reduceSeats(String id, int count) {
-        log.info("Reducing {} seats from flight {}", count, id);
+        return reserveSeats(id, count).isReserved();
+    }
 
-        Flight flight = getFlight(id);
+    public SeatReservation reserveSeats(String id, int count) {
+        return reserveSeats(id, count, null);
+    }
+
+    /**
+     * Reserves seats under the caller's reservation id, if it sends one: a retried call is then
+     * answered with the reservation it already made, and a reservation released before it
+     * arrived is refused.
+     */
+    public SeatReservation reserveSeats(String id, int count, @Nullable String reservationId) {
+        log.info("Reserving {} seats on flight {}", count, id);
+        long start = System.nanoTime();
+        String outcome = FlightMetrics.ERROR;
+        try {
+            SeatReservation reservation = reserve(id, count, reservationId);
+            outcome = reservation.isReserved() ? FlightMetrics.RESERVED : FlightMetrics.REJECTED;
+            return reservation;
+        } finally {
+            metrics.recordReservation(inventory != null, outcome, System.nanoTime() - start);
+        }
+    }
+
+    private SeatReservation reserve(String id, int count, @Nullable String reservationId) {
+        int remaining;
+        if (inventory != null) {
+            remaining = inventory.reserve(id, count, reservationId);
+        } else {
+            remaining = reservationId != null
+                    ? repository.reserveSeats(id, count, reservationId)
+                    : repository.decrementSeats(id, count);
+        }
 
-        if (flight.getAvailableSeats() < count) {
+        if (remaining < 0) {
+            // the guard failed; report what is left so callers can stop retrying a sold-out flight
+            int available = inventory != null ? inventory.available(id) : getFlight(id).getAvailableSeats();
             log.warn("Not enough seats available for flight {}. Requested: {}, Available: {}",
-                    id, count, flight.getAvailableSeats());
-            return false;
+                    id, count, available);
+            return SeatReservation.rejected(id, count, available);
         }
 
-        flight.setAvailableSeats(flight.getAvailableSeats() - count);
-        repository.save(flight);
+        searchCache.invalidateFlight(id);
 
-        log.info("Successfully reduced seats. Remaining seats: {}", flight.getAvailableSeats());
-        return true;
+        SeatReservation reservation = new SeatReservation(
+                reservationId != null ? reservationId : UUID.randomUUID().toString(), id, count, remaining, true);
+
+        log.info("Reservation {} confirmed. Remaining seats: {}", reservation.getReservationId(), remaining);
+        return reservation;
     }
 
     public void increaseSeats(String id, int count) {
         log.info("Increasing {} seats for flight {}", count, id);
 
-        Flight flight = getFlight(id);
+        long start = System.nanoTime();
+        int updated = inventory != null
+                ? inventory.release(id, count)
+                : repository.incrementSeats(id, count);
+        metrics.recordRelease(inventory != null, false, System.nanoTime() - start);
+
+        if (updated < 0) {
+            throw new FlightNotFoundException(id);
+        }
+
+        searchCache.invalidateFlight(id);
 
-        flight.setAvailableSeats(flight.getAvailableSeats() + count);
-        repository.save(flight);
+        log.info("Successfully increased seats. New seat count: {}", updated);
+    }
 
-        log.info("Successfully increased seats. New seat count: {}", flight.getAvailableSeats());
+    /**
+     * Returns seats to many flights at once, e.g. from expired holds or bookingservice release
+     * commands: one bulk write to Mongo, or one in-memory update per flight when the inventory
+     * is enabled.
+     */
+    public void releaseSeats(Map<String, Integer> seatsByFlight) {
+        if (seatsByFlight.isEmpty()) {
+            return;
+        }
+        log.info("Releasing seats on {} flights", seatsByFlight.size());
+
+        long start = System.nanoTime();
+        if (inventory != null) {
+            // like the bulk update below, a flight that no longer exists is skipped
+            seatsByFlight.forEach((id, seats) -> {
+                try {
+                    inventory.release(id, seats);
+                } catch (FlightNotFoundException e) {
+                    log.warn("Skipping release of {} seats on unknown flight {}", seats, id);
+                }
+            });
+        } else {
+            repository.incrementSeats(seatsByFlight);
+        }
+        metrics.recordRelease(inventory != null, true, System.nanoTime() - start);
+
+        seatsByFlight.keySet().forEach(searchCache::invalidateFlight);
+    }
+
+    /**
+     * Gives back the seats of reservations made with a reservation id, each only if it was
+     * applied and not released before: one bulk write to Mongo, or one in-memory update per
+     * reservation when the inventory is enabled.
+     */
+    public void releaseReservations(List<SeatRelease> releases) {
+        if (releases.isEmpty()) {
+            return;
+        }
+        log.info("Releasing {} reservations", releases.size());
+
+        long start = System.nanoTime();
+        List<SeatRelease> unmatched = new ArrayList<>();
+        if (inventory != null) {
+            for (SeatRelease release : releases) {
+                try {
+                    if (!inventory.releaseReservation(release.getFlightId(), release.getSeats(), release.getReservationId())) {
+                        unmatched.add(release);
+                    }
+                } catch (FlightNotFoundException e) {
+                    log.warn("Skipping release of reservation {} on unknown flight {}",
+                            release.getReservationId(), release.getFlightId());
+                }
+            }
+        } else {
+            unmatched = repository.releaseReservations(releases);
+        }
+        metrics.recordRelease(inventory != null, true, System.nanoTime() - start);
+
+        // expected when the reserve never arrived; otherwise the reservation outlived seat_commands
+        for (SeatRelease release : unmatched) {
+            log.warn("Reservation {} on flight {} was never applied, no seats given back",
+                    release.getReservationId(), release.getFlightId());
+        }
+        metrics.recordUnmatchedReleases(unmatched.size());
+
+        releases.forEach(release -> searchCache.invalidateFlight(release.getFlightId()));
+    }
+
+    /**
+     * Gives back seats for releases that carry a command id, each command at most once: one
+     * update per flight in a bulk write to Mongo, or one in-memory update per release when the
+     * inventory is enabled. The releases must carry distinct command ids.
+     */
+    public void releaseCommands(List<SeatRelease> releases) {
+        if (releases.isEmpty()) {
+            return;
+        }
+        log.info("Releasing seats for {} commands", releases.size());
+
+        long start = System.nanoTime();
+        if (inventory != null) {
+            for (SeatRelease release : releases) {
+                try {
+                    inventory.release(release.getFlightId(), release.getSeats(), release.getCommandId());
+                } catch (FlightNotFoundException e) {
+                    log.warn("Skipping release command {} on unknown flight {}",
+                            release.getCommandId(), release.getFlightId());
+                }
+            }
+        } else {
+            repository.releaseCommands(releases);
+        }
+        metrics.recordRelease(inventory != null, true, System.nanoTime() - start);
+
+        releases.forEach(release -> searchCache.invalidateFlight(release.getFlightId()));
+    }
+
+    // Mongo lags the in-memory inventory by up to one flush interval
+    private void applyLiveSeats(Flight flight) {
+        if (inventory != null && flight.getId() != null) {
+            inventory.peek(flight.getId()).ifPresent(flight::setAvailableSeats);
+        }
+    }
+
+    private void applyLiveSeats(FlightSummary flight) {
+        if (inventory != null && flight.getId() != null) {
+            inventory.peek(flight.getId()).ifPresent(flight::setAvailableSeats);
+        }
     }
 }
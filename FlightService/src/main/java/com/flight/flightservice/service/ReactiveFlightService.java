@@ -0,0 +1,179 @@
+package com.flight.flightservice.service;
+
+import com.flight.flightservice.cache.FlightSearchCache;
+import com.flight.flightservice.dto.FlightSearchPage;
+import com.flight.flightservice.dto.FlightSummary;
+import com.flight.flightservice.dto.SeatReservation;
+import com.flight.flightservice.exception.FlightNotFoundException;
+import com.flight.flightservice.inventory.SeatInventory;
+import com.flight.flightservice.model.Flight;
+import com.flight.flightservice.repo.ReactiveFlightRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking variant of {@link FlightService} backed by the reactive Mongo driver. Enabled with
+ * flight.reactive.enabled=true, in which case {@code ReactiveFlightController} serves /flights.
+ */
+@Service
+@ConditionalOnProperty(name = "flight.reactive.enabled", havingValue = "true")
+public class ReactiveFlightService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveFlightService.class);
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ReactiveFlightRepository repository;
+    private final SeatInventory inventory; // null unless flight.inventory.in-memory=true
+    private final FlightSearchCache searchCache;
+
+    public ReactiveFlightService(ReactiveFlightRepository repository, @Nullable SeatInventory inventory,
+                                 FlightSearchCache searchCache) {
+        this.repository = repository;
+        this.inventory = inventory;
+        this.searchCache = searchCache;
+    }
+
+    public Mono<Flight> addFlight(Flight flight) {
+        log.info("Adding flight: {}", flight.getFlightNumber());
+        return repository.save(flight)
+                .doOnSuccess(saved -> searchCache.invalidateRoute(
+                        flight.getSource(), flight.getDestination(), flight.getDate()));
+    }
+
+    public Flux<Flight> searchFlights(String source, String destination, String date) {
+        return Flux.defer(() -> {
+            log.info("Searching flights from {} to {} on {}", source, destination, date);
+            List<Flight> cached = searchCache.getIfPresent(source, destination, date);
+            if (cached != null) {
+                return Flux.fromIterable(cached);
+            }
+            return repository.findBySourceAndDestinationAndDate(source, destination, date)
+                    .collectList()
+                    .flatMapIterable(flights -> searchCache.put(source, destination, date, flights));
+        }).doOnNext(this::applyLiveSeats);
+    }
+
+    /**
+     * One page of summaries. Fetches a single extra row to tell whether another page exists,
+     * so no count query is needed.
+     */
+    public Mono<FlightSearchPage> searchFlightPage(String source, String destination, String date,
+                                                   int page, int size) {
+        log.info("Searching flights from {} to {} on {} (page {}, size {})", source, destination, date, page, size);
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return repository.findSummaries(source, destination, date, (long) pageNumber * pageSize, pageSize + 1)
+                .doOnNext(this::applyLiveSeats)
+                .collectList()
+                .map(flights -> {
+                    boolean hasNext = flights.size() > pageSize;
+                    List<FlightSummary> content = hasNext ? flights.subList(0, pageSize) : flights;
+                    return new FlightSearchPage(content, pageNumber, pageSize, hasNext);
+                });
+    }
+
+    public Flux<FlightSummary> streamFlights(String source, String destination, String date) {
+        log.info("Streaming flights from {} to {} on {}", source, destination, date);
+        return repository.streamSummariesBySourceAndDestinationAndDate(source, destination, date)
+                .doOnNext(this::applyLiveSeats);
+    }
+
+    public Mono<Flight> getFlight(String id) {
+        return repository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new FlightNotFoundException(id)))
+                .doOnNext(this::applyLiveSeats);
+    }
+
+    public Mono<Boolean> isAvailable(String id) {
+        if (inventory != null) {
+            return offload(() -> inventory.available(id) > 0);
+        }
+        return getFlight(id).map(flight -> flight.getAvailableSeats() > 0);
+    }
+
+    public Mono<SeatReservation> reserveSeats(String id, int count) {
+        return reserveSeats(id, count, null);
+    }
+
+    // see FlightService#reserveSeats(String, int, String)
+    public Mono<SeatReservation> reserveSeats(String id, int count, @Nullable String reservationId) {
+        log.info("Reserving {} seats on flight {}", count, id);
+
+        Mono<Integer> remaining;
+        if (inventory != null) {
+            remaining = offload(() -> inventory.reserve(id, count, reservationId));
+        } else {
+            remaining = reservationId != null
+                    ? repository.reserveSeats(id, count, reservationId)
+                    : repository.decrementSeats(id, count);
+        }
+
+        return remaining.flatMap(left -> {
+            if (left < 0) {
+                return availableSeats(id).map(available -> {
+                    log.warn("Not enough seats available for flight {}. Requested: {}, Available: {}",
+                            id, count, available);
+                    return SeatReservation.rejected(id, count, available);
+                });
+            }
+
+            searchCache.invalidateFlight(id);
+
+            SeatReservation reservation = new SeatReservation(
+                    reservationId != null ? reservationId : UUID.randomUUID().toString(), id, count, left, true);
+            log.info("Reservation {} confirmed. Remaining seats: {}", reservation.getReservationId(), left);
+            return Mono.just(reservation);
+        });
+    }
+
+    public Mono<Void> increaseSeats(String id, int count) {
+        log.info("Increasing {} seats for flight {}", count, id);
+
+        Mono<Integer> updated = inventory != null
+                ? offload(() -> inventory.release(id, count))
+                : repository.incrementSeats(id, count);
+
+        return updated.flatMap(seats -> {
+            if (seats < 0) {
+                return Mono.error(new FlightNotFoundException(id));
+            }
+            searchCache.invalidateFlight(id);
+            log.info("Successfully increased seats. New seat count: {}", seats);
+            return Mono.empty();
+        });
+    }
+
+    private Mono<Integer> availableSeats(String id) {
+        if (inventory != null) {
+            return offload(() -> inventory.available(id));
+        }
+        return getFlight(id).map(Flight::getAvailableSeats);
+    }
+
+    // the inventory loads unknown flights from Mongo with the blocking driver
+    private static <T> Mono<T> offload(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void applyLiveSeats(Flight flight) {
+        if (inventory != null && flight.getId() != null) {
+            inventory.peek(flight.getId()).ifPresent(flight::setAvailableSeats);
+        }
+    }
+
+    private void applyLiveSeats(FlightSummary flight) {
+        if (inventory != null && flight.getId() != null) {
+            inventory.peek(flight.getId()).ifPresent(flight::setAvailableSeats);
+        }
+    }
+}
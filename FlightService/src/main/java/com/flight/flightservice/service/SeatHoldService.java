@@ -0,0 +1,135 @@
+package com.flight.flightservice.service;
+
+import com.flight.flightservice.dto.SeatHoldResult;
+import com.flight.flightservice.dto.SeatRelease;
+import com.flight.flightservice.dto.SeatReservation;
+import com.flight.flightservice.exception.HoldNotFoundException;
+import com.flight.flightservice.model.SeatHold;
+import com.flight.flightservice.repo.SeatHoldRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Hold / confirm / release on top of {@link FlightService}. A hold takes the seats right away and
+ * records an expiry in the seat_holds collection; confirm keeps the seats, release or expiry gives
+ * them back. Confirm and release are idempotent. Expired holds are released in bulk by
+ * {@link #sweepExpired()}. Seats go back under the hold id as command id, so a hold is given
+ * back once even if release or the sweep runs again after a crash.
+ */
+@Service
+public class SeatHoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatHoldService.class);
+
+    private final FlightService flightService;
+    private final SeatHoldRepository holdRepository;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final int sweepBatchSize;
+
+    public SeatHoldService(FlightService flightService,
+                           SeatHoldRepository holdRepository,
+                           @Value("${flight.holds.default-ttl:10m}") Duration defaultTtl,
+                           @Value("${flight.holds.max-ttl:30m}") Duration maxTtl,
+                           @Value("${flight.holds.sweep-batch-size:500}") int sweepBatchSize) {
+        this.flightService = flightService;
+        this.holdRepository = holdRepository;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    public SeatHoldResult hold(String flightId, int count, @Nullable Duration ttl) {
+        Duration holdFor = ttl == null || ttl.isNegative() || ttl.isZero() ? defaultTtl
+                : ttl.compareTo(maxTtl) > 0 ? maxTtl : ttl;
+        log.info("Holding {} seats on flight {} for {}", count, flightId, holdFor);
+
+        SeatReservation reservation = flightService.reserveSeats(flightId, count);
+        if (!reservation.isReserved()) {
+            return SeatHoldResult.rejected(flightId, count, reservation.getRemainingSeats());
+        }
+
+        SeatHold hold = new SeatHold(reservation.getReservationId(), flightId, count,
+                new Date(System.currentTimeMillis() + holdFor.toMillis()));
+        try {
+            holdRepository.insert(hold);
+        } catch (RuntimeException e) {
+            // without a hold record nothing would ever give these seats back
+            flightService.increaseSeats(flightId, count);
+            throw e;
+        }
+
+        log.info("Hold {} placed, expires at {}", hold.getId(), hold.getExpiresAt());
+        return new SeatHoldResult(hold.getId(), flightId, count, reservation.getRemainingSeats(), true,
+                hold.getExpiresAt());
+    }
+
+    // idempotent: confirming a confirmed hold again succeeds
+    public void confirm(String holdId) {
+        SeatHold hold = holdRepository.confirm(holdId);
+        if (hold == null) {
+            throw new HoldNotFoundException(holdId);
+        }
+        log.info("Hold {} confirmed, {} seats on flight {} are now booked", holdId, hold.getSeats(), hold.getFlightId());
+    }
+
+    // idempotent: a missing or expired hold has nothing left to release here
+    public void release(String holdId) {
+        SeatHold hold = holdRepository.markReleased(holdId);
+        if (hold == null) {
+            log.info("Hold {} already confirmed, released or expired", holdId);
+            return;
+        }
+        // delete only once the seats are back: if the release fails, a retry or the sweep after
+        // expiry gives them back under the same command id
+        flightService.releaseCommands(List.of(toRelease(hold)));
+        holdRepository.deleteById(holdId);
+        log.info("Hold {} released, {} seats back on flight {}", holdId, hold.getSeats(), hold.getFlightId());
+    }
+
+    @Scheduled(fixedDelayString = "${flight.holds.sweep-interval-ms:1000}")
+    public void sweepExpired() {
+        try {
+            int released;
+            do {
+                released = sweepBatch();
+            } while (released == sweepBatchSize);
+        } catch (RuntimeException e) {
+            log.warn("Expired hold sweep failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the number of expired holds released
+     */
+    int sweepBatch() {
+        List<SeatHold> expired = holdRepository.claimExpired(sweepBatchSize, Duration.ofMinutes(1));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        // release before deleting: if the release fails, or the sweep dies before the delete, the
+        // holds stay claimed, and once the claim lapses the next sweep retries them; their command
+        // ids keep the seats from going back twice
+        flightService.releaseCommands(expired.stream().map(SeatHoldService::toRelease).toList());
+        holdRepository.deleteClaimed(expired);
+
+        Set<String> flights = expired.stream().map(SeatHold::getFlightId).collect(Collectors.toSet());
+        log.info("Released {} expired holds across {} flights", expired.size(), flights.size());
+        return expired.size();
+    }
+
+    private static SeatRelease toRelease(SeatHold hold) {
+        return new SeatRelease(hold.getFlightId(), hold.getSeats(), null, hold.getId());
+    }
+}
@@ -0,0 +1,128 @@
+package com.flight.flightservice.cache;
+
+import com.flight.flightservice.model.Flight;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightSearchCacheTest {
+
+    private FlightSearchCache cache;
+    private AtomicInteger loads;
+    private Supplier<List<Flight>> loader;
+
+    @BeforeEach
+    void setup() {
+        cache = new FlightSearchCache(100, Duration.ofMinutes(1));
+        loads = new AtomicInteger();
+
+        Flight flight = new Flight();
+        flight.setId("F1");
+        loader = () -> {
+            loads.incrementAndGet();
+            return List.of(flight);
+        };
+    }
+
+    @Test
+    void testHitAfterFirstLoad() {
+        cache.get("DEL", "BOM", "2025-01-01", loader);
+        List<Flight> result = cache.get("DEL", "BOM", "2025-01-01", loader);
+
+        assertEquals(1, result.size());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testInvalidateRouteOnlyDropsThatRoute() {
+        cache.get("DEL", "BOM", "2025-01-01", loader);
+        cache.get("DEL", "BOM", "2025-01-02", loader);
+
+        cache.invalidateRoute("DEL", "BOM", "2025-01-01");
+        cache.get("DEL", "BOM", "2025-01-01", loader);
+        cache.get("DEL", "BOM", "2025-01-02", loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testInvalidateFlightDropsItsRoute() {
+        cache.get("DEL", "BOM", "2025-01-01", loader);
+
+        cache.invalidateFlight("F1");
+        cache.get("DEL", "BOM", "2025-01-01", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidateUnknownFlightIsNoOp() {
+        cache.get("DEL", "BOM", "2025-01-01", loader);
+
+        cache.invalidateFlight("unknown");
+        cache.get("DEL", "BOM", "2025-01-01", loader);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testHitsReturnCopiesOfTheCachedFlights() {
+        cache.get("DEL", "BOM", "2025-01-01", loader).get(0).setAvailableSeats(7);
+
+        assertEquals(0, cache.get("DEL", "BOM", "2025-01-01", loader).get(0).getAvailableSeats());
+        assertNotSame(cache.getIfPresent("DEL", "BOM", "2025-01-01").get(0),
+                cache.getIfPresent("DEL", "BOM", "2025-01-01").get(0));
+    }
+
+    @Test
+    void testFlightsAreUntrackedWhenTheirRouteLeavesTheCache() {
+        FlightSearchCache small = new FlightSearchCache(1, Duration.ofMinutes(1), Runnable::run);
+        small.get("DEL", "BOM", "2025-01-01", loader);
+        small.invalidateRoute("DEL", "BOM", "2025-01-01");
+        assertEquals(0, small.trackedFlights());
+
+        small.get("DEL", "BOM", "2025-01-01", loader);
+        small.put("DEL", "GOI", "2025-01-01", List.of(flight("F2")));
+        small.put("DEL", "GOI", "2025-01-02", List.of(flight("F3")));
+
+        // the size limit of one leaves only the last route, and only its flight tracked
+        assertEquals(1, small.trackedFlights());
+    }
+
+    @Test
+    void testDisabledCacheAlwaysLoads() {
+        FlightSearchCache disabled = FlightSearchCache.disabled();
+
+        disabled.get("DEL", "BOM", "2025-01-01", loader);
+        disabled.get("DEL", "BOM", "2025-01-01", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testMetricsBound() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get("DEL", "BOM", "2025-01-01", loader);
+        cache.get("DEL", "BOM", "2025-01-01", loader);
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", FlightSearchCache.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", FlightSearchCache.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    private static Flight flight(String id) {
+        Flight flight = new Flight();
+        flight.setId(id);
+        return flight;
+    }
+}
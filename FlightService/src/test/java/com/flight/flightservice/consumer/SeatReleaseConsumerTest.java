@@ -0,0 +1,108 @@
+package com.flight.flightservice.consumer;
+
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.flight.flightservice.config.MQConfig;
+import com.flight.flightservice.config.SmileMessageConverter;
+import com.flight.flightservice.dto.SeatRelease;
+import com.flight.flightservice.repo.FlightRepository;
+import com.flight.flightservice.service.FlightService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class SeatReleaseConsumerTest {
+
+    private FlightRepository repository;
+    private SeatReleaseConsumer consumer;
+
+    @BeforeEach
+    void setup() {
+        repository = mock(FlightRepository.class);
+        consumer = new SeatReleaseConsumer(new FlightService(repository), new SimpleMeterRegistry(), Duration.ZERO);
+    }
+
+    @Test
+    void testReleasesAreCoalescedPerFlight() throws Exception {
+        consumer.receive(List.of(
+                new SeatRelease("1", 2),
+                new SeatRelease("2", 1),
+                new SeatRelease("1", 3),
+                new SeatRelease(null, 4)));
+
+        verify(repository, times(1)).incrementSeats(Map.of("1", 5, "2", 1));
+    }
+
+    @Test
+    void testReservationReleasesAreNotCoalesced() throws Exception {
+        consumer.receive(List.of(
+                new SeatRelease("1", 2, "r1", null),
+                new SeatRelease("1", 3, "r2", null),
+                new SeatRelease("1", 1)));
+
+        verify(repository, times(1)).releaseReservations(List.of(
+                new SeatRelease("1", 2, "r1", null),
+                new SeatRelease("1", 3, "r2", null)));
+        verify(repository, times(1)).incrementSeats(Map.of("1", 1));
+    }
+
+    @Test
+    void testRedeliveredCommandsAreDedupedBeforeTheyAreSummed() throws Exception {
+        consumer.receive(List.of(
+                new SeatRelease("1", 2, null, "c1"),
+                new SeatRelease("1", 2, null, "c1"),
+                new SeatRelease("1", 3, null, "c2"),
+                new SeatRelease("1", 2, "r1", "c3"),
+                new SeatRelease("1", 2, "r1", "c3")));
+
+        verify(repository, times(1)).releaseCommands(List.of(
+                new SeatRelease("1", 2, null, "c1"),
+                new SeatRelease("1", 3, null, "c2")));
+        verify(repository, times(1)).releaseReservations(List.of(new SeatRelease("1", 2, "r1", "c3")));
+        verify(repository, never()).incrementSeats(anyMap());
+    }
+
+    @Test
+    void testFailedBatchIsRethrownForRequeue() {
+        doThrow(new RuntimeException("mongo down")).when(repository).incrementSeats(anyMap());
+
+        assertThrows(RuntimeException.class, () -> consumer.receive(List.of(new SeatRelease("1", 2))));
+    }
+
+    @Test
+    void testConverterIgnoresSenderTypeHeader() {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setHeader("__TypeId__", "com.booking.bookingservice.dto.SeatRelease");
+        properties.setInferredArgumentType(SeatRelease.class);
+        Message message = new Message("{\"flightId\":\"1\",\"seats\":2}".getBytes(StandardCharsets.UTF_8), properties);
+
+        MessageConverter converter = new MQConfig().messageConverter();
+
+        assertEquals(new SeatRelease("1", 2), converter.fromMessage(message));
+    }
+
+    @Test
+    void testConverterReadsSmileCommands() throws Exception {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(SmileMessageConverter.CONTENT_TYPE);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setInferredArgumentType(SeatRelease.class);
+        byte[] smile = new SmileMapper().writeValueAsBytes(Map.of("flightId", "1", "seats", 2));
+
+        MessageConverter converter = new MQConfig().messageConverter();
+
+        assertEquals(new SeatRelease("1", 2), converter.fromMessage(new Message(smile, properties)));
+    }
+}
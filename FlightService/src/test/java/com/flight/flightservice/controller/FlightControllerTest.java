@@ -1,6 +1,9 @@
 package com.flight.flightservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.flight.flightservice.dto.FlightSummary;
+import com.flight.flightservice.dto.SeatReservation;
 import com.flight.flightservice.model.Flight;
 import com.flight.flightservice.service.FlightService;
 import org.junit.jupiter.api.Test;
@@ -8,11 +11,16 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -57,11 +65,45 @@ class FlightControllerTest {
     }
 
     @Test
-    void testCheckAvailability() throws Exception {
-        Flight flight = new Flight();
-        flight.setAvailableSeats(20);
+    void testSearchFlightPage() throws Exception {
+        when(service.searchFlightPage("DEL", "BOM", "2025-01-01", 0, 20))
+                .thenReturn(new SliceImpl<>(List.of(new FlightSummary("1", "AI-202", "Air India", 10)),
+                        PageRequest.of(0, 20), true));
+
+        mockMvc.perform(get("/flights/search/page")
+                        .param("source", "DEL")
+                        .param("destination", "BOM")
+                        .param("date", "2025-01-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.flights.length()").value(1))
+                .andExpect(jsonPath("$.flights[0].flightNumber").value("AI-202"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+    }
 
-        when(service.getFlight("1")).thenReturn(flight);
+    @Test
+    void testStreamFlights() throws Exception {
+        when(service.streamFlights("DEL", "BOM", "2025-01-01"))
+                .thenReturn(Stream.of(
+                        new FlightSummary("1", "AI-202", "Air India", 10),
+                        new FlightSummary("2", "6E-101", "IndiGo", 4)));
+
+        MvcResult result = mockMvc.perform(get("/flights/search/stream")
+                        .param("source", "DEL")
+                        .param("destination", "BOM")
+                        .param("date", "2025-01-01"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(2, body.lines().count());
+    }
+
+    @Test
+    void testCheckAvailability() throws Exception {
+        when(service.isAvailable("1")).thenReturn(true);
 
         mockMvc.perform(get("/flights/internal/1/check"))
                 .andExpect(status().isOk())
@@ -77,6 +119,34 @@ class FlightControllerTest {
                 .andExpect(content().string("true"));
     }
 
+    @Test
+    void testReserveSeats() throws Exception {
+        when(service.reserveSeats("1", 2, "R-1"))
+                .thenReturn(new SeatReservation("R-1", "1", 2, 18, true));
+
+        mockMvc.perform(post("/flights/internal/1/reserve?count=2&reservationId=R-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reserved").value(true))
+                .andExpect(jsonPath("$.reservationId").value("R-1"))
+                .andExpect(jsonPath("$.remainingSeats").value(18));
+    }
+
+    @Test
+    void testReserveSeatsInSmileWhenAsked() throws Exception {
+        when(service.reserveSeats("1", 2, null))
+                .thenReturn(new SeatReservation("R-1", "1", 2, 18, true));
+
+        byte[] body = mockMvc.perform(post("/flights/internal/1/reserve?count=2")
+                        .accept(MediaType.valueOf("application/x-jackson-smile"), MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        SeatReservation reservation = new SmileMapper().readValue(body, SeatReservation.class);
+        assertEquals("R-1", reservation.getReservationId());
+        assertEquals(18, reservation.getRemainingSeats());
+    }
+
     @Test
     void testIncreaseSeats() throws Exception {
         mockMvc.perform(put("/flights/internal/1/increase?count=5"))
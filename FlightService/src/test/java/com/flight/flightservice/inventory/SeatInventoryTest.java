@@ -0,0 +1,239 @@
+package com.flight.flightservice.inventory;
+
+import com.flight.flightservice.exception.FlightNotFoundException;
+import com.flight.flightservice.model.Flight;
+import com.flight.flightservice.repo.FlightRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SeatInventoryTest {
+
+    @TempDir
+    Path journalDir;
+
+    private FlightRepository repository;
+    private SeatInventory inventory;
+
+    @BeforeEach
+    void setup() {
+        repository = Mockito.mock(FlightRepository.class);
+
+        Flight flight = new Flight();
+        flight.setId("1");
+        flight.setAvailableSeats(100);
+        when(repository.findSeats("1")).thenReturn(flight);
+
+        inventory = new SeatInventory(repository, journalDir.toString(), false);
+        inventory.recover();
+    }
+
+    @Test
+    void testReserveAndReleaseServedFromMemory() {
+        assertEquals(90, inventory.reserve("1", 10));
+        assertEquals(95, inventory.release("1", 5));
+        assertEquals(-1, inventory.reserve("1", 96));
+        assertEquals(95, inventory.available("1"));
+
+        verify(repository, times(1)).findSeats("1");
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void testReservationIsAppliedOnce() {
+        assertEquals(90, inventory.reserve("1", 10, "r1"));
+        assertEquals(90, inventory.reserve("1", 10, "r1"));
+
+        assertTrue(inventory.releaseReservation("1", 10, "r1"));
+        assertTrue(inventory.releaseReservation("1", 10, "r1"));
+        assertEquals(100, inventory.available("1"));
+        assertEquals(-1, inventory.reserve("1", 10, "r1"));
+    }
+
+    @Test
+    void testCommandsOlderThanTheFlightsHistoryAreLookedUp() {
+        Flight busy = new Flight();
+        busy.setId("2");
+        busy.setAvailableSeats(50);
+        busy.setSeatCommands(IntStream.range(0, Flight.SEAT_COMMAND_HISTORY).mapToObj(i -> "c" + i).toList());
+        when(repository.findSeats("2")).thenReturn(busy);
+        when(repository.findAppliedCommands(anyCollection())).thenReturn(Set.of("old", "c-old"));
+
+        // applied before the flight's last 500 commands, so only seat_commands still knows them
+        assertEquals(50, inventory.reserve("2", 10, "old"));
+        assertEquals(50, inventory.release("2", 5, "c-old"));
+        assertTrue(inventory.releaseReservation("2", 10, "old"));
+        assertEquals(60, inventory.available("2"));
+    }
+
+    @Test
+    void testCommandsOfAQuietFlightAreNotLookedUp() {
+        assertEquals(90, inventory.reserve("1", 10, "r1"));
+        assertEquals(95, inventory.release("1", 5, "c1"));
+
+        verify(repository, never()).findAppliedCommands(anyCollection());
+    }
+
+    @Test
+    void testReleaseCommandIsAppliedOnce() {
+        assertEquals(105, inventory.release("1", 5, "c1"));
+        assertEquals(105, inventory.release("1", 5, "c1"));
+        assertEquals(110, inventory.release("1", 5));
+    }
+
+    @Test
+    void testReleaseBeforeReservationRefusesIt() {
+        assertFalse(inventory.releaseReservation("1", 10, "late"));
+
+        assertEquals(-1, inventory.reserve("1", 10, "late"));
+        assertEquals(100, inventory.available("1"));
+    }
+
+    @Test
+    void testReservationsAreWrittenBackAndSurviveReload() {
+        inventory = new SeatInventory(repository, journalDir.toString(), false, 4, Duration.ZERO);
+        inventory.recover();
+        inventory.reserve("1", 10, "r1");
+        inventory.flush();
+
+        verify(repository, times(1)).setSeats(Map.of("1", 90), Map.of("1", List.of("r1")));
+
+        // evicted by the flush; the reload finds the reservation in Mongo
+        Flight flushed = new Flight();
+        flushed.setId("1");
+        flushed.setAvailableSeats(90);
+        flushed.setSeatCommands(List.of("r1"));
+        when(repository.findSeats("1")).thenReturn(flushed);
+        assertEquals(90, inventory.reserve("1", 10, "r1"));
+    }
+
+    @Test
+    void testUnknownFlight() {
+        when(repository.findSeats("999")).thenReturn(null);
+
+        assertThrows(FlightNotFoundException.class, () -> inventory.reserve("999", 1));
+    }
+
+    @Test
+    void testConcurrentReserveNeverOversells() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        for (int i = 0; i < 500; i++) {
+            pool.submit(() -> {
+                if (inventory.reserve("1", 1) >= 0) {
+                    succeeded.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(100, succeeded.get());
+        assertEquals(0, inventory.available("1"));
+    }
+
+    @Test
+    void testFlushWritesBatchAndClearsJournal() throws Exception {
+        inventory.reserve("1", 3);
+        inventory.reserve("1", 2);
+
+        inventory.flush();
+
+        verify(repository, times(1)).setSeats(Map.of("1", 95), Map.of());
+        try (SeatJournal journal = new SeatJournal(journalDir.resolve("stripe-0"), false)) {
+            Map<String, Integer> seats = new HashMap<>();
+            journal.replay(seats, new HashMap<>());
+            assertTrue(seats.isEmpty());
+        }
+
+        inventory.flush();
+        verify(repository, times(1)).setSeats(anyMap(), anyMap());
+    }
+
+    @Test
+    void testFailedFlushIsRetried() {
+        inventory.reserve("1", 3);
+        doThrow(new RuntimeException("mongo down")).when(repository).setSeats(anyMap(), anyMap());
+
+        inventory.flush();
+
+        doNothing().when(repository).setSeats(anyMap(), anyMap());
+        inventory.flush();
+
+        verify(repository, times(2)).setSeats(Map.of("1", 97), Map.of());
+    }
+
+    @Test
+    void testIdleCountersAreEvictedOnlyOnceFlushed() {
+        inventory = new SeatInventory(repository, journalDir.toString(), false, 4, Duration.ZERO);
+        inventory.recover();
+        inventory.reserve("1", 3);
+        doThrow(new RuntimeException("mongo down")).when(repository).setSeats(anyMap(), anyMap());
+
+        inventory.flush();
+        // the count is only in memory and the journal, so the counter must stay
+        assertEquals(1, inventory.loadedFlights());
+
+        doNothing().when(repository).setSeats(anyMap(), anyMap());
+        inventory.flush();
+        assertEquals(0, inventory.loadedFlights());
+        assertTrue(inventory.peek("1").isEmpty());
+
+        inventory.reserve("1", 1);
+        verify(repository, times(2)).findSeats("1");
+    }
+
+    @Test
+    void testRecoverReplaysUnflushedJournal() throws Exception {
+        inventory.reserve("1", 4);
+        inventory.reserve("1", 6);
+        // simulate a crash: no flush, and a torn last line
+        Files.writeString(journalDir.resolve("stripe-0").resolve("active.log"), "1 8", StandardOpenOption.APPEND);
+
+        FlightRepository restarted = Mockito.mock(FlightRepository.class);
+        new SeatInventory(restarted, journalDir.toString(), false).recover();
+
+        verify(restarted, times(1)).setSeats(Map.of("1", 90), Map.of());
+    }
+
+    @Test
+    void testRecoverReplaysReservationIds() {
+        inventory.reserve("1", 4, "r1");
+        inventory.releaseReservation("1", 4, "r1");
+
+        FlightRepository restarted = Mockito.mock(FlightRepository.class);
+        new SeatInventory(restarted, journalDir.toString(), false).recover();
+
+        verify(restarted, times(1)).setSeats(Map.of("1", 100), Map.of("1", List.of("r1", Flight.released("r1"))));
+    }
+
+    @Test
+    void testRecoverReplaysStripesOfAnEarlierConfiguration() {
+        SeatInventory striped = new SeatInventory(repository, journalDir.toString(), false, 8, Duration.ofMinutes(10));
+        striped.reserve("1", 4);
+
+        FlightRepository restarted = Mockito.mock(FlightRepository.class);
+        new SeatInventory(restarted, journalDir.toString(), false).recover();
+
+        verify(restarted, times(1)).setSeats(Map.of("1", 96), Map.of());
+    }
+}
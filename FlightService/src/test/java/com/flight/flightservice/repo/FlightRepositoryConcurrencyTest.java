@@ -0,0 +1,153 @@
+package com.flight.flightservice.repo;
+
+import com.flight.flightservice.dto.SeatRelease;
+import com.flight.flightservice.model.Flight;
+import com.flight.flightservice.model.SeatCommand;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@Testcontainers(disabledWithoutDocker = true)
+class FlightRepositoryConcurrencyTest {
+
+    private static final int SEATS = 100;
+    private static final int REDUCERS = 500;
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private FlightRepository repository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private String flightId;
+
+    @BeforeEach
+    void setup() {
+        repository.deleteAll();
+        mongoTemplate.remove(new Query(), SeatCommand.class);
+
+        Flight flight = new Flight();
+        flight.setFlightNumber("AI-202");
+        flight.setAvailableSeats(SEATS);
+        flightId = repository.save(flight).getId();
+    }
+
+    @Test
+    void testDecrementSeatsNeverOversells() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        for (int i = 0; i < REDUCERS; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return repository.decrementSeats(flightId, 1);
+            }));
+        }
+
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<Integer> result : results) {
+            if (result.get() >= 0) {
+                succeeded++;
+            }
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(SEATS, succeeded);
+        assertEquals(0, repository.findById(flightId).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void testDecrementSeatsReturnsNewCount() {
+        assertEquals(SEATS - 10, repository.decrementSeats(flightId, 10));
+        assertEquals(-1, repository.decrementSeats(flightId, SEATS));
+        assertEquals(SEATS - 10, repository.findById(flightId).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void testIncrementSeats() {
+        assertEquals(SEATS + 5, repository.incrementSeats(flightId, 5));
+        assertEquals(-1, repository.incrementSeats("missing", 5));
+    }
+
+    @Test
+    void testReserveSeatsAppliesReservationOnce() {
+        assertEquals(SEATS - 10, repository.reserveSeats(flightId, 10, "r1"));
+        assertEquals(SEATS - 10, repository.reserveSeats(flightId, 10, "r1"));
+
+        repository.releaseReservations(List.of(new SeatRelease(flightId, 10, "r1", null)));
+        repository.releaseReservations(List.of(new SeatRelease(flightId, 10, "r1", null)));
+
+        assertEquals(SEATS, repository.findById(flightId).orElseThrow().getAvailableSeats());
+        assertEquals(-1, repository.reserveSeats(flightId, 10, "r1"));
+    }
+
+    @Test
+    void testReleaseBeforeReservationRefusesIt() {
+        repository.releaseReservations(List.of(new SeatRelease(flightId, 10, "late", null)));
+
+        assertEquals(-1, repository.reserveSeats(flightId, 10, "late"));
+        Flight seats = repository.findSeats(flightId);
+        assertEquals(SEATS, seats.getAvailableSeats());
+        assertEquals(List.of(Flight.released("late")), seats.getSeatCommands());
+    }
+
+    @Test
+    void testReleaseCommandsAppliesEachCommandOnce() {
+        repository.releaseCommands(List.of(new SeatRelease(flightId, 2, null, "c1"), new SeatRelease(flightId, 3, null, "c2")));
+        repository.releaseCommands(List.of(new SeatRelease(flightId, 3, null, "c2"), new SeatRelease(flightId, 4, null, "c3")));
+
+        Flight seats = repository.findSeats(flightId);
+        assertEquals(SEATS + 9, seats.getAvailableSeats());
+        assertEquals(List.of("c1", "c2", "c3"), seats.getSeatCommands());
+    }
+
+    @Test
+    void testCommandsOutliveTheFlightsRecentHistory() {
+        assertEquals(SEATS - 10, repository.reserveSeats(flightId, 10, "r1"));
+        repository.releaseCommands(List.of(new SeatRelease(flightId, 1, null, "c0")));
+        for (int i = 1; i <= Flight.SEAT_COMMAND_HISTORY; i++) {
+            repository.releaseCommands(List.of(new SeatRelease(flightId, 0, null, "pad" + i)));
+        }
+        assertFalse(repository.findSeats(flightId).getSeatCommands().contains("r1"));
+
+        // both are remembered by seat_commands: neither applies again, and the release finds r1
+        assertEquals(SEATS - 9, repository.reserveSeats(flightId, 10, "r1"));
+        repository.releaseCommands(List.of(new SeatRelease(flightId, 1, null, "c0")));
+        assertEquals(List.of(), repository.releaseReservations(List.of(new SeatRelease(flightId, 10, "r1", null))));
+        assertEquals(SEATS + 1, repository.findSeats(flightId).getAvailableSeats());
+    }
+
+    @Test
+    void testReleaseOfUnknownReservationIsReported() {
+        SeatRelease unknown = new SeatRelease(flightId, 10, "never", null);
+
+        assertEquals(List.of(unknown), repository.releaseReservations(List.of(unknown)));
+        assertEquals(SEATS, repository.findSeats(flightId).getAvailableSeats());
+    }
+}
@@ -1,14 +1,28 @@
 package com.flight.flightservice.service;
 
+import com.flight.flightservice.cache.FlightSearchCache;
+import com.flight.flightservice.dto.FlightSummary;
+import com.flight.flightservice.dto.SeatRelease;
+import com.flight.flightservice.dto.SeatReservation;
 import com.flight.flightservice.exception.FlightNotFoundException;
+import com.flight.flightservice.inventory.SeatInventory;
+import com.flight.flightservice.metrics.FlightMetrics;
 import com.flight.flightservice.model.Flight;
 import com.flight.flightservice.repo.FlightRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -47,6 +61,46 @@ class FlightServiceTest {
         assertEquals(1, result.size());
     }
 
+    @Test
+    void testSearchFlightsCachedUntilSeatsChange() {
+        FlightService cached = new FlightService(repository, null, new FlightSearchCache(100, Duration.ofMinutes(1)));
+
+        Flight flight = new Flight();
+        flight.setId("1");
+        when(repository.findBySourceAndDestinationAndDate("DEL", "BOM", "2025-01-01"))
+                .thenReturn(List.of(flight));
+        when(repository.decrementSeats("1", 1)).thenReturn(9);
+
+        cached.searchFlights("DEL", "BOM", "2025-01-01");
+        cached.searchFlights("DEL", "BOM", "2025-01-01");
+        verify(repository, times(1)).findBySourceAndDestinationAndDate("DEL", "BOM", "2025-01-01");
+
+        cached.reserveSeats("1", 1);
+        cached.searchFlights("DEL", "BOM", "2025-01-01");
+        verify(repository, times(2)).findBySourceAndDestinationAndDate("DEL", "BOM", "2025-01-01");
+    }
+
+    @Test
+    void testSearchFlightPageCapsPageSize() {
+        when(repository.findSummariesBySourceAndDestinationAndDate(eq("DEL"), eq("BOM"), eq("2025-01-01"), any()))
+                .thenReturn(new SliceImpl<>(List.of(new FlightSummary("1", "AI-202", "Air India", 10))));
+
+        Slice<FlightSummary> result = service.searchFlightPage("DEL", "BOM", "2025-01-01", 0, 5000);
+
+        assertEquals(1, result.getNumberOfElements());
+        verify(repository).findSummariesBySourceAndDestinationAndDate("DEL", "BOM", "2025-01-01", PageRequest.of(0, 100, Sort.by("id")));
+    }
+
+    @Test
+    void testStreamFlights() {
+        when(repository.streamSummariesBySourceAndDestinationAndDate("DEL", "BOM", "2025-01-01"))
+                .thenReturn(Stream.of(new FlightSummary("1", "AI-202", "Air India", 10)));
+
+        try (Stream<FlightSummary> result = service.streamFlights("DEL", "BOM", "2025-01-01")) {
+            assertEquals(1, result.count());
+        }
+    }
+
     @Test
     void testGetFlightSuccess() {
         Flight flight = new Flight();
@@ -69,16 +123,14 @@ class FlightServiceTest {
 
     @Test
     void testReduceSeatsSuccess() {
-        Flight flight = new Flight();
-        flight.setAvailableSeats(50);
-
-        when(repository.findById("1")).thenReturn(Optional.of(flight));
+        when(repository.decrementSeats("1", 10)).thenReturn(40);
 
         boolean result = service.reduceSeats("1", 10);
 
         assertTrue(result);
-        assertEquals(40, flight.getAvailableSeats());
-        verify(repository, times(1)).save(flight);
+        verify(repository, times(1)).decrementSeats("1", 10);
+        verify(repository, never()).findById(anyString());
+        verify(repository, never()).save(any());
     }
 
     @Test
@@ -86,24 +138,139 @@ class FlightServiceTest {
         Flight flight = new Flight();
         flight.setAvailableSeats(5);
 
+        when(repository.decrementSeats("1", 10)).thenReturn(-1);
         when(repository.findById("1")).thenReturn(Optional.of(flight));
 
         boolean result = service.reduceSeats("1", 10);
 
         assertFalse(result);
-        verify(repository, never()).save(flight);
+        verify(repository, never()).save(any());
     }
 
     @Test
-    void testIncreaseSeats() {
+    void testReduceSeatsFlightNotFound() {
+        when(repository.decrementSeats("999", 1)).thenReturn(-1);
+        when(repository.findById("999")).thenReturn(Optional.empty());
+
+        assertThrows(FlightNotFoundException.class, () -> service.reduceSeats("999", 1));
+    }
+
+    @Test
+    void testReserveSeatsSuccess() {
+        when(repository.decrementSeats("1", 2)).thenReturn(48);
+
+        SeatReservation reservation = service.reserveSeats("1", 2);
+
+        assertTrue(reservation.isReserved());
+        assertNotNull(reservation.getReservationId());
+        assertEquals(48, reservation.getRemainingSeats());
+        assertEquals(2, reservation.getSeats());
+    }
+
+    @Test
+    void testReserveSeatsUnderCallersReservationId() {
+        when(repository.reserveSeats("1", 2, "b-1")).thenReturn(48);
+
+        SeatReservation reservation = service.reserveSeats("1", 2, "b-1");
+
+        assertTrue(reservation.isReserved());
+        assertEquals("b-1", reservation.getReservationId());
+        verify(repository, never()).decrementSeats(anyString(), anyInt());
+    }
+
+    @Test
+    void testReserveSeatsRejected() {
+        Flight flight = new Flight();
+        flight.setAvailableSeats(50);
+
+        when(repository.decrementSeats("1", 60)).thenReturn(-1);
+        when(repository.findById("1")).thenReturn(Optional.of(flight));
+
+        SeatReservation reservation = service.reserveSeats("1", 60);
+
+        assertFalse(reservation.isReserved());
+        assertNull(reservation.getReservationId());
+        assertEquals(50, reservation.getRemainingSeats());
+    }
+
+    @Test
+    void testReservationsAreTimedByOutcome() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FlightService instrumented = new FlightService(repository, null, FlightSearchCache.disabled(),
+                new FlightMetrics(registry));
         Flight flight = new Flight();
-        flight.setAvailableSeats(20);
+        flight.setAvailableSeats(1);
+        when(repository.decrementSeats("1", 1)).thenReturn(0);
+        when(repository.decrementSeats("1", 2)).thenReturn(-1);
+        when(repository.findById("1")).thenReturn(Optional.of(flight));
+
+        instrumented.reserveSeats("1", 1);
+        instrumented.reserveSeats("1", 2);
+        instrumented.reserveSeats("1", 2);
 
-        when(repository.findById("55")).thenReturn(Optional.of(flight));
+        assertEquals(1, registry.get("flight.seats.reserve.latency")
+                .tags("store", "mongo", "outcome", FlightMetrics.RESERVED).timer().count());
+        assertEquals(2, registry.get("flight.seats.reserve.latency")
+                .tags("store", "mongo", "outcome", FlightMetrics.REJECTED).timer().count());
+    }
+
+    @Test
+    void testUnmatchedReservationReleasesAreCounted() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FlightService instrumented = new FlightService(repository, null, FlightSearchCache.disabled(),
+                new FlightMetrics(registry));
+        SeatRelease lost = new SeatRelease("1", 2, "r2", null);
+        List<SeatRelease> releases = List.of(new SeatRelease("1", 2, "r1", null), lost);
+        when(repository.releaseReservations(releases)).thenReturn(List.of(lost));
+
+        instrumented.releaseReservations(releases);
+
+        assertEquals(1.0, registry.get("flight.seats.release.unmatched").counter().count());
+    }
+
+    @Test
+    void testIncreaseSeats() {
+        when(repository.incrementSeats("55", 5)).thenReturn(25);
 
         service.increaseSeats("55", 5);
 
-        assertEquals(25, flight.getAvailableSeats());
-        verify(repository, times(1)).save(flight);
+        verify(repository, times(1)).incrementSeats("55", 5);
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void testIncreaseSeatsFlightNotFound() {
+        when(repository.incrementSeats("999", 5)).thenReturn(-1);
+
+        assertThrows(FlightNotFoundException.class, () -> service.increaseSeats("999", 5));
+    }
+
+    @Test
+    void testReserveSeatsFromInventory() {
+        SeatInventory inventory = Mockito.mock(SeatInventory.class);
+        FlightService inMemory = new FlightService(repository, inventory, FlightSearchCache.disabled());
+
+        when(inventory.reserve("1", 2, null)).thenReturn(8);
+
+        SeatReservation reservation = inMemory.reserveSeats("1", 2);
+
+        assertTrue(reservation.isReserved());
+        assertEquals(8, reservation.getRemainingSeats());
+        verify(repository, never()).decrementSeats(anyString(), anyInt());
+    }
+
+    @Test
+    void testGetFlightUsesInventoryCount() {
+        SeatInventory inventory = Mockito.mock(SeatInventory.class);
+        FlightService inMemory = new FlightService(repository, inventory, FlightSearchCache.disabled());
+
+        Flight flight = new Flight();
+        flight.setId("1");
+        flight.setAvailableSeats(50);
+
+        when(repository.findById("1")).thenReturn(Optional.of(flight));
+        when(inventory.peek("1")).thenReturn(OptionalInt.of(12));
+
+        assertEquals(12, inMemory.getFlight("1").getAvailableSeats());
     }
 }
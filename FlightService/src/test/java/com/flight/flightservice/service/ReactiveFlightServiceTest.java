@@ -0,0 +1,106 @@
+package com.flight.flightservice.service;
+
+import com.flight.flightservice.cache.FlightSearchCache;
+import com.flight.flightservice.dto.FlightSummary;
+import com.flight.flightservice.exception.FlightNotFoundException;
+import com.flight.flightservice.model.Flight;
+import com.flight.flightservice.repo.ReactiveFlightRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveFlightServiceTest {
+
+    private ReactiveFlightRepository repository;
+    private ReactiveFlightService service;
+
+    @BeforeEach
+    void setup() {
+        repository = Mockito.mock(ReactiveFlightRepository.class);
+        service = new ReactiveFlightService(repository, null, FlightSearchCache.disabled());
+    }
+
+    @Test
+    void testReserveSeats() {
+        when(repository.decrementSeats("1", 2)).thenReturn(Mono.just(8));
+
+        StepVerifier.create(service.reserveSeats("1", 2))
+                .assertNext(reservation -> {
+                    assertTrue(reservation.isReserved());
+                    assertEquals(8, reservation.getRemainingSeats());
+                    assertNotNull(reservation.getReservationId());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testReserveSeatsRejectedReportsAvailableSeats() {
+        Flight flight = new Flight();
+        flight.setId("1");
+        flight.setAvailableSeats(1);
+
+        when(repository.decrementSeats("1", 2)).thenReturn(Mono.just(-1));
+        when(repository.findById("1")).thenReturn(Mono.just(flight));
+
+        StepVerifier.create(service.reserveSeats("1", 2))
+                .assertNext(reservation -> {
+                    assertFalse(reservation.isReserved());
+                    assertEquals(1, reservation.getRemainingSeats());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testIncreaseSeatsUnknownFlight() {
+        when(repository.incrementSeats("X", 1)).thenReturn(Mono.just(-1));
+
+        StepVerifier.create(service.increaseSeats("X", 1))
+                .expectError(FlightNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testSearchFlightsCachedUntilSeatsChange() {
+        ReactiveFlightService cached = new ReactiveFlightService(
+                repository, null, new FlightSearchCache(100, Duration.ofMinutes(1)));
+
+        Flight flight = new Flight();
+        flight.setId("1");
+        when(repository.findBySourceAndDestinationAndDate("DEL", "BOM", "2025-01-01"))
+                .thenReturn(Flux.just(flight));
+        when(repository.decrementSeats("1", 1)).thenReturn(Mono.just(9));
+
+        StepVerifier.create(cached.searchFlights("DEL", "BOM", "2025-01-01")).expectNextCount(1).verifyComplete();
+        StepVerifier.create(cached.searchFlights("DEL", "BOM", "2025-01-01")).expectNextCount(1).verifyComplete();
+        verify(repository, times(1)).findBySourceAndDestinationAndDate("DEL", "BOM", "2025-01-01");
+
+        StepVerifier.create(cached.reserveSeats("1", 1)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(cached.searchFlights("DEL", "BOM", "2025-01-01")).expectNextCount(1).verifyComplete();
+        verify(repository, times(2)).findBySourceAndDestinationAndDate("DEL", "BOM", "2025-01-01");
+    }
+
+    @Test
+    void testSearchFlightPageUsesExtraRowForHasNext() {
+        when(repository.findSummaries("DEL", "BOM", "2025-01-01", 2L, 3))
+                .thenReturn(Flux.just(
+                        new FlightSummary("1", "AI-1", "AI", 5),
+                        new FlightSummary("2", "AI-2", "AI", 5),
+                        new FlightSummary("3", "AI-3", "AI", 5)));
+
+        StepVerifier.create(service.searchFlightPage("DEL", "BOM", "2025-01-01", 1, 2))
+                .assertNext(page -> {
+                    assertEquals(2, page.getFlights().size());
+                    assertEquals(1, page.getPage());
+                    assertTrue(page.isHasNext());
+                })
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,158 @@
+package com.flight.flightservice.service;
+
+import com.flight.flightservice.dto.SeatHoldResult;
+import com.flight.flightservice.dto.SeatRelease;
+import com.flight.flightservice.exception.HoldNotFoundException;
+import com.flight.flightservice.model.Flight;
+import com.flight.flightservice.model.SeatHold;
+import com.flight.flightservice.repo.FlightRepository;
+import com.flight.flightservice.repo.SeatHoldRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SeatHoldServiceTest {
+
+    private FlightRepository flightRepository;
+    private SeatHoldRepository holdRepository;
+    private SeatHoldService service;
+
+    @BeforeEach
+    void setup() {
+        flightRepository = mock(FlightRepository.class);
+        holdRepository = mock(SeatHoldRepository.class);
+        service = new SeatHoldService(new FlightService(flightRepository), holdRepository,
+                Duration.ofMinutes(10), Duration.ofMinutes(30), 2);
+    }
+
+    @Test
+    void testHoldTakesSeatsAndRecordsExpiry() {
+        when(flightRepository.decrementSeats("1", 2)).thenReturn(8);
+
+        long before = System.currentTimeMillis();
+        SeatHoldResult result = service.hold("1", 2, Duration.ofSeconds(90));
+
+        assertTrue(result.isHeld());
+        assertEquals(8, result.getRemainingSeats());
+        assertNotNull(result.getHoldId());
+        long ttl = result.getExpiresAt().getTime() - before;
+        assertTrue(ttl >= 90_000 && ttl < 95_000);
+        verify(holdRepository).insert(any(SeatHold.class));
+    }
+
+    @Test
+    void testHoldTtlIsCapped() {
+        when(flightRepository.decrementSeats("1", 1)).thenReturn(9);
+
+        SeatHoldResult result = service.hold("1", 1, Duration.ofHours(5));
+
+        assertTrue(result.getExpiresAt().getTime() - System.currentTimeMillis() <= Duration.ofMinutes(30).toMillis());
+    }
+
+    @Test
+    void testHoldRejectedWhenSoldOut() {
+        Flight flight = new Flight();
+        flight.setAvailableSeats(1);
+        when(flightRepository.decrementSeats("1", 2)).thenReturn(-1);
+        when(flightRepository.findById("1")).thenReturn(Optional.of(flight));
+
+        SeatHoldResult result = service.hold("1", 2, null);
+
+        assertFalse(result.isHeld());
+        assertEquals(1, result.getRemainingSeats());
+        verify(holdRepository, never()).insert(any(SeatHold.class));
+    }
+
+    @Test
+    void testHoldGivesSeatsBackWhenHoldCannotBeStored() {
+        when(flightRepository.decrementSeats("1", 2)).thenReturn(8);
+        when(flightRepository.incrementSeats("1", 2)).thenReturn(10);
+        when(holdRepository.insert(any(SeatHold.class))).thenThrow(new RuntimeException("mongo down"));
+
+        assertThrows(RuntimeException.class, () -> service.hold("1", 2, null));
+        verify(flightRepository).incrementSeats("1", 2);
+    }
+
+    @Test
+    void testConfirmExpiredHold() {
+        when(holdRepository.confirm("H1")).thenReturn(null);
+
+        assertThrows(HoldNotFoundException.class, () -> service.confirm("H1"));
+    }
+
+    @Test
+    void testConfirmRetrySucceeds() {
+        SeatHold confirmed = new SeatHold("H1", "1", 2, null);
+        confirmed.setConfirmedAt(new Date());
+        when(holdRepository.confirm("H1")).thenReturn(confirmed);
+
+        service.confirm("H1");
+        service.confirm("H1");
+
+        verify(holdRepository, never()).markReleased(any());
+        verifyNoInteractions(flightRepository);
+    }
+
+    @Test
+    void testReleaseReturnsSeats() {
+        when(holdRepository.markReleased("H1")).thenReturn(new SeatHold("H1", "1", 3, new Date()));
+
+        service.release("H1");
+        service.release("H2");
+
+        InOrder inOrder = inOrder(flightRepository, holdRepository);
+        inOrder.verify(flightRepository).releaseCommands(List.of(new SeatRelease("1", 3, null, "H1")));
+        inOrder.verify(holdRepository).deleteById("H1");
+        verify(flightRepository, times(1)).releaseCommands(any());
+        verify(holdRepository, never()).deleteById("H2");
+    }
+
+    @Test
+    void testFailedReleaseKeepsHold() {
+        when(holdRepository.markReleased("H1")).thenReturn(new SeatHold("H1", "1", 3, new Date()));
+        doThrow(new RuntimeException("mongo down")).when(flightRepository).releaseCommands(any());
+
+        assertThrows(RuntimeException.class, () -> service.release("H1"));
+
+        // still marked released; a retried release or the sweep gives the seats back
+        verify(holdRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void testSweepReleasesExpiredHoldsInBulk() {
+        when(holdRepository.claimExpired(eq(2), any(Duration.class)))
+                .thenReturn(List.of(new SeatHold("H1", "1", 2, new Date()), new SeatHold("H2", "1", 1, new Date())))
+                .thenReturn(List.of(new SeatHold("H3", "2", 4, new Date())));
+
+        service.sweepExpired();
+
+        InOrder inOrder = inOrder(flightRepository, holdRepository);
+        inOrder.verify(flightRepository).releaseCommands(
+                List.of(new SeatRelease("1", 2, null, "H1"), new SeatRelease("1", 1, null, "H2")));
+        inOrder.verify(holdRepository).deleteClaimed(argThat(holds -> holds.size() == 2));
+        inOrder.verify(flightRepository).releaseCommands(List.of(new SeatRelease("2", 4, null, "H3")));
+        inOrder.verify(holdRepository).deleteClaimed(argThat(holds -> holds.size() == 1));
+    }
+
+    @Test
+    void testFailedReleaseKeepsExpiredHolds() {
+        when(holdRepository.claimExpired(eq(2), any(Duration.class)))
+                .thenReturn(List.of(new SeatHold("H1", "1", 2, new Date())));
+        doThrow(new RuntimeException("mongo down")).when(flightRepository).releaseCommands(any());
+
+        service.sweepExpired();
+
+        // still claimed; the next sweep after the lease retries them
+        verify(holdRepository, never()).deleteClaimed(any());
+        verify(holdRepository, never()).deleteAllById(any());
+    }
+}
@@ -0,0 +1,112 @@
+package com.quiz.api_gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, short-lived cache of flight search responses, plus the loads currently in flight so
+ * identical searches arriving together share one upstream call. Only successful responses up to
+ * max-body-size are stored; the TTL bounds how stale a seat count shown in search can get.
+ * Hit, miss and eviction counts are published as cache.* meters named gatewaySearch.
+ */
+@Component
+public class SearchResponseCache implements MeterBinder {
+
+    static final String CACHE_NAME = "gatewaySearch";
+
+    private final boolean enabled;
+    private final long maxBodyBytes;
+    private final Cache<String, CachedResponse> cache;
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SearchResponseCache(@Value("${gateway.search-cache.max-size:1000}") long maxSize,
+                               @Value("${gateway.search-cache.ttl:5s}") Duration ttl,
+                               @Value("${gateway.search-cache.max-body-size:256KB}") DataSize maxBodySize) {
+        this.enabled = maxSize > 0;
+        this.maxBodyBytes = maxBodySize.toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public static SearchResponseCache disabled() {
+        return new SearchResponseCache(0, Duration.ZERO, DataSize.ofBytes(0));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CachedResponse getIfPresent(String key) {
+        return enabled ? cache.getIfPresent(key) : null;
+    }
+
+    /**
+     * Joins the load of a key. The first caller leads and must finish with {@link #complete}
+     * or {@link #abandon}; everyone else gets the leader's response, or nothing if it gave up.
+     */
+    public Load join(String key) {
+        Sinks.One<CachedResponse> sink = Sinks.one();
+        Sinks.One<CachedResponse> current = inFlight.putIfAbsent(key, sink);
+        return current == null ? new Load(sink, true) : new Load(current, false);
+    }
+
+    public void complete(String key, Load load, CachedResponse response) {
+        // stored before the load is dropped, so a search arriving in between finds it
+        if (response.cacheable(maxBodyBytes)) {
+            cache.put(key, response);
+        }
+        inFlight.remove(key, load.sink);
+        load.sink.tryEmitValue(response);
+    }
+
+    public void abandon(String key, Load load) {
+        inFlight.remove(key, load.sink);
+        load.sink.tryEmitEmpty();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+            Gauge.builder("gateway.search.in-flight", inFlight, Map::size)
+                    .description("Distinct searches currently waiting on flightservice")
+                    .register(registry);
+        }
+    }
+
+    public record Load(Sinks.One<CachedResponse> sink, boolean leader) {
+
+        public Mono<CachedResponse> response() {
+            return sink.asMono();
+        }
+    }
+
+    public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+        boolean cacheable(long maxBodyBytes) {
+            String cacheControl = headers.getCacheControl();
+            return status.value() == 200 && body.length <= maxBodyBytes
+                    && (cacheControl == null || !cacheControl.contains("no-store"));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.quiz.api_gateway.filter;
+
+import com.quiz.api_gateway.shedding.LoadShedder;
+import com.quiz.api_gateway.shedding.LoadShedder.Priority;
+import com.quiz.api_gateway.shedding.LoadShedder.RouteLoad;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.List;
+
+/**
+ * Turns requests away with 503 when {@link LoadShedder} says their route is overloaded, so the
+ * requests that are admitted keep a bounded latency instead of everyone queueing behind a slow
+ * service. Bookings and cancellations are critical and are shed last; everything else goes
+ * first. Runs after the search cache, so searches it can answer are never shed.
+ */
+@Component
+public class LoadSheddingFilter implements GlobalFilter, Ordered {
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    private final LoadShedder shedder;
+    private final MeterRegistry meterRegistry;
+    private final List<String> criticalPaths;
+
+    public LoadSheddingFilter(LoadShedder shedder,
+                              MeterRegistry meterRegistry,
+                              @Value("${gateway.load-shedding.critical-paths:/**/booking/create,/**/booking/batch,/**/booking/cancel/**}") List<String> criticalPaths) {
+        this.shedder = shedder;
+        this.meterRegistry = meterRegistry;
+        this.criticalPaths = criticalPaths;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!shedder.isEnabled()) {
+            return chain.filter(exchange);
+        }
+
+        String routeId = RateLimitFilter.routeId(exchange);
+        Priority priority = priority(exchange);
+        RouteLoad load = shedder.tryAdmit(routeId, priority);
+        if (load == null) {
+            meterRegistry.counter("gateway.requests.rejected",
+                    "route", routeId, "reason", "overload_" + priority.name().toLowerCase()).increment();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return response.setComplete();
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> load.release(signal == SignalType.CANCEL ? -1 : System.nanoTime() - start));
+    }
+
+    // after SearchCacheFilter and NettyWriteResponseFilter, so only calls that go upstream count
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER + 1;
+    }
+
+    private Priority priority(ServerWebExchange exchange) {
+        String path = exchange.getRequest().getPath().value();
+        return criticalPaths.stream().anyMatch(pattern -> PATHS.match(pattern, path)) ? Priority.CRITICAL : Priority.LOW;
+    }
+}
@@ -0,0 +1,129 @@
+package com.quiz.api_gateway.filter;
+
+import com.quiz.api_gateway.ratelimit.TokenBucketRateLimiter;
+import com.quiz.api_gateway.ratelimit.TokenBucketRateLimiter.Decision;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Rate limits the booking writes with {@link TokenBucketRateLimiter}. Requests over the limit get
+ * 429 with Retry-After and never reach the booking service.
+ * <p>
+ * Requests are keyed by the caller's address. The client id header is only taken from an
+ * authenticated request or one sent by a trusted proxy; anyone else could pick a fresh id for
+ * every request and never run out of tokens. An authenticated request without the header is
+ * keyed by its principal.
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    private final TokenBucketRateLimiter limiter;
+    private final MeterRegistry meterRegistry;
+    private final List<String> paths;
+    private final String clientKeyHeader;
+    private final Set<String> trustedProxies;
+
+    public RateLimitFilter(TokenBucketRateLimiter limiter, MeterRegistry meterRegistry, List<String> paths,
+                           String clientKeyHeader) {
+        this(limiter, meterRegistry, paths, clientKeyHeader, List.of());
+    }
+
+    @Autowired
+    public RateLimitFilter(TokenBucketRateLimiter limiter,
+                           MeterRegistry meterRegistry,
+                           @Value("${gateway.rate-limit.paths:/**/booking/create,/**/booking/batch}") List<String> paths,
+                           @Value("${gateway.rate-limit.client-key-header:X-Client-Id}") String clientKeyHeader,
+                           @Value("${gateway.rate-limit.trusted-proxies:}") List<String> trustedProxies) {
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+        this.paths = paths;
+        this.clientKeyHeader = clientKeyHeader;
+        this.trustedProxies = Set.copyOf(trustedProxies);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!limiter.isEnabled() || !isLimited(request)) {
+            return chain.filter(exchange);
+        }
+
+        return exchange.getPrincipal()
+                .map(Principal::getName)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(principal -> limit(exchange, chain, clientKey(request, principal.orElse(null))));
+    }
+
+    private Mono<Void> limit(ServerWebExchange exchange, GatewayFilterChain chain, String clientKey) {
+        String routeId = routeId(exchange);
+        Decision decision = limiter.tryAcquire(routeId, clientKey);
+        if (decision.allowed()) {
+            return chain.filter(exchange);
+        }
+
+        meterRegistry.counter("gateway.requests.rejected",
+                "route", routeId, "reason", decision.limit().name().toLowerCase() + "_rate_limit").increment();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, retryAfterSeconds(decision));
+        return response.setComplete();
+    }
+
+    // ahead of everything else, so rejected requests cost as little as possible
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+
+    private boolean isLimited(ServerHttpRequest request) {
+        String path = request.getPath().value();
+        return paths.stream().anyMatch(pattern -> PATHS.match(pattern, path));
+    }
+
+    private String clientKey(ServerHttpRequest request, @Nullable String principal) {
+        InetSocketAddress remote = request.getRemoteAddress();
+        String address = remote == null || remote.getAddress() == null ? "unknown" : remote.getAddress().getHostAddress();
+        if (principal == null && !trustedProxies.contains(address)) {
+            return address;
+        }
+        String client = request.getHeaders().getFirst(clientKeyHeader);
+        if (client != null && !client.isBlank()) {
+            return client;
+        }
+        return principal != null ? principal : address;
+    }
+
+    static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route == null ? "none" : route.getId();
+    }
+
+    private static String retryAfterSeconds(Decision decision) {
+        long millis = decision.retryAfter().toMillis();
+        return String.valueOf(Math.max(1, (millis + 999) / 1000));
+    }
+}
@@ -0,0 +1,191 @@
+package com.quiz.api_gateway.filter;
+
+import com.quiz.api_gateway.cache.SearchResponseCache;
+import com.quiz.api_gateway.cache.SearchResponseCache.CachedResponse;
+import com.quiz.api_gateway.cache.SearchResponseCache.Load;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Serves flight searches from {@link SearchResponseCache} and lets identical searches that miss
+ * at the same time share one call to flightservice. The first request of a burst goes through
+ * and its response is copied to the others as it is written; if it fails or is cancelled, the
+ * others fall back to calling flightservice themselves. Requests sent with Cache-Control:
+ * no-cache skip the cache. Every response says how it was served in X-Cache.
+ */
+@Component
+public class SearchCacheFilter implements GlobalFilter, Ordered {
+
+    static final String X_CACHE = "X-Cache";
+    static final String HIT = "HIT";
+    static final String MISS = "MISS";
+    static final String COALESCED = "COALESCED";
+    static final String BYPASS = "BYPASS";
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    private final SearchResponseCache cache;
+    private final List<String> paths;
+    private final Duration waitTimeout;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter bypassed;
+
+    public SearchCacheFilter(SearchResponseCache cache,
+                             MeterRegistry meterRegistry,
+                             @Value("${gateway.search-cache.paths:/**/flights/search,/**/flights/search/page}") List<String> paths,
+                             @Value("${gateway.search-cache.wait-timeout:10s}") Duration waitTimeout) {
+        this.cache = cache;
+        this.paths = paths;
+        this.waitTimeout = waitTimeout;
+        this.hits = requests(meterRegistry, HIT);
+        this.misses = requests(meterRegistry, MISS);
+        this.coalesced = requests(meterRegistry, COALESCED);
+        this.bypassed = requests(meterRegistry, BYPASS);
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder("gateway.search.requests")
+                .description("Flight searches by how the gateway served them")
+                .tag("result", result.toLowerCase())
+                .register(registry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!cache.isEnabled() || !HttpMethod.GET.equals(request.getMethod()) || !isSearch(request)) {
+            return chain.filter(exchange);
+        }
+        if (noCache(request)) {
+            bypassed.increment();
+            exchange.getResponse().getHeaders().set(X_CACHE, BYPASS);
+            return chain.filter(exchange);
+        }
+
+        String key = key(request);
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return write(exchange, cached, HIT);
+        }
+
+        Load load = cache.join(key);
+        if (!load.leader()) {
+            coalesced.increment();
+            return load.response()
+                    .timeout(waitTimeout, Mono.empty())
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(shared -> shared.isPresent()
+                            ? write(exchange, shared.get(), COALESCED)
+                            : chain.filter(exchange));
+        }
+
+        misses.increment();
+        ServerHttpResponse capture = new CapturingResponse(exchange.getResponse(), key, load);
+        return chain.filter(exchange.mutate().response(capture).build())
+                .doFinally(signal -> cache.abandon(key, load));
+    }
+
+    // must see the body before NettyWriteResponseFilter writes it out
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    private boolean isSearch(ServerHttpRequest request) {
+        String path = request.getPath().value();
+        return paths.stream().anyMatch(pattern -> PATHS.match(pattern, path));
+    }
+
+    private static boolean noCache(ServerHttpRequest request) {
+        String cacheControl = request.getHeaders().getCacheControl();
+        return cacheControl != null && (cacheControl.contains("no-cache") || cacheControl.contains("no-store"));
+    }
+
+    /**
+     * Path, query parameters in a fixed order, and the headers that can change the body.
+     */
+    static String key(ServerHttpRequest request) {
+        StringBuilder key = new StringBuilder(request.getPath().value()).append('?');
+        new TreeMap<>(request.getQueryParams()).forEach((name, values) -> values.stream()
+                .sorted(Comparator.nullsFirst(Comparator.naturalOrder()))
+                .forEach(value -> key.append(name).append('=').append(value).append('&')));
+        HttpHeaders headers = request.getHeaders();
+        return key.append('|').append(headers.getFirst(HttpHeaders.ACCEPT))
+                .append('|').append(headers.getFirst(HttpHeaders.ACCEPT_ENCODING))
+                .toString();
+    }
+
+    private static Mono<Void> write(ServerWebExchange exchange, CachedResponse cached, String result) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(cached.status());
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().set(X_CACHE, result);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final Load load;
+
+        CapturingResponse(ServerHttpResponse delegate, String key, Load load) {
+            super(delegate);
+            this.key = key;
+            this.load = load;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+
+                HttpStatusCode status = getStatusCode() != null ? getStatusCode() : HttpStatus.OK;
+                cache.complete(key, load, new CachedResponse(status, shareable(getHeaders(), bytes.length), bytes));
+                getHeaders().set(X_CACHE, MISS);
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+
+        private static HttpHeaders shareable(HttpHeaders upstream, int length) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(upstream);
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            headers.remove(HttpHeaders.CONNECTION);
+            headers.remove(HttpHeaders.SET_COOKIE);
+            headers.setContentLength(length);
+            return HttpHeaders.readOnlyHttpHeaders(headers);
+        }
+    }
+}
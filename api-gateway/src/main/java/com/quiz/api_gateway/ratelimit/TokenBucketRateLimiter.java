@@ -0,0 +1,137 @@
+package com.quiz.api_gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory token buckets, one per client and route and one per route, so a single client can
+ * burst up to its capacity without being able to take the whole route's share. Buckets live in
+ * this gateway instance only: with N instances a route admits up to N times its rate. Idle client
+ * buckets are dropped after a while and their number is bounded. A capacity of 0 leaves that level
+ * unlimited.
+ */
+@Component
+public class TokenBucketRateLimiter {
+
+    public enum Limit { NONE, CLIENT, ROUTE }
+
+    private static final Decision ALLOWED = new Decision(Limit.NONE, Duration.ZERO);
+
+    private final long clientCapacity;
+    private final double clientRefillPerSecond;
+    private final long routeCapacity;
+    private final double routeRefillPerSecond;
+    private final Cache<String, TokenBucket> clientBuckets;
+    private final Map<String, TokenBucket> routeBuckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenBucketRateLimiter(@Value("${gateway.rate-limit.client.capacity:20}") long clientCapacity,
+                                  @Value("${gateway.rate-limit.client.refill-per-second:5}") double clientRefillPerSecond,
+                                  @Value("${gateway.rate-limit.route.capacity:500}") long routeCapacity,
+                                  @Value("${gateway.rate-limit.route.refill-per-second:200}") double routeRefillPerSecond,
+                                  @Value("${gateway.rate-limit.max-clients:100000}") long maxClients,
+                                  @Value("${gateway.rate-limit.client-idle-timeout:10m}") Duration clientIdleTimeout) {
+        this.clientCapacity = clientCapacity;
+        this.clientRefillPerSecond = clientRefillPerSecond;
+        this.routeCapacity = routeCapacity;
+        this.routeRefillPerSecond = routeRefillPerSecond;
+        this.clientBuckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(clientIdleTimeout)
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return clientCapacity > 0 || routeCapacity > 0;
+    }
+
+    /**
+     * Takes one token from the client's bucket and one from the route's, or none if either is
+     * empty: a request the route turns away does not cost the client a token.
+     *
+     * @return the limit that turned the request away, or NONE if it may go ahead
+     */
+    public Decision tryAcquire(String routeId, String clientKey) {
+        long now = System.nanoTime();
+        TokenBucket route = routeCapacity > 0
+                ? routeBuckets.computeIfAbsent(routeId, k -> new TokenBucket(routeCapacity, routeRefillPerSecond, now))
+                : null;
+        if (clientCapacity <= 0) {
+            return route == null || route.tryAcquire(now) ? ALLOWED : new Decision(Limit.ROUTE, route.timeToNextToken(now));
+        }
+
+        TokenBucket client = clientBuckets.get(routeId + '|' + clientKey,
+                k -> new TokenBucket(clientCapacity, clientRefillPerSecond, now));
+        // the client bucket is always locked before the route bucket, so two requests cannot deadlock
+        synchronized (client) {
+            if (!client.hasToken(now)) {
+                return new Decision(Limit.CLIENT, client.timeToNextToken(now));
+            }
+            if (route != null && !route.tryAcquire(now)) {
+                return new Decision(Limit.ROUTE, route.timeToNextToken(now));
+            }
+            client.take();
+            return ALLOWED;
+        }
+    }
+
+    public record Decision(Limit limit, Duration retryAfter) {
+
+        public boolean allowed() {
+            return limit == Limit.NONE;
+        }
+    }
+
+    static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(long capacity, double refillPerSecond, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerSecond / 1_000_000_000d;
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            if (!hasToken(now)) {
+                return false;
+            }
+            take();
+            return true;
+        }
+
+        synchronized boolean hasToken(long now) {
+            refill(now);
+            return tokens >= 1;
+        }
+
+        // only after hasToken returned true under the same lock
+        synchronized void take() {
+            tokens -= 1;
+        }
+
+        synchronized Duration timeToNextToken(long now) {
+            refill(now);
+            if (tokens >= 1 || tokensPerNano <= 0) {
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos((long) Math.ceil((1 - tokens) / tokensPerNano));
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+}
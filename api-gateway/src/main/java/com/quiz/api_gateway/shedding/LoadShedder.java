@@ -0,0 +1,128 @@
+package com.quiz.api_gateway.shedding;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides per route whether the service behind it can take another request. Each route tracks
+ * the requests it has in flight and a moving average of how long they take. Low-priority
+ * requests are turned away first, once concurrency passes the low-priority limit or latency
+ * passes the latency threshold; critical ones only at the hard limits. The average decays while
+ * nothing completes, so a route that sheds everything is tried again after a few half-lives.
+ */
+@Component
+public class LoadShedder {
+
+    public enum Priority { CRITICAL, LOW }
+
+    // weight of each completed request in the latency average
+    private static final double ALPHA = 0.2;
+
+    private final MeterRegistry meterRegistry;
+    private final int maxConcurrency;
+    private final int lowPriorityConcurrency;
+    private final long latencyThresholdNanos;
+    private final long criticalLatencyThresholdNanos;
+    private final long halfLifeNanos;
+    private final Map<String, RouteLoad> routes = new ConcurrentHashMap<>();
+
+    public LoadShedder(MeterRegistry meterRegistry,
+                       @Value("${gateway.load-shedding.max-concurrency:256}") int maxConcurrency,
+                       @Value("${gateway.load-shedding.low-priority-concurrency:128}") int lowPriorityConcurrency,
+                       @Value("${gateway.load-shedding.latency-threshold:1s}") Duration latencyThreshold,
+                       @Value("${gateway.load-shedding.critical-latency-threshold:3s}") Duration criticalLatencyThreshold,
+                       @Value("${gateway.load-shedding.latency-half-life:2s}") Duration halfLife) {
+        this.meterRegistry = meterRegistry;
+        this.maxConcurrency = maxConcurrency;
+        this.lowPriorityConcurrency = Math.min(lowPriorityConcurrency, maxConcurrency);
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.criticalLatencyThresholdNanos = criticalLatencyThreshold.toNanos();
+        this.halfLifeNanos = halfLife.toNanos();
+    }
+
+    public boolean isEnabled() {
+        return maxConcurrency > 0;
+    }
+
+    /**
+     * @return the route's load if the request was admitted, to be released when it completes;
+     *         null if it should be shed
+     */
+    public RouteLoad tryAdmit(String routeId, Priority priority) {
+        RouteLoad route = routes.computeIfAbsent(routeId, this::register);
+        return route.tryAcquire(priority, System.nanoTime()) ? route : null;
+    }
+
+    private RouteLoad register(String routeId) {
+        RouteLoad route = new RouteLoad();
+        Gauge.builder("gateway.in-flight", route.inFlight, AtomicInteger::get)
+                .description("Requests the gateway has in flight to the route")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.upstream.latency.average", route, r -> r.averageNanos(System.nanoTime()) / 1e9)
+                .description("Decaying average latency of the route, as used for load shedding")
+                .tag("route", routeId)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        return route;
+    }
+
+    public final class RouteLoad {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private double averageNanos;
+        private long updatedAt = System.nanoTime();
+
+        boolean tryAcquire(Priority priority, long now) {
+            boolean critical = priority == Priority.CRITICAL;
+            if (averageNanos(now) > (critical ? criticalLatencyThresholdNanos : latencyThresholdNanos)) {
+                return false;
+            }
+            int limit = critical ? maxConcurrency : lowPriorityConcurrency;
+            while (true) {
+                int current = inFlight.get();
+                if (current >= limit) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * @param elapsedNanos how long the request took, or a negative value if it was abandoned
+         *                     and says nothing about the route's latency
+         */
+        public void release(long elapsedNanos) {
+            inFlight.decrementAndGet();
+            if (elapsedNanos >= 0) {
+                record(elapsedNanos, System.nanoTime());
+            }
+        }
+
+        public int inFlight() {
+            return inFlight.get();
+        }
+
+        synchronized void record(long elapsedNanos, long now) {
+            double current = averageNanos(now);
+            averageNanos = current + ALPHA * (elapsedNanos - current);
+            updatedAt = now;
+        }
+
+        synchronized double averageNanos(long now) {
+            if (halfLifeNanos <= 0) {
+                return averageNanos;
+            }
+            return averageNanos * Math.pow(0.5, (double) (now - updatedAt) / halfLifeNanos);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.quiz.api_gateway.filter;
+
+import com.quiz.api_gateway.shedding.LoadShedder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadSheddingFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testLowPriorityIsShedBeforeCritical() {
+        LoadSheddingFilter filter = filter(new LoadShedder(meterRegistry, 2, 1, Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ZERO));
+        Sinks.Empty<Void> slowUpstream = Sinks.empty();
+        GatewayFilterChain slow = exchange -> slowUpstream.asMono();
+
+        filter.filter(get("/booking/history"), slow).subscribe();
+        MockServerWebExchange history = get("/booking/history");
+        MockServerWebExchange booking = post("/booking/create");
+        MockServerWebExchange overLimit = post("/booking/create");
+        filter.filter(history, slow).block();
+        filter.filter(booking, slow).subscribe();
+        filter.filter(overLimit, slow).block();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, history.getResponse().getStatusCode());
+        assertNull(booking.getResponse().getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, overLimit.getResponse().getStatusCode());
+        assertEquals("1", overLimit.getResponse().getHeaders().getFirst("Retry-After"));
+        assertEquals(2.0, meterRegistry.get("gateway.in-flight").gauge().value());
+
+        slowUpstream.tryEmitEmpty();
+
+        assertEquals(0.0, meterRegistry.get("gateway.in-flight").gauge().value());
+        assertEquals(1.0, meterRegistry.get("gateway.requests.rejected").tag("reason", "overload_low").counter().count());
+        assertEquals(1.0, meterRegistry.get("gateway.requests.rejected").tag("reason", "overload_critical").counter().count());
+    }
+
+    @Test
+    void testSlowRouteShedsLowPriorityOnly() {
+        LoadShedder shedder = new LoadShedder(meterRegistry, 100, 100, Duration.ofMillis(20), Duration.ofMinutes(1), Duration.ofMinutes(10));
+        LoadSheddingFilter filter = filter(shedder);
+        GatewayFilterChain slow = exchange -> Mono.delay(Duration.ofMillis(200)).then();
+
+        for (int i = 0; i < 3; i++) {
+            filter.filter(post("/booking/create"), slow).block();
+        }
+        MockServerWebExchange search = get("/flights/search");
+        MockServerWebExchange booking = post("/booking/create");
+        filter.filter(search, exchange -> Mono.empty()).block();
+        filter.filter(booking, exchange -> Mono.empty()).block();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, search.getResponse().getStatusCode());
+        assertNull(booking.getResponse().getStatusCode());
+    }
+
+    @Test
+    void testLatencyAverageDecaysWhileIdle() throws InterruptedException {
+        LoadShedder shedder = new LoadShedder(meterRegistry, 100, 100, Duration.ofMillis(20), Duration.ofMinutes(1), Duration.ofMillis(10));
+        LoadSheddingFilter filter = filter(shedder);
+        filter.filter(post("/booking/create"), exchange -> Mono.delay(Duration.ofMillis(200)).then()).block();
+
+        Thread.sleep(200);
+        MockServerWebExchange search = get("/flights/search");
+        filter.filter(search, exchange -> Mono.empty()).block();
+
+        assertNull(search.getResponse().getStatusCode());
+    }
+
+    private LoadSheddingFilter filter(LoadShedder shedder) {
+        return new LoadSheddingFilter(shedder, meterRegistry, List.of("/**/booking/create"));
+    }
+
+    private static MockServerWebExchange get(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+
+    private static MockServerWebExchange post(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post(path));
+    }
+}
@@ -0,0 +1,133 @@
+package com.quiz.api_gateway.filter;
+
+import com.quiz.api_gateway.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private static final String PROXY = "10.0.0.1";
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger forwarded;
+    private GatewayFilterChain upstream;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        forwarded = new AtomicInteger();
+        upstream = exchange -> {
+            forwarded.incrementAndGet();
+            return Mono.empty();
+        };
+    }
+
+    @Test
+    void testClientOverItsBucketGets429() {
+        RateLimitFilter filter = filter(new TokenBucketRateLimiter(2, 0.5, 0, 0, 100, Duration.ofMinutes(1)));
+
+        MockServerWebExchange third = create("alice");
+        filter.filter(create("alice"), upstream).block();
+        filter.filter(create("alice"), upstream).block();
+        filter.filter(third, upstream).block();
+        filter.filter(create("bob"), upstream).block();
+
+        assertEquals(3, forwarded.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, third.getResponse().getStatusCode());
+        assertEquals("2", third.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1.0, meterRegistry.get("gateway.requests.rejected").tag("reason", "client_rate_limit").counter().count());
+    }
+
+    @Test
+    void testRouteBucketIsSharedByAllClients() {
+        RateLimitFilter filter = filter(new TokenBucketRateLimiter(10, 1, 2, 0.001, 100, Duration.ofMinutes(1)));
+
+        MockServerWebExchange third = create("carol");
+        filter.filter(create("alice"), upstream).block();
+        filter.filter(create("bob"), upstream).block();
+        filter.filter(third, upstream).block();
+
+        assertEquals(2, forwarded.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, third.getResponse().getStatusCode());
+        assertEquals(1.0, meterRegistry.get("gateway.requests.rejected").tag("reason", "route_rate_limit").counter().count());
+    }
+
+    @Test
+    void testRouteRejectionDoesNotSpendClientToken() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 0.001, 1, 0.001, 100, Duration.ofMinutes(1));
+
+        assertTrue(limiter.tryAcquire("r", "alice").allowed());
+        assertEquals(TokenBucketRateLimiter.Limit.ROUTE, limiter.tryAcquire("r", "bob").limit());
+        assertEquals(TokenBucketRateLimiter.Limit.ROUTE, limiter.tryAcquire("r", "bob").limit());
+        // bob's only token is still there once the route is his to use
+        assertTrue(limiter.tryAcquire("other", "bob").allowed());
+        assertEquals(TokenBucketRateLimiter.Limit.ROUTE, limiter.tryAcquire("r", "bob").limit());
+    }
+
+    @Test
+    void testClientIdFromUntrustedCallerIsIgnored() {
+        RateLimitFilter filter = filter(new TokenBucketRateLimiter(2, 0.5, 0, 0, 100, Duration.ofMinutes(1)));
+
+        MockServerWebExchange third = MockServerWebExchange.from(request("mallory-3", "203.0.113.9"));
+        filter.filter(MockServerWebExchange.from(request("mallory-1", "203.0.113.9")), upstream).block();
+        filter.filter(MockServerWebExchange.from(request("mallory-2", "203.0.113.9")), upstream).block();
+        filter.filter(third, upstream).block();
+
+        assertEquals(2, forwarded.get());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, third.getResponse().getStatusCode());
+    }
+
+    @Test
+    void testClientIdFromAuthenticatedCallerIsUsed() {
+        RateLimitFilter filter = filter(new TokenBucketRateLimiter(1, 0.001, 0, 0, 100, Duration.ofMinutes(1)));
+
+        for (String client : List.of("alice", "bob", "carol")) {
+            filter.filter(MockServerWebExchange.builder(request(client, "203.0.113.9"))
+                    .principal(() -> "svc-" + client).build(), upstream).block();
+        }
+
+        assertEquals(3, forwarded.get());
+    }
+
+    @Test
+    void testOnlyConfiguredPathsAreLimited() {
+        RateLimitFilter filter = filter(new TokenBucketRateLimiter(1, 0.001, 0, 0, 100, Duration.ofMinutes(1)));
+
+        for (int i = 0; i < 5; i++) {
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/flights/search")
+                    .header("X-Client-Id", "alice")), upstream).block();
+        }
+
+        assertEquals(5, forwarded.get());
+    }
+
+    private RateLimitFilter filter(TokenBucketRateLimiter limiter) {
+        return new RateLimitFilter(limiter, meterRegistry, List.of("/**/booking/create"), "X-Client-Id", List.of(PROXY));
+    }
+
+    // sent through the trusted proxy, so the client id header is honoured
+    private static MockServerWebExchange create(String client) {
+        return MockServerWebExchange.from(request(client, PROXY));
+    }
+
+    private static MockServerHttpRequest request(String client, String remoteAddress) {
+        return MockServerHttpRequest.post("/booking/create")
+                .remoteAddress(new InetSocketAddress(remoteAddress, 40000))
+                .header("X-Client-Id", client)
+                .build();
+    }
+}
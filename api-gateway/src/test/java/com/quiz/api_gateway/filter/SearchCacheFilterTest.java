@@ -0,0 +1,155 @@
+package com.quiz.api_gateway.filter;
+
+import com.quiz.api_gateway.cache.SearchResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCacheFilterTest {
+
+    private static final String SEARCH = "/flights/search?source=DEL&destination=BOM&date=2025-01-10";
+    private static final String BODY = "[{\"id\":\"FL1\"}]";
+
+    private SimpleMeterRegistry meterRegistry;
+    private SearchCacheFilter filter;
+    private AtomicInteger upstreamCalls;
+    private HttpStatus upstreamStatus;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        SearchResponseCache cache = new SearchResponseCache(100, Duration.ofMinutes(1), DataSize.ofKilobytes(64));
+        cache.bindTo(meterRegistry);
+        filter = new SearchCacheFilter(cache, meterRegistry,
+                List.of("/**/flights/search", "/**/flights/search/page"), Duration.ofSeconds(5));
+        upstreamCalls = new AtomicInteger();
+        upstreamStatus = HttpStatus.OK;
+    }
+
+    // ---------------- caching ----------------
+
+    @Test
+    void testRepeatedSearchIsServedFromCache() {
+        MockServerWebExchange first = exchange(SEARCH);
+        MockServerWebExchange second = exchange(SEARCH);
+
+        filter.filter(first, upstream(Mono.empty())).block();
+        filter.filter(second, upstream(Mono.empty())).block();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(BODY, first.getResponse().getBodyAsString().block());
+        assertEquals(BODY, second.getResponse().getBodyAsString().block());
+        assertEquals("MISS", first.getResponse().getHeaders().getFirst(SearchCacheFilter.X_CACHE));
+        assertEquals("HIT", second.getResponse().getHeaders().getFirst(SearchCacheFilter.X_CACHE));
+        assertEquals(MediaType.APPLICATION_JSON, second.getResponse().getHeaders().getContentType());
+        assertEquals(1.0, meterRegistry.get("gateway.search.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void testQueryParameterOrderSharesEntry() {
+        filter.filter(exchange(SEARCH), upstream(Mono.empty())).block();
+        filter.filter(exchange("/flights/search?date=2025-01-10&destination=BOM&source=DEL"), upstream(Mono.empty())).block();
+
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void testErrorsAreNotCached() {
+        upstreamStatus = HttpStatus.SERVICE_UNAVAILABLE;
+
+        filter.filter(exchange(SEARCH), upstream(Mono.empty())).block();
+        filter.filter(exchange(SEARCH), upstream(Mono.empty())).block();
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void testOtherRoutesAndNoCacheRequestsPassThrough() {
+        MockServerWebExchange noCache = MockServerWebExchange.from(MockServerHttpRequest.get(SEARCH)
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache"));
+
+        filter.filter(exchange("/bookings/history?email=a@b.com"), upstream(Mono.empty())).block();
+        filter.filter(exchange("/bookings/history?email=a@b.com"), upstream(Mono.empty())).block();
+        filter.filter(noCache, upstream(Mono.empty())).block();
+
+        assertEquals(3, upstreamCalls.get());
+        assertEquals("BYPASS", noCache.getResponse().getHeaders().getFirst(SearchCacheFilter.X_CACHE));
+    }
+
+    // ---------------- coalescing ----------------
+
+    @Test
+    void testConcurrentSearchesShareOneUpstreamCall() {
+        Sinks.Empty<Void> upstreamReplies = Sinks.empty();
+        MockServerWebExchange leader = exchange(SEARCH);
+        MockServerWebExchange follower = exchange(SEARCH);
+
+        Mono<Void> first = filter.filter(leader, upstream(upstreamReplies.asMono())).cache();
+        Mono<Void> second = filter.filter(follower, upstream(upstreamReplies.asMono())).cache();
+        first.subscribe();
+        second.subscribe();
+        upstreamReplies.tryEmitEmpty();
+        first.block(Duration.ofSeconds(5));
+        second.block(Duration.ofSeconds(5));
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(BODY, follower.getResponse().getBodyAsString().block());
+        assertEquals("COALESCED", follower.getResponse().getHeaders().getFirst(SearchCacheFilter.X_CACHE));
+        assertEquals(0.0, meterRegistry.get("gateway.search.in-flight").gauge().value());
+    }
+
+    @Test
+    void testFollowersCallUpstreamWhenLeaderFails() {
+        Sinks.Empty<Void> upstreamReplies = Sinks.empty();
+        GatewayFilterChain failing = exchange -> {
+            upstreamCalls.incrementAndGet();
+            return upstreamReplies.asMono().then(Mono.error(new IllegalStateException("connection reset")));
+        };
+
+        Mono<Void> leader = filter.filter(exchange(SEARCH), failing).cache();
+        MockServerWebExchange follower = exchange(SEARCH);
+        Mono<Void> second = filter.filter(follower, upstream(Mono.empty())).cache();
+        leader.subscribe(null, e -> { });
+        second.subscribe();
+        upstreamReplies.tryEmitEmpty();
+        second.block(Duration.ofSeconds(5));
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals(BODY, follower.getResponse().getBodyAsString().block());
+    }
+
+    private static MockServerWebExchange exchange(String uri) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(uri));
+    }
+
+    // answers like flightservice once the given signal completes
+    private GatewayFilterChain upstream(Mono<Void> reply) {
+        return exchange -> {
+            upstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            return reply.then(Mono.defer(() -> {
+                response.setStatusCode(upstreamStatus);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                byte[] body = BODY.getBytes(StandardCharsets.UTF_8);
+                return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+            }));
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package com.flightbooking.benchmarks;
+
+import com.booking.bookingservice.cache.FlightAvailabilityCache;
+import com.booking.bookingservice.dto.BookingRequest;
+import com.booking.bookingservice.dto.SeatReservation;
+import com.booking.bookingservice.feign.FlightClient;
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.outbox.BookingOutbox;
+import com.booking.bookingservice.producer.SeatCommandProducer;
+import com.booking.bookingservice.repo.BookingRepository;
+import com.booking.bookingservice.repo.BookingSagaRepository;
+import com.booking.bookingservice.saga.BookingSagaCoordinator;
+import com.booking.bookingservice.service.BookingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookingService.bookTicket without the network: flightservice always has seats and the
+ * repositories are in-memory stubs, so this is the cost of the booking bookkeeping itself
+ * (availability cache, saga, outbox). The sold-out case is the local rejection path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BookingServiceBenchmark {
+
+    static final BookingRequest REQUEST = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+    private static final String SOLD_OUT_FLIGHT = "FL999";
+
+    BookingService service;
+    private BookingRequest soldOutRequest;
+
+    @Setup
+    public void setUp() {
+        service = bookingService();
+        soldOutRequest = new BookingRequest(SOLD_OUT_FLIGHT, "John", "john@gmail.com", 2);
+    }
+
+    @Benchmark
+    public Booking bookTicket() {
+        return service.bookTicket(REQUEST);
+    }
+
+    @Benchmark
+    public Booking bookTicketKnownSoldOut() {
+        return service.bookTicket(soldOutRequest);
+    }
+
+    static BookingService bookingService() {
+        FlightAvailabilityCache availabilityCache = new FlightAvailabilityCache(Duration.ofHours(1), 10, 10_000);
+        availabilityCache.onSeatChange(SOLD_OUT_FLIGHT, 0);
+
+        BookingRepository bookingRepository = Stubs.repository(BookingRepository.class);
+        BookingSagaCoordinator sagas = new BookingSagaCoordinator(
+                Stubs.repository(BookingSagaRepository.class), bookingRepository,
+                new SeatCommandProducer(new RabbitTemplate(), new SimpleMeterRegistry(), Duration.ofSeconds(5)), availabilityCache,
+                Duration.ofSeconds(30), Duration.ofSeconds(1), 2.0, Duration.ofMinutes(5));
+        BookingOutbox outbox = new BookingOutbox(bookingRepository);
+
+        return new BookingService(bookingRepository, new AvailableFlightClient(), outbox, sagas, availabilityCache);
+    }
+
+    private static final class AvailableFlightClient implements FlightClient {
+
+        @Override
+        public boolean checkAvailability(String id) {
+            return true;
+        }
+
+        @Override
+        public boolean reduceSeats(String id, int count) {
+            return true;
+        }
+
+        @Override
+        public SeatReservation reserveSeats(String id, int count, String reservationId) {
+            return new SeatReservation(reservationId, id, count, 100, true);
+        }
+
+        @Override
+        public void increaseSeats(String id, int count) {
+            // seats are never released on the success path
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.flightbooking.benchmarks;
+
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.service.BookingService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the flightservice circuit breaker adds to a call: an empty call with and without the
+ * breaker, and bookTicket with and without it. The breaker is the default Resilience4j one that
+ * backs @CircuitBreaker(name = "flightservice"), applied directly rather than through the aspect.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CircuitBreakerBenchmark {
+
+    private CircuitBreaker circuitBreaker;
+    private BookingService service;
+
+    @Setup
+    public void setUp() {
+        circuitBreaker = CircuitBreaker.ofDefaults("flightservice");
+        service = BookingServiceBenchmark.bookingService();
+    }
+
+    @Benchmark
+    public boolean emptyCall() {
+        return available();
+    }
+
+    @Benchmark
+    public boolean emptyCallWithCircuitBreaker() {
+        return circuitBreaker.executeSupplier(CircuitBreakerBenchmark::available);
+    }
+
+    @Benchmark
+    public Booking bookTicket() {
+        return service.bookTicket(BookingServiceBenchmark.REQUEST);
+    }
+
+    @Benchmark
+    public Booking bookTicketWithCircuitBreaker() {
+        return circuitBreaker.executeSupplier(() -> service.bookTicket(BookingServiceBenchmark.REQUEST));
+    }
+
+    private static boolean available() {
+        return true;
+    }
+}
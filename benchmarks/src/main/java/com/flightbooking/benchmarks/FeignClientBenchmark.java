@@ -0,0 +1,136 @@
+package com.flightbooking.benchmarks;
+
+import com.booking.bookingservice.dto.SeatReservation;
+import com.booking.bookingservice.feign.FlightClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.codec.Decoder;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FlightClient.reserveSeats from 16 threads against a local stand-in for flightservice, over
+ * each HTTP client Feign can use: a new connection per call (unpooled), Feign's default
+ * HttpURLConnection client, whose JDK keep-alive cache holds 5 connections per host, the pooled
+ * Apache HttpClient 5 bookingservice uses, and the JDK HttpClient with HTTP/2 preferred.
+ * Sample time gives the latency percentiles; the connections each client opened are printed
+ * at the end of the run. The stub speaks HTTP/1.1 only, so jdk-http2 shows the JDK client
+ * falling back to it; flightservice itself accepts h2c.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FeignClientBenchmark {
+
+    private static final byte[] RESERVATION =
+            "{\"reservationId\":\"R-1\",\"flightId\":\"FL1\",\"seats\":2,\"remainingSeats\":40,\"reserved\":true}".getBytes();
+
+    @Param({"unpooled", "default", "hc5", "jdk-http2"})
+    public String client;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong calls = new AtomicLong();
+    private FlightClient flightClient;
+
+    @Setup
+    public void setUp() throws IOException {
+        // headers and body go out as separate writes; without this, Nagle and delayed ACKs add
+        // ~40ms to every call on a kept-alive connection and the stub dominates the measurement
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        serverThreads = Executors.newFixedThreadPool(32);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        server.createContext("/flights/internal", this::reserve);
+        server.setExecutor(serverThreads);
+        server.start();
+
+        ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+        Decoder decoder = (response, type) -> {
+            try (InputStream body = response.body().asInputStream()) {
+                return mapper.readValue(body, mapper.constructType(type));
+            }
+        };
+        Feign.Builder builder = Feign.builder()
+                .contract(new SpringMvcContract())
+                .decoder(decoder)
+                .client(client());
+        if ("unpooled".equals(client)) {
+            builder.requestInterceptor(template -> template.header("Connection", "close"));
+        }
+        flightClient = builder.target(FlightClient.class, "http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    private Client client() {
+        return switch (client) {
+            case "unpooled", "default" -> new Client.Default(null, null);
+            case "hc5" -> new ApacheHttp5Client(HttpClients.custom()
+                    .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                            .setMaxConnTotal(200)
+                            .setMaxConnPerRoute(50)
+                            .build())
+                    .build());
+            case "jdk-http2" -> new Http2Client(HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build());
+            default -> throw new IllegalArgumentException(client);
+        };
+    }
+
+    private void reserve(HttpExchange exchange) throws IOException {
+        connections.add(exchange.getRemoteAddress());
+        calls.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, RESERVATION.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(RESERVATION);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%n%s: %d connections opened for %d calls%n", client, connections.size(), calls.get());
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public SeatReservation reserveSeats() {
+        return flightClient.reserveSeats("FL1", 2, null);
+    }
+}
@@ -0,0 +1,90 @@
+package com.flightbooking.benchmarks;
+
+import com.flight.flightservice.cache.FlightSearchCache;
+import com.flight.flightservice.inventory.SeatInventory;
+import com.flight.flightservice.model.Flight;
+import com.flight.flightservice.repo.FlightRepository;
+import com.flight.flightservice.service.FlightService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * FlightService.reduceSeats on both seat stores: the Mongo path with a repository that always
+ * has seats, and the in-memory inventory, whose cost is dominated by the journal append. Seats are
+ * never exhausted, so every call takes the reservation path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FlightServiceBenchmark {
+
+    private static final String FLIGHT_ID = "FL123";
+
+    private FlightService mongoSeats;
+    private FlightService inMemorySeats;
+    private SeatInventory inventory;
+    private Path journalDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        Flight flight = new Flight();
+        flight.setId(FLIGHT_ID);
+        flight.setAvailableSeats(Integer.MAX_VALUE);
+
+        FlightRepository repository = Stubs.repository(FlightRepository.class, Map.of(
+                "decrementSeats", args -> 100,
+                "findById", args -> Optional.of(flight)));
+
+        journalDir = Files.createTempDirectory("seat-journal");
+        inventory = new SeatInventory(repository, journalDir.toString(), false);
+
+        mongoSeats = new FlightService(repository, null, FlightSearchCache.disabled());
+        inMemorySeats = new FlightService(repository, inventory, FlightSearchCache.disabled());
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() {
+        // keeps the journal from growing across iterations, as the scheduled flush does in the service
+        inventory.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        inventory.shutdown();
+        try (Stream<Path> files = Files.walk(journalDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public boolean reduceSeatsMongo() {
+        return mongoSeats.reduceSeats(FLIGHT_ID, 1);
+    }
+
+    @Benchmark
+    public boolean reduceSeatsInMemory() {
+        return inMemorySeats.reduceSeats(FLIGHT_ID, 1);
+    }
+}
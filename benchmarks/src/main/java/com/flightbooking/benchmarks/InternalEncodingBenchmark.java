@@ -0,0 +1,111 @@
+package com.flightbooking.benchmarks;
+
+import com.booking.bookingservice.dto.EmailNotification;
+import com.booking.bookingservice.dto.SeatRelease;
+import com.booking.bookingservice.dto.SeatReservation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON against Smile for the payloads that only travel between the services: seat reservations
+ * returned by /flights/internal, and the email notifications and seat commands on RabbitMQ.
+ * The encoded size of each payload is printed once per encoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class InternalEncodingBenchmark {
+
+    @Param({"json", "smile"})
+    public String encoding;
+
+    private ObjectWriter reservationWriter;
+    private ObjectReader reservationReader;
+    private ObjectWriter emailWriter;
+    private ObjectReader emailReader;
+    private ObjectWriter releaseWriter;
+    private ObjectReader releaseReader;
+
+    private SeatReservation reservation;
+    private EmailNotification email;
+    private SeatRelease release;
+    private byte[] reservationBytes;
+    private byte[] emailBytes;
+    private byte[] releaseBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = "smile".equals(encoding)
+                ? SmileMapper.builder().findAndAddModules().build()
+                : JsonMapper.builder().findAndAddModules().build();
+
+        reservation = new SeatReservation("2b4c7f5e-8a1d-4c6b-9e3f-0d2a1b3c4d5e", "65f1c2a9e4b0a1b2c3d4e5f6", 2, 118, true);
+        email = new EmailNotification("john@gmail.com", "Booking Confirmed",
+                "Your booking 65f1c2a9e4b0a1b2c3d4e5f7 for 2 seats on flight AI101 is confirmed.");
+        release = new SeatRelease("65f1c2a9e4b0a1b2c3d4e5f6", 2, "65f1c2a9e4b0a1b2c3d4e5f7",
+                "65f1c2a9e4b0a1b2c3d4e5f8");
+
+        reservationWriter = mapper.writerFor(SeatReservation.class);
+        reservationReader = mapper.readerFor(SeatReservation.class);
+        emailWriter = mapper.writerFor(EmailNotification.class);
+        emailReader = mapper.readerFor(EmailNotification.class);
+        releaseWriter = mapper.writerFor(SeatRelease.class);
+        releaseReader = mapper.readerFor(SeatRelease.class);
+
+        reservationBytes = reservationWriter.writeValueAsBytes(reservation);
+        emailBytes = emailWriter.writeValueAsBytes(email);
+        releaseBytes = releaseWriter.writeValueAsBytes(release);
+        System.out.printf("%n%s bytes: SeatReservation %d, EmailNotification %d, SeatRelease %d%n",
+                encoding, reservationBytes.length, emailBytes.length, releaseBytes.length);
+    }
+
+    @Benchmark
+    public byte[] writeSeatReservation() throws IOException {
+        return reservationWriter.writeValueAsBytes(reservation);
+    }
+
+    @Benchmark
+    public SeatReservation readSeatReservation() throws IOException {
+        return reservationReader.readValue(reservationBytes);
+    }
+
+    @Benchmark
+    public byte[] writeEmailNotification() throws IOException {
+        return emailWriter.writeValueAsBytes(email);
+    }
+
+    @Benchmark
+    public EmailNotification readEmailNotification() throws IOException {
+        return emailReader.readValue(emailBytes);
+    }
+
+    @Benchmark
+    public byte[] writeSeatRelease() throws IOException {
+        return releaseWriter.writeValueAsBytes(release);
+    }
+
+    @Benchmark
+    public SeatRelease readSeatRelease() throws IOException {
+        return releaseReader.readValue(releaseBytes);
+    }
+}
@@ -0,0 +1,118 @@
+package com.flightbooking.benchmarks;
+
+import com.booking.bookingservice.dto.EmailNotification;
+import com.booking.bookingservice.model.Booking;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.flight.flightservice.model.Flight;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of the payloads that cross service boundaries: flights in search
+ * responses, bookings in booking responses and email notifications on RabbitMQ.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JsonBenchmark {
+
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+
+    private ObjectWriter flightWriter;
+    private ObjectReader flightReader;
+    private ObjectWriter bookingWriter;
+    private ObjectReader bookingReader;
+    private ObjectWriter emailWriter;
+    private ObjectReader emailReader;
+
+    private Flight flight;
+    private Booking booking;
+    private EmailNotification email;
+    private byte[] flightJson;
+    private byte[] bookingJson;
+    private byte[] emailJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        flight = new Flight();
+        flight.setId("65f1c2a9e4b0a1b2c3d4e5f6");
+        flight.setFlightNumber("AI101");
+        flight.setAirline("Air India");
+        flight.setSource("DEL");
+        flight.setDestination("BOM");
+        flight.setDate("2025-01-15");
+        flight.setAvailableSeats(120);
+
+        booking = new Booking();
+        booking.setId("65f1c2a9e4b0a1b2c3d4e5f7");
+        booking.setFlightId(flight.getId());
+        booking.setPassengerName("John");
+        booking.setEmail("john@gmail.com");
+        booking.setSeats(2);
+        booking.setStatus("CONFIRMED");
+        booking.setBookingDate(new Date(1_736_899_200_000L));
+        booking.setReservationId("2b4c7f5e-8a1d-4c6b-9e3f-0d2a1b3c4d5e");
+
+        email = new EmailNotification("john@gmail.com", "Booking Confirmed",
+                "Your booking 65f1c2a9e4b0a1b2c3d4e5f7 for 2 seats on flight AI101 is confirmed.");
+
+        flightWriter = mapper.writerFor(Flight.class);
+        flightReader = mapper.readerFor(Flight.class);
+        bookingWriter = mapper.writerFor(Booking.class);
+        bookingReader = mapper.readerFor(Booking.class);
+        emailWriter = mapper.writerFor(EmailNotification.class);
+        emailReader = mapper.readerFor(EmailNotification.class);
+
+        flightJson = flightWriter.writeValueAsBytes(flight);
+        bookingJson = bookingWriter.writeValueAsBytes(booking);
+        emailJson = emailWriter.writeValueAsBytes(email);
+    }
+
+    @Benchmark
+    public byte[] writeFlight() throws IOException {
+        return flightWriter.writeValueAsBytes(flight);
+    }
+
+    @Benchmark
+    public Flight readFlight() throws IOException {
+        return flightReader.readValue(flightJson);
+    }
+
+    @Benchmark
+    public byte[] writeBooking() throws IOException {
+        return bookingWriter.writeValueAsBytes(booking);
+    }
+
+    @Benchmark
+    public Booking readBooking() throws IOException {
+        return bookingReader.readValue(bookingJson);
+    }
+
+    @Benchmark
+    public byte[] writeEmailNotification() throws IOException {
+        return emailWriter.writeValueAsBytes(email);
+    }
+
+    @Benchmark
+    public EmailNotification readEmailNotification() throws IOException {
+        return emailReader.readValue(emailJson);
+    }
+}
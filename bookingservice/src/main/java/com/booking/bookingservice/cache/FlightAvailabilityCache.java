@@ -0,0 +1,72 @@
+package com.booking.bookingservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short-lived record of flights that are sold out or close to it, so bookings that cannot
+ * succeed are turned away without a round trip to flightservice. Only flights at or below
+ * the near-sold-out threshold are remembered. Seat releases sent by any bookingservice instance
+ * drop the flight through {@link com.booking.bookingservice.consumer.SeatEventConsumer}; the TTL
+ * bounds how long seats flightservice frees on its own, e.g. from expired holds, go unnoticed.
+ */
+@Component
+public class FlightAvailabilityCache {
+
+    private final boolean enabled;
+    private final int nearSoldOutThreshold;
+    private final Cache<String, Integer> remainingSeats;
+
+    @Autowired
+    public FlightAvailabilityCache(@Value("${booking.availability-cache.ttl:5s}") Duration ttl,
+                                   @Value("${booking.availability-cache.near-sold-out-threshold:10}") int nearSoldOutThreshold,
+                                   @Value("${booking.availability-cache.max-size:10000}") long maxSize) {
+        this.enabled = maxSize > 0;
+        this.nearSoldOutThreshold = nearSoldOutThreshold;
+        this.remainingSeats = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public static FlightAvailabilityCache disabled() {
+        return new FlightAvailabilityCache(Duration.ZERO, 0, 0);
+    }
+
+    /**
+     * @return false only when the flight is known to have fewer than the requested seats
+     */
+    public boolean mightHaveSeats(String flightId, int seats) {
+        if (!enabled) {
+            return true;
+        }
+        Integer remaining = remainingSeats.getIfPresent(flightId);
+        return remaining == null || remaining >= seats;
+    }
+
+    /**
+     * Records the seat count flightservice reported for a flight. Negative counts mean
+     * unknown (e.g. the Feign fallback) and drop what we knew.
+     */
+    public void onSeatChange(String flightId, int remaining) {
+        if (!enabled) {
+            return;
+        }
+        if (remaining >= 0 && remaining <= nearSoldOutThreshold) {
+            remainingSeats.put(flightId, remaining);
+        } else {
+            remainingSeats.invalidate(flightId);
+        }
+    }
+
+    public void onSeatsReleased(String flightId) {
+        if (enabled) {
+            remainingSeats.invalidate(flightId);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.booking.bookingservice.client;
+
+import com.booking.bookingservice.dto.SeatReservation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking replacement for {@link com.booking.bookingservice.feign.FlightClient}. A failed
+ * reserve degrades the same way as FlightClientFallback, to a rejected reservation. Seats are
+ * given back with release commands, see {@link com.booking.bookingservice.saga.BookingSagaCoordinator}.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.reactive.enabled", havingValue = "true")
+public class ReactiveFlightClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveFlightClient.class);
+
+    private final WebClient webClient;
+    private final Duration timeout;
+
+    public ReactiveFlightClient(WebClient.Builder builder,
+                                @Value("${booking.reactive.flight-service-url:http://flightservice}") String baseUrl,
+                                @Value("${booking.reactive.flight-timeout:3s}") Duration timeout) {
+        this.webClient = builder.baseUrl(baseUrl).build();
+        this.timeout = timeout;
+    }
+
+    public Mono<SeatReservation> reserveSeats(String id, int count, String reservationId) {
+        return webClient.post()
+                .uri("/flights/internal/{id}/reserve?count={count}&reservationId={reservationId}", id, count, reservationId)
+                .retrieve()
+                .bodyToMono(SeatReservation.class)
+                .timeout(timeout)
+                .onErrorResume(e -> {
+                    log.warn("Reserve call for flight {} failed: {}", id, e.toString());
+                    return Mono.just(SeatReservation.rejected(id, count));  // service is down
+                });
+    }
+}
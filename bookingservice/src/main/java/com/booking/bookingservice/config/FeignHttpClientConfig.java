@@ -0,0 +1,34 @@
+package com.booking.bookingservice.config;
+
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration.HttpClientBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Keep-alive for the pooled Apache HttpClient 5 behind FlightClient; pool sizes come from
+ * spring.cloud.openfeign.httpclient.*. Connections idle past idle-timeout are closed before
+ * flightservice's Tomcat drops them, so a pooled connection is not found dead on use, and a
+ * keep-alive the server leaves open-ended is capped at keep-alive.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.cloud.openfeign.httpclient.hc5.enabled", havingValue = "true", matchIfMissing = true)
+public class FeignHttpClientConfig {
+
+    @Bean
+    public HttpClientBuilderCustomizer flightClientKeepAlive(@Value("${booking.flight-client.http.idle-timeout:15s}") Duration idleTimeout,
+                                                              @Value("${booking.flight-client.http.keep-alive:30s}") Duration keepAlive) {
+        TimeValue maxKeepAlive = TimeValue.ofMilliseconds(keepAlive.toMillis());
+        return builder -> builder
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout.toMillis()))
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue offered = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return TimeValue.isPositive(offered) && offered.compareTo(maxKeepAlive) < 0 ? offered : maxKeepAlive;
+                });
+    }
+}
@@ -0,0 +1,24 @@
+package com.booking.bookingservice.config;
+
+import feign.RequestInterceptor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * With booking.flight-client.encoding=smile, FlightClient asks flightservice for Smile and
+ * decodes it with the Smile converter Spring registers alongside the JSON one. JSON stays
+ * acceptable, so an instance without Smile support still answers.
+ */
+@Configuration
+@ConditionalOnProperty(name = "booking.flight-client.encoding", havingValue = "smile")
+public class FlightClientEncodingConfig {
+
+    public static final String SMILE_FIRST = SmileMessageConverter.CONTENT_TYPE + ", application/json;q=0.9";
+
+    @Bean
+    public RequestInterceptor acceptSmile() {
+        return template -> template.header(HttpHeaders.ACCEPT, SMILE_FIRST);
+    }
+}
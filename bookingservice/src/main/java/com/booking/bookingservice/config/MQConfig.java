@@ -1,35 +1,161 @@
 package com.booking.bookingservice.config;
 
+import com.booking.bookingservice.metrics.ConsumeLag;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.RabbitTemplateCustomizer;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+
+import java.time.Duration;
+import java.util.Date;
 
 
 @Configuration
 @EnableRabbit
 public class MQConfig {
     public static final String EMAIL_QUEUE = "emailQueue";
+    public static final String EMAIL_DLX = "emailQueue.dlx";
+    public static final String EMAIL_DLQ = "emailQueue.dlq";
+    public static final String EMAIL_LISTENER_FACTORY = "emailListenerContainerFactory";
+    public static final String SEAT_EXCHANGE = "flight.seats";
+    public static final String SEAT_RELEASE_QUEUE = "flight.seats.release";
+    public static final String SEAT_RELEASE_ROUTING_KEY = "seats.release";
 
+    // rejected messages go to the DLQ instead of being redelivered forever
     @Bean
     public Queue emailQueue() {
-        return new Queue(EMAIL_QUEUE, true);
+        return QueueBuilder.durable(EMAIL_QUEUE)
+                .deadLetterExchange(EMAIL_DLX)
+                .deadLetterRoutingKey(EMAIL_DLQ)
+                .build();
+    }
+
+    @Bean
+    public DirectExchange emailDeadLetterExchange() {
+        return new DirectExchange(EMAIL_DLX, true, false);
+    }
+
+    @Bean
+    public Queue emailDeadLetterQueue() {
+        return QueueBuilder.durable(EMAIL_DLQ).build();
+    }
+
+    @Bean
+    public Binding emailDeadLetterBinding() {
+        return BindingBuilder.bind(emailDeadLetterQueue()).to(emailDeadLetterExchange()).with(EMAIL_DLQ);
+    }
+
+    // seat commands for flightservice; declared here as well so commands sent before flightservice
+    // first starts are kept. Must match the declaration in flightservice's MQConfig.
+    @Bean
+    public DirectExchange seatExchange() {
+        return new DirectExchange(SEAT_EXCHANGE, true, false);
+    }
+
+    @Bean
+    public Queue seatReleaseQueue() {
+        return QueueBuilder.durable(SEAT_RELEASE_QUEUE)
+                .singleActiveConsumer()
+                .build();
+    }
+
+    @Bean
+    public Binding seatReleaseBinding() {
+        return BindingBuilder.bind(seatReleaseQueue()).to(seatExchange()).with(SEAT_RELEASE_ROUTING_KEY);
+    }
+
+    // this instance's own copy of every seat release, whichever instance sent it, so each one's
+    // availability cache hears about seats coming back; removed by the broker when the instance stops
+    @Bean
+    public Queue seatEventsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding seatEventsBinding() {
+        return BindingBuilder.bind(seatEventsQueue()).to(seatExchange()).with(SEAT_RELEASE_ROUTING_KEY);
+    }
+
+    /**
+     * Batch listener for the email queue: each consumer receives up to batch-size notifications
+     * at a time, so EmailConsumer can send them over one SMTP connection.
+     */
+    @Bean(EMAIL_LISTENER_FACTORY)
+    public SimpleRabbitListenerContainerFactory emailListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            MeterRegistry meterRegistry,
+            MessageConverter messageConverter,
+            @Value("${booking.email.consumer.concurrency:2}") int concurrency,
+            @Value("${booking.email.consumer.max-concurrency:8}") int maxConcurrency,
+            @Value("${booking.email.consumer.prefetch:50}") int prefetch,
+            @Value("${booking.email.consumer.batch-size:20}") int batchSize,
+            @Value("${booking.email.consumer.receive-timeout:1s}") Duration receiveTimeout) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setMessageConverter(messageConverter);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        factory.setPrefetchCount(prefetch);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        // how long a consumer waits to fill a batch before handing over a partial one
+        factory.setReceiveTimeout(receiveTimeout.toMillis());
+        factory.setDefaultRequeueRejected(false);
+        factory.setAfterReceivePostProcessors(new ConsumeLag(meterRegistry));
+        return factory;
     }
     
+    /**
+     * Writes messages as JSON or, with booking.messaging.encoding=smile, as Smile; reads either by
+     * content type, so messages already queued in the other encoding still convert. Switch to
+     * smile only once every consumer, flightservice included, can read it.
+     */
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter messageConverter(@Value("${booking.messaging.encoding:json}") String encoding) {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        SmileMessageConverter smile = new SmileMessageConverter();
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(switch (encoding) {
+            case "json" -> json;
+            case "smile" -> smile;
+            default -> throw new IllegalArgumentException("Unknown booking.messaging.encoding: " + encoding);
+        });
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(SmileMessageConverter.CONTENT_TYPE, smile);
+        return converter;
     }
 
     @Bean
-    public AmqpTemplate amqpTemplate(ConnectionFactory connectionFactory) {
+    public AmqpTemplate amqpTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
-        template.setMessageConverter(jsonMessageConverter());
+        template.setMessageConverter(messageConverter);
         return template;
     }
+
+    // applies to the auto-configured rabbitTemplate the producers use; consumers measure queue lag from it
+    @Bean
+    public RabbitTemplateCustomizer publishTimestampCustomizer() {
+        return template -> template.setBeforePublishPostProcessors(message -> {
+            message.getMessageProperties().setTimestamp(new Date());
+            return message;
+        });
+    }
 }
@@ -0,0 +1,54 @@
+package com.booking.bookingservice.config;
+
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.BookingSaga;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+/**
+ * Spring Data no longer creates annotated indexes automatically, so the ones declared on
+ * the model are ensured here once the application is up. ensureIndex is a no-op when the
+ * index already exists.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    public MongoIndexConfig(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        ensureIndexes(Booking.class);
+        ensureIndexes(BookingSaga.class);
+    }
+
+    private void ensureIndexes(Class<?> entity) {
+        IndexOperations indexOps = mongoTemplate.indexOps(entity);
+        try {
+            new MongoPersistentEntityIndexResolver(mappingContext)
+                    .resolveIndexFor(entity)
+                    .forEach(index -> {
+                        log.info("Ensuring index {} on {}", index.getIndexKeys(), entity.getSimpleName());
+                        indexOps.ensureIndex(index);
+                    });
+        } catch (DataAccessException e) {
+            // queries still work without the index, just slower; don't keep the service down for it
+            log.warn("Could not ensure {} indexes: {}", entity.getSimpleName(), e.getMessage());
+        }
+    }
+}
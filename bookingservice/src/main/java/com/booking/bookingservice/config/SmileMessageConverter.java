@@ -0,0 +1,44 @@
+package com.booking.bookingservice.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJackson2MessageConverter;
+import org.springframework.util.MimeType;
+
+import java.lang.reflect.Type;
+
+/**
+ * Jackson2JsonMessageConverter for Smile, the binary encoding of the JSON data model: the same
+ * payloads and type headers, written as application/x-jackson-smile.
+ */
+public class SmileMessageConverter extends AbstractJackson2MessageConverter {
+
+    public static final String CONTENT_TYPE = "application/x-jackson-smile";
+
+    public SmileMessageConverter() {
+        // configured like the ObjectMapper Jackson2JsonMessageConverter creates for itself
+        super(SmileMapper.builder()
+                .findAndAddModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+                .build(), MimeType.valueOf(CONTENT_TYPE), "*");
+    }
+
+    @Override
+    protected Message createMessage(Object object, MessageProperties messageProperties, Type genericType) {
+        Message message = super.createMessage(object, messageProperties, genericType);
+        // Smile is binary; with a content encoding set, readers would decode the body as text
+        message.getMessageProperties().setContentEncoding(null);
+        return message;
+    }
+
+    @Override
+    public Object fromMessage(Message message, Object conversionHint) {
+        // read the body as bytes whatever encoding the sender declared
+        message.getMessageProperties().setContentEncoding(null);
+        return super.fromMessage(message, conversionHint);
+    }
+}
@@ -0,0 +1,25 @@
+package com.booking.bookingservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@Configuration
+@ConditionalOnProperty(name = "booking.reactive.enabled", havingValue = "true")
+public class WebClientConfig {
+
+    // resolves http://flightservice through Eureka, like the Feign client does, and asks for the same encoding
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder(@Value("${booking.flight-client.encoding:json}") String encoding) {
+        WebClient.Builder builder = WebClient.builder();
+        if ("smile".equals(encoding)) {
+            builder.defaultHeader(HttpHeaders.ACCEPT, FlightClientEncodingConfig.SMILE_FIRST);
+        }
+        return builder;
+    }
+}
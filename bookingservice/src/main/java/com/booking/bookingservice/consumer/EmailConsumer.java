@@ -2,36 +2,128 @@ package com.booking.bookingservice.consumer;
 
 import com.booking.bookingservice.config.MQConfig;
 import com.booking.bookingservice.dto.EmailNotification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends email notifications in batches. Every batch goes out over one SMTP connection; messages
+ * the mail server rejects are retried with exponential backoff and, once the attempts are used
+ * up, published to the dead-letter queue so they can be inspected or replayed.
+ */
 @Component
 public class EmailConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(EmailConsumer.class);
     private final JavaMailSender mailSender;
+    private final RabbitTemplate rabbitTemplate;
+    private final int maxAttempts;
+    private final Duration initialInterval;
+    private final double multiplier;
+    private final Duration maxInterval;
+    private final Timer consumeLatency;
 
-    public EmailConsumer(JavaMailSender mailSender) {
+    public EmailConsumer(JavaMailSender mailSender,
+                         RabbitTemplate rabbitTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${booking.email.retry.max-attempts:4}") int maxAttempts,
+                         @Value("${booking.email.retry.initial-interval:500ms}") Duration initialInterval,
+                         @Value("${booking.email.retry.multiplier:2.0}") double multiplier,
+                         @Value("${booking.email.retry.max-interval:10s}") Duration maxInterval) {
         this.mailSender = mailSender;
+        this.rabbitTemplate = rabbitTemplate;
+        this.maxAttempts = maxAttempts;
+        this.initialInterval = initialInterval;
+        this.multiplier = multiplier;
+        this.maxInterval = maxInterval;
+        this.consumeLatency = Timer.builder("email.consume.latency")
+                .description("Time to send a batch of emails, including retries")
+                .register(meterRegistry);
     }
 
-    @RabbitListener(queues = MQConfig.EMAIL_QUEUE)
-    public void receive(EmailNotification notification) {
-        // send actual email
+    @RabbitListener(queues = MQConfig.EMAIL_QUEUE, containerFactory = MQConfig.EMAIL_LISTENER_FACTORY)
+    public void receive(List<EmailNotification> notifications) throws InterruptedException {
+        Timer.Sample sample = Timer.start();
         try {
+            sendWithRetry(notifications);
+        } finally {
+            sample.stop(consumeLatency);
+        }
+    }
+
+    private void sendWithRetry(List<EmailNotification> notifications) throws InterruptedException {
+        List<EmailNotification> pending = notifications;
+        long backoff = initialInterval.toMillis();
+
+        for (int attempt = 1; ; attempt++) {
+            pending = send(pending);
+            if (pending.isEmpty()) {
+                log.info("Sent {} emails", notifications.size());
+                return;
+            }
+            if (attempt >= maxAttempts) {
+                break;
+            }
+            log.warn("{} of {} emails failed, retrying in {} ms (attempt {} of {})",
+                    pending.size(), notifications.size(), backoff, attempt, maxAttempts);
+            Thread.sleep(backoff);
+            backoff = Math.min((long) (backoff * multiplier), maxInterval.toMillis());
+        }
+
+        for (EmailNotification notification : pending) {
+            log.error("Giving up on email to {} after {} attempts, moving it to {}",
+                    notification.getTo(), maxAttempts, MQConfig.EMAIL_DLQ);
+            rabbitTemplate.convertAndSend(MQConfig.EMAIL_DLX, MQConfig.EMAIL_DLQ, notification);
+        }
+    }
+
+    /**
+     * Sends all notifications over a single connection.
+     *
+     * @return the notifications that could not be sent
+     */
+    private List<EmailNotification> send(List<EmailNotification> notifications) {
+        Map<SimpleMailMessage, EmailNotification> byMessage = new IdentityHashMap<>();
+        for (EmailNotification notification : notifications) {
             SimpleMailMessage msg = new SimpleMailMessage();
             msg.setTo(notification.getTo());
             msg.setSubject(notification.getSubject());
             msg.setText(notification.getBody());
-            mailSender.send(msg);
-            log.info("Email sent to {}", notification.getTo());
-        } catch (Exception e) {
-            log.error("Failed to send email to {}: {}", notification.getTo(), e.getMessage());
-            // consider retry or dead-lettering in prod
+            byMessage.put(msg, notification);
+        }
+
+        try {
+            mailSender.send(byMessage.keySet().toArray(new SimpleMailMessage[0]));
+            return List.of();
+        } catch (MailSendException e) {
+            // JavaMailSender keys failures by the message we passed in
+            List<EmailNotification> failed = new ArrayList<>();
+            e.getFailedMessages().keySet().forEach(msg -> {
+                EmailNotification notification = byMessage.get(msg);
+                if (notification != null) {
+                    failed.add(notification);
+                }
+            });
+            log.error("Failed to send {} emails: {}", failed.size(), e.getMessage());
+            return failed.isEmpty() ? notifications : failed;
+        } catch (MailException e) {
+            log.error("Failed to send {} emails: {}", notifications.size(), e.getMessage());
+            return notifications;
         }
     }
 }
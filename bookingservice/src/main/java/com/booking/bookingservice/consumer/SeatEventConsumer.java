@@ -0,0 +1,28 @@
+package com.booking.bookingservice.consumer;
+
+import com.booking.bookingservice.cache.FlightAvailabilityCache;
+import com.booking.bookingservice.dto.SeatRelease;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps this instance's {@link FlightAvailabilityCache} in step with seat releases sent by every
+ * bookingservice instance: each release on the seat exchange is also delivered to this instance's
+ * anonymous queue, and the flight is dropped from the cache so the next booking asks flightservice.
+ */
+@Component
+public class SeatEventConsumer {
+
+    private final FlightAvailabilityCache availabilityCache;
+
+    public SeatEventConsumer(FlightAvailabilityCache availabilityCache) {
+        this.availabilityCache = availabilityCache;
+    }
+
+    @RabbitListener(queues = "#{seatEventsQueue.name}")
+    public void receive(SeatRelease release) {
+        if (release.getFlightId() != null) {
+            availabilityCache.onSeatsReleased(release.getFlightId());
+        }
+    }
+}
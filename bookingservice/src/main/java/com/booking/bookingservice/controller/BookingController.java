@@ -1,33 +1,68 @@
 package com.booking.bookingservice.controller;
 
+import com.booking.bookingservice.dto.BatchBookingResult;
+import com.booking.bookingservice.dto.BookingHistoryPage;
 import com.booking.bookingservice.dto.BookingRequest;
+import com.booking.bookingservice.exception.InvalidRequestException;
+import com.booking.bookingservice.idempotency.IdempotencyStore;
 import com.booking.bookingservice.model.Booking;
 import com.booking.bookingservice.service.BookingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/booking")
+@ConditionalOnProperty(name = "booking.reactive.enabled", havingValue = "false", matchIfMissing = true)
 public class BookingController {
 
     private static final Logger log = LoggerFactory.getLogger(BookingController.class);
+    private static final int MAX_BATCH_SIZE = 100;
     private final BookingService service;
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper mapper;
 
-    public BookingController(BookingService service) {
+    public BookingController(BookingService service, IdempotencyStore idempotencyStore, ObjectMapper mapper) {
         this.service = service;
+        this.idempotencyStore = idempotencyStore;
+        this.mapper = mapper;
     }
 
     @PostMapping("/create")
     @ResponseStatus(HttpStatus.CREATED)
-    @Operation(summary = "Create a booking")
-    public Booking createBooking(@RequestBody BookingRequest req) {
+    @Operation(summary = "Create a booking",
+            description = "Requests repeated with the same Idempotency-Key return the original booking")
+    public Booking createBooking(@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                 @RequestBody BookingRequest req) {
         log.info("Create booking request for flight {}", req.getFlightId());
-        return service.bookTicket(req);
+        if (idempotencyKey == null) {
+            return service.bookTicket(req);
+        }
+        return idempotencyStore.execute(idempotencyKey, req, () -> service.bookTicket(req));
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Create bookings in bulk",
+            description = "Reserves seats once per flight and returns one result per request, in request order")
+    public List<BatchBookingResult> createBookings(@RequestBody List<BookingRequest> requests) {
+        log.info("Batch booking request for {} bookings", requests.size());
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new InvalidRequestException("A batch can contain at most " + MAX_BATCH_SIZE + " bookings");
+        }
+        return service.bookBatch(requests);
     }
 
     @PutMapping("/cancel/{id}")
@@ -48,4 +83,38 @@ public class BookingController {
     public List<Booking> history(@RequestParam String email) {
         return service.getBookingsByEmail(email);
     }
+
+    @GetMapping("/history/page")
+    @Operation(summary = "Get bookings by email page by page",
+            description = "Newest first; pass nextCursor back as cursor to get the following page")
+    public BookingHistoryPage<?> historyPage(@RequestParam String email,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "20") int size,
+                                             @RequestParam(defaultValue = "false") boolean summary) {
+        return summary
+                ? service.getHistorySummaryPage(email, cursor, size)
+                : service.getHistoryPage(email, cursor, size);
+    }
+
+    @GetMapping(value = "/history/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export bookings by email",
+            description = "Streams the full history as newline-delimited JSON straight from the database cursor")
+    public ResponseEntity<StreamingResponseBody> streamHistory(@RequestParam String email,
+                                                               @RequestParam(defaultValue = "false") boolean summary) {
+        log.info("Booking history export for {}", email);
+        StreamingResponseBody body = summary
+                ? out -> writeNdjson(service.streamHistorySummaries(email), out)
+                : out -> writeNdjson(service.streamHistory(email), out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private void writeNdjson(Stream<?> bookings, OutputStream out) throws IOException {
+        try (bookings) {
+            Iterator<?> it = bookings.iterator();
+            while (it.hasNext()) {
+                out.write(mapper.writeValueAsBytes(it.next()));
+                out.write('\n');
+            }
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package com.booking.bookingservice.controller;
+
+import com.booking.bookingservice.dto.BatchBookingResult;
+import com.booking.bookingservice.dto.BookingHistoryPage;
+import com.booking.bookingservice.dto.BookingRequest;
+import com.booking.bookingservice.exception.InvalidRequestException;
+import com.booking.bookingservice.idempotency.IdempotencyStore;
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.service.BookingService;
+import com.booking.bookingservice.service.ReactiveBookingService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Same API as {@link BookingController}, answered with Mono/Flux. Replaces BookingController
+ * when booking.reactive.enabled=true.
+ */
+@RestController
+@RequestMapping("/booking")
+@ConditionalOnProperty(name = "booking.reactive.enabled", havingValue = "true")
+public class ReactiveBookingController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveBookingController.class);
+    private static final int MAX_BATCH_SIZE = 100;
+    private final ReactiveBookingService service;
+    private final BookingService batchService;
+    private final IdempotencyStore idempotencyStore;
+
+    public ReactiveBookingController(ReactiveBookingService service, BookingService batchService,
+                                     IdempotencyStore idempotencyStore) {
+        this.service = service;
+        this.batchService = batchService;
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    @PostMapping("/create")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Create a booking",
+            description = "Requests repeated with the same Idempotency-Key return the original booking")
+    public Mono<Booking> createBooking(@RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+                                       @RequestBody BookingRequest req) {
+        log.info("Create booking request for flight {}", req.getFlightId());
+        if (idempotencyKey == null) {
+            return service.bookTicket(req);
+        }
+        // the store is blocking Mongo; keep it off the event loop
+        return Mono.fromCallable(() -> idempotencyStore.begin(idempotencyKey, req))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(previous -> previous.map(Mono::just).orElseGet(() -> service.bookTicket(req)
+                        .onErrorResume(e -> Mono.fromRunnable(() -> idempotencyStore.abandon(idempotencyKey))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .then(Mono.error(e)))
+                        .flatMap(booking -> Mono.fromRunnable(() -> idempotencyStore.finish(idempotencyKey, req, booking))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .thenReturn(booking))
+                        // a client that gave up stops the booking; free the key for its retry
+                        .doOnCancel(() -> Schedulers.boundedElastic().schedule(() -> idempotencyStore.abandon(idempotencyKey)))));
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Create bookings in bulk",
+            description = "Reserves seats once per flight and returns one result per request, in request order")
+    public Mono<List<BatchBookingResult>> createBookings(@RequestBody List<BookingRequest> requests) {
+        log.info("Batch booking request for {} bookings", requests.size());
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new InvalidRequestException("A batch can contain at most " + MAX_BATCH_SIZE + " bookings");
+        }
+        // batches already amortise their round trips; run the blocking flow off the request thread
+        return Mono.fromCallable(() -> batchService.bookBatch(requests))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @PutMapping("/cancel/{id}")
+    @Operation(summary = "Cancel booking")
+    public Mono<Booking> cancelBooking(@PathVariable String id) {
+        log.info("Cancel booking {}", id);
+        return service.cancelBooking(id);
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get booking by id")
+    public Mono<Booking> getBooking(@PathVariable String id) {
+        return service.getBooking(id);
+    }
+
+    @GetMapping("/history")
+    @Operation(summary = "Get bookings by email")
+    public Flux<Booking> history(@RequestParam String email) {
+        return service.getBookingsByEmail(email);
+    }
+
+    @GetMapping("/history/page")
+    @Operation(summary = "Get bookings by email page by page",
+            description = "Newest first; pass nextCursor back as cursor to get the following page")
+    public Mono<BookingHistoryPage<?>> historyPage(@RequestParam String email,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") int size,
+                                                   @RequestParam(defaultValue = "false") boolean summary) {
+        // a page is one bounded indexed query; the blocking repository runs it off the request thread
+        return Mono.<BookingHistoryPage<?>>fromCallable(() -> summary
+                        ? batchService.getHistorySummaryPage(email, cursor, size)
+                        : batchService.getHistoryPage(email, cursor, size))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping(value = "/history/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export bookings by email",
+            description = "Streams the full history as newline-delimited JSON straight from the database cursor")
+    public Flux<?> streamHistory(@RequestParam String email,
+                                 @RequestParam(defaultValue = "false") boolean summary) {
+        log.info("Booking history export for {}", email);
+        return summary ? service.streamHistorySummaries(email) : service.streamHistory(email);
+    }
+}
@@ -0,0 +1,17 @@
+package com.booking.bookingservice.dto;
+
+import com.booking.bookingservice.model.Booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchBookingResult {
+    private int index;      // position of the request in the batch
+    private String status;  // CONFIRMED / FAILED
+    private Booking booking;
+    private String error;
+}
@@ -0,0 +1,15 @@
+package com.booking.bookingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingHistoryPage<T> {
+    private List<T> bookings;
+    private String nextCursor; // pass back as cursor for the next page; null on the last page
+}
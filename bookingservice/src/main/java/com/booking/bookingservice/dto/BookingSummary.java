@@ -0,0 +1,20 @@
+package com.booking.bookingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * Booking history projection. The email is the lookup key and the passenger name is already
+ * known to the caller, so only what differs between bookings is read from Mongo.
+ */
+@Data
+@AllArgsConstructor
+public class BookingSummary {
+    private String id;
+    private String flightId;
+    private int seats;
+    private String status;
+    private Date bookingDate;
+}
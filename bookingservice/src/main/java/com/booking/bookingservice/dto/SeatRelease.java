@@ -0,0 +1,26 @@
+package com.booking.bookingservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Command to give seats back to a flight, consumed by flightservice from the seat release queue.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SeatRelease {
+    private String flightId;
+    private int seats;
+    // set when the seats belong to one reservation: flightservice gives them back only if it was applied
+    private String reservationId;
+    // id of the command, the same on every resend: flightservice applies each command id once
+    private String commandId;
+
+    public SeatRelease(String flightId, int seats) {
+        this(flightId, seats, null, null);
+    }
+}
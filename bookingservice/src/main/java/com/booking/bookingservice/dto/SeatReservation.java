@@ -0,0 +1,23 @@
+package com.booking.bookingservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SeatReservation {
+    private String reservationId;
+    private String flightId;
+    private int seats;
+    private int remainingSeats;
+    private boolean reserved;
+
+    public static SeatReservation rejected(String flightId, int seats) {
+        return new SeatReservation(null, flightId, seats, -1, false);
+    }
+}
@@ -0,0 +1,7 @@
+package com.booking.bookingservice.exception;
+
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,52 @@
+package com.booking.bookingservice.feign;
+
+import java.time.Duration;
+
+/**
+ * Timeout that follows the latency of the calls it guards, the way TCP sizes its retransmission
+ * timeout: a smoothed latency plus four times its mean deviation, kept between min and max.
+ * A call that times out is recorded as taking the whole timeout, so a service that has become
+ * slower stretches the timeout instead of having every call cut off.
+ */
+class AdaptiveTimeout {
+
+    private static final double ALPHA = 0.125;
+    private static final double BETA = 0.25;
+
+    private final long minNanos;
+    private final long maxNanos;
+    private double smoothedNanos;
+    private double deviationNanos;
+    private boolean sampled;
+    private long timeoutNanos;
+
+    AdaptiveTimeout(Duration min, Duration max, Duration initial) {
+        this.minNanos = min.toNanos();
+        this.maxNanos = max.toNanos();
+        this.timeoutNanos = clamp(initial.toNanos());
+    }
+
+    synchronized Duration current() {
+        return Duration.ofNanos(timeoutNanos);
+    }
+
+    synchronized void record(long elapsedNanos) {
+        if (!sampled) {
+            smoothedNanos = elapsedNanos;
+            deviationNanos = elapsedNanos / 2d;
+            sampled = true;
+        } else {
+            deviationNanos = (1 - BETA) * deviationNanos + BETA * Math.abs(smoothedNanos - elapsedNanos);
+            smoothedNanos = (1 - ALPHA) * smoothedNanos + ALPHA * elapsedNanos;
+        }
+        timeoutNanos = clamp((long) (smoothedNanos + 4 * deviationNanos));
+    }
+
+    synchronized void recordTimeout() {
+        record(timeoutNanos);
+    }
+
+    private long clamp(long nanos) {
+        return Math.max(minNanos, Math.min(maxNanos, nanos));
+    }
+}
@@ -1,9 +1,12 @@
 package com.booking.bookingservice.feign;
 
+import com.booking.bookingservice.dto.SeatReservation;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
-@FeignClient(name = "flightservice", fallback = FlightClientFallback.class)
+// injected only into ResilientFlightClient, which is what everything else gets as a FlightClient
+@FeignClient(name = "flightservice", fallback = FlightClientFallback.class,
+        primary = false, qualifiers = "flightServiceFeignClient")
 public interface FlightClient {
 
     @GetMapping("/flights/internal/{id}/check")
@@ -12,6 +15,11 @@ public interface FlightClient {
     @PutMapping("/flights/internal/{id}/reduce")
     boolean reduceSeats(@PathVariable("id") String id, @RequestParam("count") int count);
 
+    // with a reservation id, a retried reserve is answered with the reservation it already made
+    @PostMapping("/flights/internal/{id}/reserve")
+    SeatReservation reserveSeats(@PathVariable("id") String id, @RequestParam("count") int count,
+                                 @RequestParam(value = "reservationId", required = false) String reservationId);
+
     @PutMapping("/flights/internal/{id}/increase")
     void increaseSeats(@PathVariable("id") String id, @RequestParam("count") int count);
 }
@@ -1,5 +1,7 @@
 package com.booking.bookingservice.feign;
 
+import com.booking.bookingservice.dto.SeatReservation;
+import com.booking.bookingservice.exception.FlightServiceDownException;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -15,9 +17,14 @@ public class FlightClientFallback implements FlightClient {
         return false;  // service is down
     }
 
+    @Override
+    public SeatReservation reserveSeats(String id, int count, String reservationId) {
+        return SeatReservation.rejected(id, count);  // service is down
+    }
+
     @Override
     public void increaseSeats(String id, int count) {
-        // do nothing
+        // seats were not given back; callers must not assume they were
+        throw new FlightServiceDownException("Flight Service is DOWN");
     }
 }
-
@@ -0,0 +1,216 @@
+package com.booking.bookingservice.feign;
+
+import com.booking.bookingservice.dto.SeatReservation;
+import feign.FeignException;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkhead;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * The FlightClient the services use: every method of the Feign client runs in its own
+ * thread-pool bulkhead, so a slow increaseSeats can only tie up its own threads, never
+ * reserveSeats' or the caller's. Failed calls are retried within a {@link RetryBudget}. Only
+ * checkAvailability is retried on any failure; the methods that change seats are retried only
+ * when flightservice could not be reached, since a retried reserve or increase would apply twice.
+ *
+ * <p>checkAvailability waits for an {@link AdaptiveTimeout}. The methods that change seats wait
+ * for Feign's read timeout only: a local timeout would report a reserve as rejected while the
+ * request goes on and may still take the seats.
+ *
+ * <p>A call turned away by its bulkhead or cut off by its timeout degrades like
+ * {@link FlightClientFallback}. A cut-off check keeps its bulkhead thread until Feign's read
+ * timeout, which should be no shorter than booking.flight-client.timeout.max.
+ */
+@Primary
+@Component
+public class ResilientFlightClient implements FlightClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientFlightClient.class);
+
+    private final FlightClient delegate;
+    private final FlightClientFallback fallback;
+    private final Guard check;
+    private final Guard reduce;
+    private final Guard reserve;
+    private final Guard increase;
+
+    public ResilientFlightClient(@Qualifier("flightServiceFeignClient") FlightClient delegate,
+                                 FlightClientFallback fallback,
+                                 ThreadPoolBulkheadRegistry bulkheads,
+                                 RetryRegistry retries,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${booking.flight-client.timeout.min:100ms}") Duration minTimeout,
+                                 @Value("${booking.flight-client.timeout.max:3s}") Duration maxTimeout,
+                                 @Value("${booking.flight-client.timeout.initial:1s}") Duration initialTimeout,
+                                 @Value("${booking.flight-client.retry-budget.ratio:0.1}") double retryRatio,
+                                 @Value("${booking.flight-client.retry-budget.max-retries:10}") int maxRetries) {
+        this.delegate = delegate;
+        this.fallback = fallback;
+        Function<AdaptiveTimeout, Guard.Settings> settings = timeout -> new Guard.Settings(bulkheads, retries,
+                meterRegistry, timeout, new RetryBudget(retryRatio, maxRetries));
+        this.check = new Guard("check", e -> !(e instanceof FeignException.FeignClientException)
+                && !(e instanceof BulkheadFullException), settings.apply(new AdaptiveTimeout(minTimeout, maxTimeout, initialTimeout)));
+        this.reduce = new Guard("reduce", ResilientFlightClient::notSent, settings.apply(null));
+        this.reserve = new Guard("reserve", ResilientFlightClient::notSent, settings.apply(null));
+        this.increase = new Guard("increase", ResilientFlightClient::notSent, settings.apply(null));
+    }
+
+    @Override
+    public boolean checkAvailability(String id) {
+        return check.call(() -> delegate.checkAvailability(id), () -> fallback.checkAvailability(id));
+    }
+
+    @Override
+    public boolean reduceSeats(String id, int count) {
+        return reduce.call(() -> delegate.reduceSeats(id, count), () -> fallback.reduceSeats(id, count));
+    }
+
+    @Override
+    public SeatReservation reserveSeats(String id, int count, String reservationId) {
+        return reserve.call(() -> delegate.reserveSeats(id, count, reservationId),
+                () -> fallback.reserveSeats(id, count, reservationId));
+    }
+
+    @Override
+    public void increaseSeats(String id, int count) {
+        increase.call(() -> {
+            delegate.increaseSeats(id, count);
+            return null;
+        }, () -> {
+            fallback.increaseSeats(id, count);
+            return null;
+        });
+    }
+
+    // the request never reached flightservice, so sending it again cannot apply it twice
+    private static boolean notSent(Throwable e) {
+        return e instanceof RetryableException && e.getCause() instanceof ConnectException;
+    }
+
+    /**
+     * Bulkhead, timeout, retry and budget of one FlightClient method, named flightservice-{method}
+     * in the resilience4j.thread-pool-bulkhead and resilience4j.retry properties and metrics.
+     * Without a timeout, a call waits as long as Feign does.
+     */
+    static final class Guard {
+
+        private final String name;
+        private final ThreadPoolBulkhead bulkhead;
+        @Nullable
+        private final AdaptiveTimeout timeout;
+        private final RetryBudget budget;
+        private final Retry retry;
+        private final Counter retriesDenied;
+
+        Guard(String method, Predicate<Throwable> retryable, Settings settings) {
+            this.name = "flightservice-" + method;
+            this.bulkhead = settings.bulkheads().bulkhead(name);
+            this.timeout = settings.timeout();
+            this.budget = settings.budget();
+            this.retriesDenied = Counter.builder("flight.client.retries.denied")
+                    .description("FlightClient retries skipped because the retry budget was spent")
+                    .tag("method", method)
+                    .register(settings.meterRegistry());
+            if (timeout != null) {
+                Gauge.builder("flight.client.timeout", timeout, t -> t.current().toNanos() / 1e9)
+                        .description("Current adaptive timeout of the FlightClient method")
+                        .tag("method", method)
+                        .baseUnit("seconds")
+                        .register(settings.meterRegistry());
+            }
+
+            RetryConfig configured = settings.retries().retry(name).getRetryConfig();
+            this.retry = Retry.of(name, RetryConfig.from(configured)
+                    .retryOnException(e -> retryable.test(e) && spendRetry())
+                    .build());
+            settings.retries().replace(name, retry);
+        }
+
+        <T> T call(Supplier<T> call, Supplier<T> degraded) {
+            budget.onCall();
+            try {
+                return retry.executeCallable(() -> attempt(call));
+            } catch (BulkheadFullException | TimeoutException e) {
+                log.warn("FlightClient call {} did not complete, degrading: {}", name, e.toString());
+                return degraded.get();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private <T> T attempt(Supplier<T> call) throws Exception {
+            if (timeout == null) {
+                return await(bulkhead.executeSupplier(call).toCompletableFuture());
+            }
+            TimeLimiter limiter = TimeLimiter.of(name, TimeLimiterConfig.custom()
+                    .timeoutDuration(timeout.current())
+                    .cancelRunningFuture(true)
+                    .build());
+            long start = System.nanoTime();
+            try {
+                T result = limiter.executeFutureSupplier(() -> bulkhead.executeSupplier(call).toCompletableFuture());
+                timeout.record(System.nanoTime() - start);
+                return result;
+            } catch (TimeoutException e) {
+                timeout.recordTimeout();
+                throw e;
+            } catch (FeignException e) {
+                if (e.status() > 0) {
+                    // flightservice answered, if with an error, so the latency still counts
+                    timeout.record(System.nanoTime() - start);
+                }
+                throw e;
+            }
+        }
+
+        private static <T> T await(CompletableFuture<T> future) throws Exception {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause) {
+                    throw cause;
+                }
+                throw (Error) e.getCause();
+            }
+        }
+
+        private boolean spendRetry() {
+            if (budget.tryRetry()) {
+                return true;
+            }
+            retriesDenied.increment();
+            return false;
+        }
+
+        record Settings(ThreadPoolBulkheadRegistry bulkheads, RetryRegistry retries, MeterRegistry meterRegistry,
+                        @Nullable AdaptiveTimeout timeout, RetryBudget budget) {
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.booking.bookingservice.feign;
+
+/**
+ * Caps retries at a fraction of the calls made, so retries cannot multiply the load on a
+ * flightservice that is already failing. Every call earns ratio of a retry and every retry
+ * spends a whole one; the balance starts at, and never goes above, maxRetries.
+ */
+class RetryBudget {
+
+    private final double ratio;
+    private final double maxRetries;
+    private double balance;
+
+    RetryBudget(double ratio, int maxRetries) {
+        this.ratio = ratio;
+        this.maxRetries = maxRetries;
+        this.balance = maxRetries;
+    }
+
+    synchronized void onCall() {
+        balance = Math.min(maxRetries, balance + ratio);
+    }
+
+    synchronized boolean tryRetry() {
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,252 @@
+package com.booking.bookingservice.idempotency;
+
+import com.booking.bookingservice.dto.BookingRequest;
+import com.booking.bookingservice.exception.IdempotencyConflictException;
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.IdempotencyRecord;
+import com.booking.bookingservice.repo.IdempotencyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the booking made for each Idempotency-Key so a retried POST /booking/create gets the
+ * original booking back instead of reserving seats again. Completed keys are answered from an
+ * in-process cache first and from the idempotency_keys collection otherwise; the collection's TTL
+ * index bounds how long a key is honoured.
+ *
+ * <p>Confirmed bookings and definite rejections are remembered, so a retry gets the answer the
+ * first request got. A request that ends in an exception, or in a circuit breaker fallback's
+ * {@link Booking#isRetryable() retryable} failure, is not an outcome: whatever it reserved is
+ * released by its saga, so its key is released and a retry runs the booking again.
+ *
+ * <p>While a request runs, the instance running it renews a lease on its key. A retry takes the
+ * key over only once that lease has lapsed, which means the owner stopped renewing because its
+ * instance died; a slow request keeps its key and retries get 409 meanwhile.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private final IdempotencyRepository repository;
+    private final MongoTemplate mongoTemplate;
+    private final Duration ttl;
+    private final Duration lease;
+    private final Cache<String, IdempotencyRecord> completed;
+    // this instance, as the owner of the keys it is running requests for
+    private final String owner = UUID.randomUUID().toString();
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService renewer;
+
+    public IdempotencyStore(IdempotencyRepository repository,
+                            MongoTemplate mongoTemplate,
+                            @Value("${booking.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${booking.idempotency.lease:10s}") Duration lease,
+                            @Value("${booking.idempotency.cache-ttl:10m}") Duration cacheTtl,
+                            @Value("${booking.idempotency.cache-max-size:10000}") long cacheMaxSize) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.ttl = ttl;
+        this.lease = lease;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl.compareTo(ttl) < 0 ? cacheTtl : ttl)
+                .build();
+        this.renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "idempotency-lease-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // three renewals per lease, so one failed renewal does not cost the key
+        long renewMillis = Math.max(1, lease.toMillis() / 3);
+        renewer.scheduleWithFixedDelay(this::renewLeases, renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renewer.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureTtlIndex() {
+        try {
+            mongoTemplate.indexOps(IdempotencyRecord.class).ensureIndex(new Index()
+                    .on("createdAt", Sort.Direction.ASC)
+                    .named("created_at_ttl")
+                    .expire(ttl));
+        } catch (DataAccessException e) {
+            // keys then live until removed by hand; bookings are unaffected
+            log.warn("Could not ensure the idempotency TTL index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the booking once per key: the first call books, later calls with the same key and
+     * request return that booking without running it again.
+     */
+    public Booking execute(String key, BookingRequest req, Supplier<Booking> booking) {
+        Optional<Booking> previous = begin(key, req);
+        if (previous.isPresent()) {
+            return previous.get();
+        }
+
+        Booking result;
+        try {
+            result = booking.get();
+        } catch (RuntimeException e) {
+            abandon(key);
+            throw e;
+        }
+        finish(key, req, result);
+        return result;
+    }
+
+    /**
+     * Claims the key for this request.
+     *
+     * @return the booking already made for the key, or empty if the caller should book and then
+     * call {@link #finish} or {@link #abandon}
+     * @throws IdempotencyConflictException if the key belongs to a different request or its first
+     * request is still running
+     */
+    public Optional<Booking> begin(String key, BookingRequest req) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalStateException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(req);
+
+        IdempotencyRecord cached = completed.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(replay(key, cached, fingerprint));
+        }
+
+        try {
+            repository.insert(new IdempotencyRecord(key, fingerprint, owner, leaseEnd()));
+            running.add(key);
+            return Optional.empty();
+        } catch (DuplicateKeyException e) {
+            log.info("Duplicate booking request for {} {}", HEADER, key);
+        }
+
+        IdempotencyRecord existing = repository.findById(key)
+                .orElseThrow(() -> new IdempotencyConflictException(
+                        "Booking request with " + HEADER + " " + key + " just expired, retry it"));
+        if (existing.getBooking() != null) {
+            Booking booking = replay(key, existing, fingerprint);
+            completed.put(key, existing);
+            return Optional.of(booking);
+        }
+        if (!existing.getFingerprint().equals(fingerprint)) {
+            throw mismatch(key);
+        }
+
+        // a lapsed lease means the owner stopped renewing it: its instance died mid-request
+        if (!running.contains(key) && repository.takeOverExpired(key, owner, new Date(), leaseEnd()) != null) {
+            running.add(key);
+            log.warn("Taking over booking request with {} {} whose owner stopped renewing it", HEADER, key);
+            return Optional.empty();
+        }
+        throw new IdempotencyConflictException(
+                "Booking request with " + HEADER + " " + key + " is still in progress");
+    }
+
+    /**
+     * Records the outcome of a request that {@link #begin} let through, confirmed or rejected. A
+     * retryable failure releases the key instead, as {@link #abandon} does.
+     */
+    public void finish(String key, BookingRequest req, Booking booking) {
+        if (booking.isRetryable()) {
+            log.info("Booking for {} {} failed without an outcome, releasing the key", HEADER, key);
+            abandon(key);
+            return;
+        }
+        IdempotencyRecord record = new IdempotencyRecord(key, fingerprint(req));
+        record.setBooking(booking);
+        completed.put(key, record);
+        try {
+            if (!repository.complete(key, owner, booking)) {
+                log.error("{} {} was taken over while booking {} ran; its outcome is not stored", HEADER, key, booking.getId());
+            }
+        } catch (DataAccessException e) {
+            // the booking is made; only other instances lose the ability to replay it
+            log.error("Failed to store booking {} for {} {}: {}", booking.getId(), HEADER, key, e.getMessage());
+        } finally {
+            running.remove(key);
+        }
+    }
+
+    /**
+     * Releases the key after a request that ended in an exception, so it can be retried.
+     */
+    public void abandon(String key) {
+        running.remove(key);
+        try {
+            repository.release(key, owner);
+        } catch (DataAccessException e) {
+            // the lease is no longer renewed, so a retry takes the key over once it lapses
+            log.error("Failed to release {} {}: {}", HEADER, key, e.getMessage());
+        }
+    }
+
+    void renewLeases() {
+        if (running.isEmpty()) {
+            return;
+        }
+        try {
+            repository.renewLeases(List.copyOf(running), owner, leaseEnd());
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew leases of {} {} keys: {}", running.size(), HEADER, e.getMessage());
+        }
+    }
+
+    private Date leaseEnd() {
+        return new Date(System.currentTimeMillis() + lease.toMillis());
+    }
+
+    private static Booking replay(String key, IdempotencyRecord record, String fingerprint) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            throw mismatch(key);
+        }
+        log.info("Returning {} booking {} for repeated {} {}",
+                record.getBooking().getStatus(), record.getBooking().getId(), HEADER, key);
+        return record.getBooking();
+    }
+
+    private static IdempotencyConflictException mismatch(String key) {
+        return new IdempotencyConflictException(HEADER + " " + key + " was already used for a different booking request");
+    }
+
+    static String fingerprint(BookingRequest req) {
+        String canonical = req.getFlightId() + '\n' + req.getPassengerName() + '\n'
+                + req.getEmail() + '\n' + req.getSeats();
+        return DigestUtils.md5DigestAsHex(canonical.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+package com.booking.bookingservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Booking outcomes and the time spent in each local step of a booking. The Feign call to
+ * flightservice is timed separately as http.client.requests, so together they show where
+ * booking latency goes.
+ */
+@Component
+public class BookingMetrics {
+
+    private final Map<String, Counter> outcomes;
+    private final Timer sagaLatency;
+    private final Timer saveLatency;
+
+    public BookingMetrics(MeterRegistry registry) {
+        this.outcomes = Map.of(
+                "CONFIRMED", outcome(registry, "CONFIRMED"),
+                "FAILED", outcome(registry, "FAILED"),
+                "CANCELLED", outcome(registry, "CANCELLED"));
+        this.sagaLatency = step(registry, "saga");
+        this.saveLatency = step(registry, "save");
+    }
+
+    public static BookingMetrics disabled() {
+        return new BookingMetrics(new CompositeMeterRegistry());
+    }
+
+    public void recordOutcome(String status) {
+        recordOutcome(status, 1);
+    }
+
+    public void recordOutcome(String status, int bookings) {
+        Counter counter = outcomes.get(status);
+        if (counter != null) {
+            counter.increment(bookings);
+        }
+    }
+
+    public <T> T timeSaga(Supplier<T> step) {
+        return sagaLatency.record(step);
+    }
+
+    public <T> T timeSave(Supplier<T> step) {
+        return saveLatency.record(step);
+    }
+
+    private static Counter outcome(MeterRegistry registry, String status) {
+        return Counter.builder("booking.outcomes")
+                .description("Bookings by the status they ended in")
+                .tag("status", status)
+                .register(registry);
+    }
+
+    private static Timer step(MeterRegistry registry, String step) {
+        return Timer.builder("booking.step.latency")
+                .description("Time spent in a local step of a booking")
+                .tag("step", step)
+                .register(registry);
+    }
+}
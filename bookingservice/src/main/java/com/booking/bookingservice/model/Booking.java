@@ -1,13 +1,20 @@
 package com.booking.bookingservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
+import java.util.List;
 
 @Data
 @Document(collection = "bookings")
+@CompoundIndex(name = "email_booking_date_idx", def = "{'email': 1, 'bookingDate': -1, '_id': -1}")
+@CompoundIndex(name = "outbox_claim_idx", def = "{'outboxLockedUntil': 1, 'outboxSince': 1}",
+        partialFilter = "{'outboxSince': {$exists: true}}")
 public class Booking {
     @Id
     private String id;
@@ -17,4 +24,21 @@ public class Booking {
     private int seats;
     private String status; // CONFIRMED / CANCELLED
     private Date bookingDate;
+    private String reservationId;
+
+    // notifications not yet relayed to RabbitMQ, see OutboxRelay; internal, so not part of the API
+    @JsonIgnore
+    private List<OutboxMessage> outbox;
+    @JsonIgnore
+    private Date outboxSince;       // when the oldest pending notification was written, null if none
+    @JsonIgnore
+    private String outboxLockedBy;  // relay run that currently owns the pending notifications
+    @JsonIgnore
+    private Date outboxLockedUntil; // null, or when that claim lapses
+
+    // set on the FAILED booking a circuit breaker fallback answers with: nothing was decided, so an
+    // Idempotency-Key is released for a retry instead of remembering it
+    @Transient
+    @JsonIgnore
+    private boolean retryable;
 }
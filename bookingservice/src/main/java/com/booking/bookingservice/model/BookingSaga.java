@@ -0,0 +1,67 @@
+package com.booking.bookingservice.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Seats taken from (or owed back to) flightservice for a booking change that has not finished.
+ * Marked completed once the change is done and removed by Mongo a day later; a saga that is not
+ * completed when its lease lapses is resolved by
+ * {@link com.booking.bookingservice.saga.SagaRecoveryWorker}.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "booking_sagas")
+public class BookingSaga {
+
+    public enum Type {
+        BOOK,   // seats being reserved under reservationId, booking being saved
+        CANCEL  // booking being cancelled, seats to be given back
+    }
+
+    public enum Step {
+        PENDING,      // the request is still running, or died; the booking tells which
+        COMPENSATING, // seats must be given back
+        COMPLETED     // nothing left to do
+    }
+
+    @Id
+    private String id;
+    private Type type;
+    private Step step;
+    private String bookingId;
+    private String flightId;
+    private int seats;
+    private String reservationId;
+    private int attempts;       // failed increaseSeats calls so far
+    private String lastError;
+    private Date createdAt;
+    private String lockedBy;    // recovery run that currently owns this saga
+    private Date lockedUntil;   // the saga is left alone until then
+    @Indexed(name = "completed_at_ttl_idx", expireAfter = "1d")
+    private Date completedAt;
+
+    public BookingSaga(Type type, Booking booking) {
+        this.type = type;
+        this.step = Step.PENDING;
+        this.bookingId = booking.getId();
+        this.flightId = booking.getFlightId();
+        this.seats = booking.getSeats();
+        this.reservationId = booking.getReservationId();
+        this.createdAt = new Date();
+    }
+
+    /**
+     * Id of the release command sent for this saga, the same on every resend. A cancellation's is
+     * derived from the booking, so two cancels of one booking that race past the CONFIRMED check
+     * send the same command and flightservice applies only one of them.
+     */
+    public String commandId() {
+        return type == Type.CANCEL && bookingId != null ? "cancel:" + bookingId : id;
+    }
+}
@@ -0,0 +1,38 @@
+package com.booking.bookingservice.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * The outcome of a POST /booking/create sent with an Idempotency-Key. Inserted before the booking
+ * runs so concurrent duplicates can see it, leased to the instance running it, completed with the
+ * booking afterwards, and removed by a TTL index on createdAt.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+    @Id
+    private String key;
+    private String fingerprint; // hash of the request the key was first used with
+    private Booking booking;    // null while the first request is still running
+    private Date createdAt;
+    private String owner;       // instance running the request
+    private Date leaseUntil;    // renewed by the owner while it runs; null once completed
+
+    public IdempotencyRecord(String key, String fingerprint) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.createdAt = new Date();
+    }
+
+    public IdempotencyRecord(String key, String fingerprint, String owner, Date leaseUntil) {
+        this(key, fingerprint);
+        this.owner = owner;
+        this.leaseUntil = leaseUntil;
+    }
+}
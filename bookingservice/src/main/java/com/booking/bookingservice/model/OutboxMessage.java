@@ -0,0 +1,27 @@
+package com.booking.bookingservice.model;
+
+import com.booking.bookingservice.dto.EmailNotification;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * An email notification waiting to be relayed to RabbitMQ. Kept inside the booking whose change it
+ * describes, so both are stored by one single-document write, and pulled from it once the broker
+ * has confirmed it.
+ */
+@Data
+@NoArgsConstructor
+public class OutboxMessage {
+    private String messageId;
+    private EmailNotification notification;
+    private Date createdAt;
+
+    public OutboxMessage(EmailNotification notification) {
+        this.messageId = UUID.randomUUID().toString();
+        this.notification = notification;
+        this.createdAt = new Date();
+    }
+}
@@ -0,0 +1,56 @@
+package com.booking.bookingservice.outbox;
+
+import com.booking.bookingservice.dto.EmailNotification;
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.OutboxMessage;
+import com.booking.bookingservice.repo.BookingRepository;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Saves bookings together with the notifications they trigger. A notification is stored inside
+ * its booking and reaches RabbitMQ through {@link OutboxRelay}, so the request path only pays for
+ * the Mongo write, and since that write covers a single document the booking and its email are
+ * stored together or not at all, without a transaction.
+ */
+@Component
+public class BookingOutbox {
+
+    private final BookingRepository bookingRepository;
+
+    public BookingOutbox(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    public Booking save(Booking booking, Function<Booking, EmailNotification> notification) {
+        bookingRepository.save(attach(booking, notification));
+        return booking;
+    }
+
+    public List<Booking> saveAll(List<Booking> bookings, Function<Booking, EmailNotification> notification) {
+        bookingRepository.saveAll(bookings.stream().map(booking -> attach(booking, notification)).toList());
+        return bookings;
+    }
+
+    /**
+     * Adds the notification to the booking's outbox, to be stored with the booking's next save.
+     * A booking without an id gets one first, since notifications quote it.
+     */
+    public static Booking attach(Booking booking, Function<Booking, EmailNotification> notification) {
+        if (booking.getId() == null) {
+            booking.setId(new ObjectId().toHexString());
+        }
+        OutboxMessage message = new OutboxMessage(notification.apply(booking));
+        List<OutboxMessage> outbox = booking.getOutbox() != null ? new ArrayList<>(booking.getOutbox()) : new ArrayList<>();
+        outbox.add(message);
+        booking.setOutbox(outbox);
+        if (booking.getOutboxSince() == null) {
+            booking.setOutboxSince(message.getCreatedAt());
+        }
+        return booking;
+    }
+}
@@ -0,0 +1,71 @@
+package com.booking.bookingservice.outbox;
+
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.OutboxMessage;
+import com.booking.bookingservice.producer.EmailProducer;
+import com.booking.bookingservice.repo.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Drains the notifications pending in bookings' outboxes to RabbitMQ. Bookings are claimed in
+ * batches with a lease, their notifications published with broker confirms and only then removed,
+ * so delivery is at-least-once: a relay that dies mid-batch leaves its notifications to be picked
+ * up again once the lease runs out.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    private final BookingRepository bookingRepository;
+    private final EmailProducer emailProducer;
+    private final int batchSize;
+    private final Duration lease;
+
+    public OutboxRelay(BookingRepository bookingRepository,
+                       EmailProducer emailProducer,
+                       @Value("${booking.outbox.batch-size:100}") int batchSize,
+                       @Value("${booking.outbox.lease:30s}") Duration lease) {
+        this.bookingRepository = bookingRepository;
+        this.emailProducer = emailProducer;
+        this.batchSize = batchSize;
+        this.lease = lease;
+    }
+
+    @Scheduled(fixedDelayString = "${booking.outbox.relay-interval-ms:500}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the number of bookings whose notifications were published and removed from their outbox
+     */
+    int relayBatch() {
+        List<Booking> batch = bookingRepository.claimOutbox(batchSize, lease);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        emailProducer.publishConfirmed(batch.stream()
+                .flatMap(booking -> booking.getOutbox().stream())
+                .map(OutboxMessage::getNotification)
+                .toList());
+        bookingRepository.removeRelayed(batch);
+
+        log.debug("Relayed outbox messages of {} bookings", batch.size());
+        return batch.size();
+    }
+}
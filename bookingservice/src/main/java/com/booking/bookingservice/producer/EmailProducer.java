@@ -2,18 +2,64 @@ package com.booking.bookingservice.producer;
 
 import com.booking.bookingservice.config.MQConfig;
 import com.booking.bookingservice.dto.EmailNotification;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes email notifications for {@link com.booking.bookingservice.outbox.OutboxRelay}. A batch
+ * is published on one channel and the broker's confirms are awaited once for the whole batch; a
+ * batch that is not confirmed stays in the outbox and is relayed again.
+ */
 @Component
 public class EmailProducer {
+
     private final RabbitTemplate rabbitTemplate;
+    private final Duration confirmTimeout;
 
-    public EmailProducer(RabbitTemplate rabbitTemplate) {
+    private final AtomicInteger unconfirmed = new AtomicInteger();
+    private final Timer publishLatency;
+
+    public EmailProducer(RabbitTemplate rabbitTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${booking.email.confirm-timeout:5s}") Duration confirmTimeout) {
         this.rabbitTemplate = rabbitTemplate;
+        this.confirmTimeout = confirmTimeout;
+
+        this.publishLatency = Timer.builder("email.publish.latency")
+                .description("Time to publish a batch of notifications and receive broker confirms")
+                .register(meterRegistry);
+        Gauge.builder("email.publish.unconfirmed", unconfirmed, AtomicInteger::get)
+                .description("Notifications sent to the broker and not yet confirmed")
+                .register(meterRegistry);
     }
 
-    public void sendEmail(EmailNotification notification) {
-        rabbitTemplate.convertAndSend(MQConfig.EMAIL_QUEUE, notification);
+    /**
+     * Publishes on the caller thread and returns once the broker has confirmed every notification.
+     *
+     * @throws org.springframework.amqp.AmqpException if the batch was not confirmed in time
+     */
+    public void publishConfirmed(List<EmailNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        unconfirmed.addAndGet(notifications.size());
+        try {
+            publishLatency.record(() -> rabbitTemplate.invoke(ops -> {
+                // one channel for the whole batch and a single wait for all of its confirms
+                notifications.forEach(notification -> ops.convertAndSend(MQConfig.EMAIL_QUEUE, notification));
+                ops.waitForConfirmsOrDie(confirmTimeout.toMillis());
+                return null;
+            }));
+        } finally {
+            unconfirmed.addAndGet(-notifications.size());
+        }
     }
 }
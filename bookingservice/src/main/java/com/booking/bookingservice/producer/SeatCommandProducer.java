@@ -0,0 +1,56 @@
+package com.booking.bookingservice.producer;
+
+import com.booking.bookingservice.config.MQConfig;
+import com.booking.bookingservice.dto.SeatRelease;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Sends seat commands to flightservice over RabbitMQ. A command counts as sent once the broker
+ * has confirmed it; flightservice applies it asynchronously.
+ */
+@Component
+public class SeatCommandProducer {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatCommandProducer.class);
+    private final RabbitTemplate rabbitTemplate;
+    private final Duration confirmTimeout;
+    private final Timer publishLatency;
+
+    public SeatCommandProducer(RabbitTemplate rabbitTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${booking.seat-events.confirm-timeout:5s}") Duration confirmTimeout) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.confirmTimeout = confirmTimeout;
+        this.publishLatency = Timer.builder("seat.release.publish.latency")
+                .description("Time to publish a seat release command and receive the broker confirm")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Releases seats under a command id that is the same every time this release is sent, so
+     * flightservice applies it once however often it is delivered. With a reservation id, the
+     * seats are given back only if that reservation was applied.
+     *
+     * @throws org.springframework.amqp.AmqpException if the broker did not confirm the command in time
+     */
+    public void releaseSeats(String flightId, int seats, @Nullable String reservationId, String commandId) {
+        // without a command id flightservice could not tell a redelivery from a new release
+        SeatRelease release = new SeatRelease(flightId, seats, reservationId, Objects.requireNonNull(commandId, "commandId"));
+        publishLatency.record(() -> rabbitTemplate.invoke(ops -> {
+            ops.convertAndSend(MQConfig.SEAT_EXCHANGE, MQConfig.SEAT_RELEASE_ROUTING_KEY, release);
+            ops.waitForConfirmsOrDie(confirmTimeout.toMillis());
+            return null;
+        }));
+        log.debug("Sent release of {} seats on flight {}", seats, flightId);
+    }
+}
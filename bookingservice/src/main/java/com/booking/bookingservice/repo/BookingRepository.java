@@ -1,10 +1,17 @@
 package com.booking.bookingservice.repo;
 
+import com.booking.bookingservice.dto.BookingSummary;
 import com.booking.bookingservice.model.Booking;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends MongoRepository<Booking, String> {
+public interface BookingRepository extends MongoRepository<Booking, String>, BookingRepositoryCustom {
     List<Booking> findByEmail(String email);
+
+    // cursor-backed; the caller must close the stream
+    Stream<Booking> streamByEmailOrderByBookingDateDesc(String email);
+
+    Stream<BookingSummary> streamSummariesByEmailOrderByBookingDateDesc(String email);
 }
@@ -0,0 +1,35 @@
+package com.booking.bookingservice.repo;
+
+import com.booking.bookingservice.model.Booking;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+
+    /**
+     * Reads up to limit bookings for an email, newest first, starting after the booking
+     * identified by (afterDate, afterId) or from the newest one if afterDate is null. Walks the
+     * {email, bookingDate, _id} index, so every page costs the same however deep it is.
+     *
+     * @param type Booking, or a projection such as BookingSummary
+     */
+    <T> List<T> findHistory(String email, @Nullable Date afterDate, @Nullable String afterId, int limit, Class<T> type);
+
+    /**
+     * Claims up to limit bookings with unrelayed notifications whose outbox is unclaimed (or whose
+     * claim expired), oldest notification first, for the given lease. Bookings another relay claims
+     * concurrently are left out, so each pending notification has one owner.
+     *
+     * @return the claimed bookings, with only their id and outbox read
+     */
+    List<Booking> claimOutbox(int limit, Duration lease);
+
+    /**
+     * Removes the notifications the given bookings held when they were claimed and releases the
+     * claim. Notifications added to a booking since then stay pending.
+     */
+    void removeRelayed(List<Booking> relayed);
+}
@@ -0,0 +1,112 @@
+package com.booking.bookingservice.repo;
+
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.OutboxMessage;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+
+    private static final String OUTBOX = "outbox";
+    private static final String OUTBOX_SINCE = "outboxSince";
+    private static final String OUTBOX_LOCKED_BY = "outboxLockedBy";
+    private static final String OUTBOX_LOCKED_UNTIL = "outboxLockedUntil";
+
+    private final MongoTemplate mongoTemplate;
+
+    public BookingRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public <T> List<T> findHistory(String email, @Nullable Date afterDate, @Nullable String afterId,
+                                   int limit, Class<T> type) {
+        Criteria criteria = Criteria.where("email").is(email);
+        if (afterDate != null) {
+            // strictly after the cursor in (bookingDate desc, _id desc) order
+            criteria = criteria.orOperator(
+                    Criteria.where("bookingDate").lt(afterDate),
+                    Criteria.where("bookingDate").is(afterDate).and("id").lt(afterId));
+        }
+
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Order.desc("bookingDate"), Sort.Order.desc("id")))
+                .limit(limit);
+
+        // a projection type limits the fields read to the ones it declares
+        return mongoTemplate.query(Booking.class)
+                .as(type)
+                .matching(query)
+                .all();
+    }
+
+    @Override
+    public List<Booking> claimOutbox(int limit, Duration lease) {
+        Date now = new Date();
+
+        // walks outbox_claim_idx, which only holds bookings with pending notifications
+        Query candidates = new Query(unclaimedOutbox(now))
+                .with(Sort.by(Sort.Direction.ASC, OUTBOX_SINCE))
+                .limit(limit);
+        candidates.fields().include("id");
+        List<String> ids = mongoTemplate.find(candidates, Booking.class).stream()
+                .map(Booking::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // the unclaimed filter is repeated so bookings grabbed by another relay since the read are skipped
+        String owner = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("id").in(ids)).addCriteria(unclaimedOutbox(now)),
+                new Update().set(OUTBOX_LOCKED_BY, owner).set(OUTBOX_LOCKED_UNTIL, new Date(now.getTime() + lease.toMillis())),
+                Booking.class);
+
+        Query claimed = new Query(Criteria.where(OUTBOX_LOCKED_BY).is(owner)).with(Sort.by(Sort.Direction.ASC, OUTBOX_SINCE));
+        claimed.fields().include("id").include(OUTBOX);
+        return mongoTemplate.find(claimed, Booking.class);
+    }
+
+    @Override
+    public void removeRelayed(List<Booking> relayed) {
+        if (relayed.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+        for (Booking booking : relayed) {
+            List<String> messageIds = booking.getOutbox().stream().map(OutboxMessage::getMessageId).toList();
+            bulk.updateOne(
+                    new Query(Criteria.where("id").is(booking.getId())),
+                    new Update()
+                            .pull(OUTBOX, new Document("messageId", new Document("$in", messageIds)))
+                            .unset(OUTBOX_LOCKED_BY)
+                            .unset(OUTBOX_LOCKED_UNTIL));
+        }
+        bulk.execute();
+
+        // bookings with nothing left to relay drop out of outbox_claim_idx
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("id").in(relayed.stream().map(Booking::getId).toList())
+                        .and(OUTBOX).size(0)),
+                new Update().unset(OUTBOX).unset(OUTBOX_SINCE),
+                Booking.class);
+    }
+
+    private static Criteria unclaimedOutbox(Date now) {
+        return Criteria.where(OUTBOX_SINCE).exists(true).orOperator(
+                Criteria.where(OUTBOX_LOCKED_UNTIL).is(null),
+                Criteria.where(OUTBOX_LOCKED_UNTIL).lte(now));
+    }
+}
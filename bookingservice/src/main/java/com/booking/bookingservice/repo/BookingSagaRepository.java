@@ -0,0 +1,7 @@
+package com.booking.bookingservice.repo;
+
+import com.booking.bookingservice.model.BookingSaga;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface BookingSagaRepository extends MongoRepository<BookingSaga, String>, BookingSagaRepositoryCustom {
+}
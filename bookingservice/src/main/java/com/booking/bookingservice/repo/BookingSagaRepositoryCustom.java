@@ -0,0 +1,24 @@
+package com.booking.bookingservice.repo;
+
+import com.booking.bookingservice.model.BookingSaga;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface BookingSagaRepositoryCustom {
+
+    /**
+     * Claims up to limit uncompleted sagas whose lock has lapsed, oldest first, for the given lease. Sagas
+     * another instance claims concurrently are left out, so each saga has one owner.
+     *
+     * @return the claimed sagas
+     */
+    List<BookingSaga> claimDue(int limit, Duration lease);
+
+    /**
+     * Marks the saga completed in one update, so recovery no longer claims it.
+     *
+     * @return false if it was completed already
+     */
+    boolean complete(String id);
+}
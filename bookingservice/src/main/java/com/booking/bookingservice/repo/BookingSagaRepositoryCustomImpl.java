@@ -0,0 +1,70 @@
+package com.booking.bookingservice.repo;
+
+import com.booking.bookingservice.model.BookingSaga;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+public class BookingSagaRepositoryCustomImpl implements BookingSagaRepositoryCustom {
+
+    private static final String LOCKED_BY = "lockedBy";
+    private static final String LOCKED_UNTIL = "lockedUntil";
+    private static final String STEP = "step";
+
+    private final MongoTemplate mongoTemplate;
+
+    public BookingSagaRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<BookingSaga> claimDue(int limit, Duration lease) {
+        Date now = new Date();
+
+        Query candidates = new Query(due(now))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .limit(limit);
+        candidates.fields().include("id");
+        List<String> ids = mongoTemplate.find(candidates, BookingSaga.class).stream()
+                .map(BookingSaga::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // the due filter is repeated so sagas grabbed by another instance since the read are skipped
+        String owner = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("id").in(ids)).addCriteria(due(now)),
+                new Update().set(LOCKED_BY, owner).set(LOCKED_UNTIL, new Date(now.getTime() + lease.toMillis())),
+                BookingSaga.class);
+
+        return mongoTemplate.find(
+                new Query(Criteria.where(LOCKED_BY).is(owner)).with(Sort.by(Sort.Direction.ASC, "createdAt")),
+                BookingSaga.class);
+    }
+
+    @Override
+    public boolean complete(String id) {
+        return mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(id).and(STEP).ne(BookingSaga.Step.COMPLETED)),
+                new Update().set(STEP, BookingSaga.Step.COMPLETED)
+                        .set("completedAt", new Date())
+                        .unset(LOCKED_BY)
+                        .unset(LOCKED_UNTIL),
+                BookingSaga.class).getModifiedCount() > 0;
+    }
+
+    private static Criteria due(Date now) {
+        return Criteria.where(STEP).ne(BookingSaga.Step.COMPLETED).orOperator(
+                Criteria.where(LOCKED_UNTIL).is(null),
+                Criteria.where(LOCKED_UNTIL).lte(now));
+    }
+}
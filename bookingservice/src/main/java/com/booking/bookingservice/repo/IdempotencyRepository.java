@@ -0,0 +1,7 @@
+package com.booking.bookingservice.repo;
+
+import com.booking.bookingservice.model.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IdempotencyRepository extends MongoRepository<IdempotencyRecord, String>, IdempotencyRepositoryCustom {
+}
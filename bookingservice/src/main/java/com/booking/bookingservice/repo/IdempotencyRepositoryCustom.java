@@ -0,0 +1,35 @@
+package com.booking.bookingservice.repo;
+
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.IdempotencyRecord;
+
+import java.util.Collection;
+import java.util.Date;
+
+public interface IdempotencyRepositoryCustom {
+
+    /**
+     * Takes over a key whose request never completed and whose owner stopped renewing its lease,
+     * i.e. the instance handling it died. Only one caller can take over a given attempt.
+     *
+     * @return the record now owned by owner, or null if the key is completed, still leased or gone
+     */
+    IdempotencyRecord takeOverExpired(String key, String owner, Date now, Date leaseUntil);
+
+    /**
+     * Extends the lease of the given keys that owner still holds and has not completed.
+     */
+    void renewLeases(Collection<String> keys, String owner, Date leaseUntil);
+
+    /**
+     * Stores the outcome of a key's request, if owner still holds the key.
+     *
+     * @return false if the key was taken over or is gone
+     */
+    boolean complete(String key, String owner, Booking booking);
+
+    /**
+     * Removes a key owner holds and has not completed, so the request can be retried.
+     */
+    void release(String key, String owner);
+}
@@ -0,0 +1,61 @@
+package com.booking.bookingservice.repo;
+
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.IdempotencyRecord;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.Date;
+
+public class IdempotencyRepositoryCustomImpl implements IdempotencyRepositoryCustom {
+
+    private static final String BOOKING = "booking";
+    private static final String OWNER = "owner";
+    private static final String LEASE_UNTIL = "leaseUntil";
+
+    private final MongoTemplate mongoTemplate;
+
+    public IdempotencyRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public IdempotencyRecord takeOverExpired(String key, String owner, Date now, Date leaseUntil) {
+        // a record without a lease was written before leases existed and has no owner renewing it
+        Query query = new Query(Criteria.where("key").is(key).and(BOOKING).is(null)
+                .orOperator(Criteria.where(LEASE_UNTIL).lte(now), Criteria.where(LEASE_UNTIL).is(null)));
+
+        return mongoTemplate.findAndModify(
+                query,
+                new Update().set(OWNER, owner).set(LEASE_UNTIL, leaseUntil).set("createdAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                IdempotencyRecord.class);
+    }
+
+    @Override
+    public void renewLeases(Collection<String> keys, String owner, Date leaseUntil) {
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("key").in(keys).and(OWNER).is(owner).and(BOOKING).is(null)),
+                new Update().set(LEASE_UNTIL, leaseUntil),
+                IdempotencyRecord.class);
+    }
+
+    @Override
+    public boolean complete(String key, String owner, Booking booking) {
+        return mongoTemplate.updateFirst(
+                new Query(Criteria.where("key").is(key).and(OWNER).is(owner).and(BOOKING).is(null)),
+                new Update().set(BOOKING, booking).unset(LEASE_UNTIL),
+                IdempotencyRecord.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public void release(String key, String owner) {
+        mongoTemplate.remove(
+                new Query(Criteria.where("key").is(key).and(OWNER).is(owner).and(BOOKING).is(null)),
+                IdempotencyRecord.class);
+    }
+}
@@ -0,0 +1,14 @@
+package com.booking.bookingservice.repo;
+
+import com.booking.bookingservice.dto.BookingSummary;
+import com.booking.bookingservice.model.Booking;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveBookingRepository extends ReactiveMongoRepository<Booking, String> {
+    Flux<Booking> findByEmail(String email);
+
+    Flux<Booking> findByEmailOrderByBookingDateDesc(String email);
+
+    Flux<BookingSummary> findSummariesByEmailOrderByBookingDateDesc(String email);
+}
@@ -0,0 +1,158 @@
+package com.booking.bookingservice.saga;
+
+import com.booking.bookingservice.cache.FlightAvailabilityCache;
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.BookingSaga;
+import com.booking.bookingservice.producer.SeatCommandProducer;
+import com.booking.bookingservice.repo.BookingRepository;
+import com.booking.bookingservice.repo.BookingSagaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Keeps seat changes in flightservice and booking changes in Mongo in step. Before either side is
+ * written, a saga recording the seats involved is stored; it is marked completed once both sides
+ * agree. Seats are given back by sending a release command to flightservice over RabbitMQ, so
+ * neither cancellations nor failed bookings wait for flightservice; a release the broker does not
+ * confirm is kept in booking_sagas and retried with backoff by {@link SagaRecoveryWorker}.
+ * <p>
+ * A booking's seats are reserved under its reservationId, so releasing them for a BOOK saga is
+ * safe whether or not the reservation reached flightservice: seats come back only if it did, and
+ * a reservation that arrives after its release is refused. Every release carries a command id
+ * ({@link BookingSaga#commandId()}), so one the broker delivers again, one resent after an
+ * unconfirmed send, or a second cancellation of the same booking is applied once.
+ */
+@Component
+public class BookingSagaCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingSagaCoordinator.class);
+    private final BookingSagaRepository sagaRepository;
+    private final BookingRepository bookingRepository;
+    private final SeatCommandProducer seatCommands;
+    private final FlightAvailabilityCache availabilityCache;
+    private final Duration lease;
+    private final Duration initialInterval;
+    private final double multiplier;
+    private final Duration maxInterval;
+
+    public BookingSagaCoordinator(BookingSagaRepository sagaRepository,
+                                  BookingRepository bookingRepository,
+                                  SeatCommandProducer seatCommands,
+                                  FlightAvailabilityCache availabilityCache,
+                                  @Value("${booking.saga.lease:30s}") Duration lease,
+                                  @Value("${booking.saga.retry.initial-interval:1s}") Duration initialInterval,
+                                  @Value("${booking.saga.retry.multiplier:2.0}") double multiplier,
+                                  @Value("${booking.saga.retry.max-interval:5m}") Duration maxInterval) {
+        this.sagaRepository = sagaRepository;
+        this.bookingRepository = bookingRepository;
+        this.seatCommands = seatCommands;
+        this.availabilityCache = availabilityCache;
+        this.lease = lease;
+        this.initialInterval = initialInterval;
+        this.multiplier = multiplier;
+        this.maxInterval = maxInterval;
+    }
+
+    /**
+     * Records a booking change that is about to be written; for a booking, before its seats are
+     * reserved. The caller owns the saga for the lease; if it has not completed or compensated it
+     * by then, recovery looks at the booking to decide whether the seats have to be given back.
+     */
+    public BookingSaga begin(BookingSaga.Type type, Booking booking) {
+        BookingSaga saga = new BookingSaga(type, booking);
+        saga.setLockedUntil(new Date(System.currentTimeMillis() + lease.toMillis()));
+        sagaRepository.insert(saga);
+        return saga;
+    }
+
+    /**
+     * The booking change is written and the seats match it.
+     */
+    public void complete(BookingSaga saga) {
+        if (saga.getId() == null) {
+            return;
+        }
+        try {
+            sagaRepository.complete(saga.getId());
+        } catch (RuntimeException e) {
+            // recovery claims the saga again: a pending one is settled by the booking's state, and a
+            // release sent again for a BOOK saga is matched to its reservation in flightservice
+            log.warn("Failed to mark saga {} completed, recovery will finish it: {}", saga.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Gives the saga's seats back to flightservice. A release that cannot be sent is stored and
+     * retried later, so callers never have to handle it.
+     */
+    public void compensate(BookingSaga saga) {
+        // a cancelled booking's seats are given back outright, as its reservation may predate the
+        // ledger; the command id keeps a resent release from giving them back twice
+        String reservationId = saga.getType() == BookingSaga.Type.BOOK ? saga.getReservationId() : null;
+        try {
+            seatCommands.releaseSeats(saga.getFlightId(), saga.getSeats(), reservationId, saga.commandId());
+        } catch (RuntimeException e) {
+            scheduleRetry(saga, e);
+            return;
+        }
+
+        availabilityCache.onSeatsReleased(saga.getFlightId());
+        if (saga.getAttempts() > 0) {
+            log.info("Released {} seats on flight {} after {} failed attempts",
+                    saga.getSeats(), saga.getFlightId(), saga.getAttempts());
+        }
+        complete(saga);
+    }
+
+    /**
+     * Finishes a saga whose owner gave up on it or died: seats owed back are released, and a
+     * pending saga is compensated only if the booking did not end up in the state it was after.
+     */
+    void recover(BookingSaga saga) {
+        if (saga.getStep() == BookingSaga.Step.PENDING && !needsCompensation(saga)) {
+            complete(saga);
+            return;
+        }
+        if (saga.getStep() == BookingSaga.Step.PENDING) {
+            log.warn("Recovering {} saga for booking {}: releasing {} seats on flight {}",
+                    saga.getType(), saga.getBookingId(), saga.getSeats(), saga.getFlightId());
+        }
+        compensate(saga);
+    }
+
+    private boolean needsCompensation(BookingSaga saga) {
+        Optional<Booking> booking = bookingRepository.findById(saga.getBookingId());
+        if (saga.getType() == BookingSaga.Type.BOOK) {
+            return booking.isEmpty();
+        }
+        return booking.map(b -> "CANCELLED".equals(b.getStatus())).orElse(false);
+    }
+
+    private void scheduleRetry(BookingSaga saga, RuntimeException cause) {
+        saga.setStep(BookingSaga.Step.COMPENSATING);
+        saga.setAttempts(saga.getAttempts() + 1);
+        saga.setLastError(cause.getMessage());
+        saga.setLockedBy(null);
+        saga.setLockedUntil(new Date(System.currentTimeMillis() + backoff(saga.getAttempts()).toMillis()));
+
+        log.warn("Failed to release {} seats on flight {} (attempt {}), retrying at {}: {}",
+                saga.getSeats(), saga.getFlightId(), saga.getAttempts(), saga.getLockedUntil(), cause.getMessage());
+        try {
+            sagaRepository.save(saga);
+        } catch (RuntimeException e) {
+            log.error("Could not store release of {} seats on flight {}, they must be released by hand: {}",
+                    saga.getSeats(), saga.getFlightId(), e.getMessage());
+        }
+    }
+
+    Duration backoff(int attempts) {
+        double millis = initialInterval.toMillis() * Math.pow(multiplier, attempts - 1);
+        return millis >= maxInterval.toMillis() ? maxInterval : Duration.ofMillis((long) millis);
+    }
+}
@@ -0,0 +1,66 @@
+package com.booking.bookingservice.saga;
+
+import com.booking.bookingservice.model.BookingSaga;
+import com.booking.bookingservice.repo.BookingSagaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Resolves sagas nobody is working on: releases that are due for another attempt, and sagas left
+ * behind by a request or instance that died mid-way. Runs from startup, so an instance coming back
+ * up replays what it left unfinished as soon as the leases lapse; sagas are claimed with a lease
+ * so several instances can run it side by side.
+ */
+@Component
+public class SagaRecoveryWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaRecoveryWorker.class);
+    private final BookingSagaRepository sagaRepository;
+    private final BookingSagaCoordinator coordinator;
+    private final int batchSize;
+    private final Duration lease;
+
+    public SagaRecoveryWorker(BookingSagaRepository sagaRepository,
+                              BookingSagaCoordinator coordinator,
+                              @Value("${booking.saga.batch-size:100}") int batchSize,
+                              @Value("${booking.saga.lease:30s}") Duration lease) {
+        this.sagaRepository = sagaRepository;
+        this.coordinator = coordinator;
+        this.batchSize = batchSize;
+        this.lease = lease;
+    }
+
+    @Scheduled(fixedDelayString = "${booking.saga.recovery-interval-ms:1000}")
+    public void recover() {
+        try {
+            int claimed;
+            do {
+                claimed = recoverBatch();
+            } while (claimed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Saga recovery failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the number of sagas claimed
+     */
+    int recoverBatch() {
+        List<BookingSaga> batch = sagaRepository.claimDue(batchSize, lease);
+        for (BookingSaga saga : batch) {
+            try {
+                coordinator.recover(saga);
+            } catch (RuntimeException e) {
+                // left claimed; picked up again when the lease runs out
+                log.warn("Could not recover saga {}: {}", saga.getId(), e.getMessage());
+            }
+        }
+        return batch.size();
+    }
+}
@@ -1,54 +1,370 @@
 package com.booking.bookingservice.service;
 
+import com.booking.bookingservice.cache.FlightAvailabilityCache;
+import com.booking.bookingservice.dto.BatchBookingResult;
+import com.booking.bookingservice.dto.BookingHistoryPage;
 import com.booking.bookingservice.dto.BookingRequest;
+import com.booking.bookingservice.dto.BookingSummary;
 import com.booking.bookingservice.dto.EmailNotification;
+import com.booking.bookingservice.dto.SeatReservation;
 import com.booking.bookingservice.feign.FlightClient;
+import com.booking.bookingservice.metrics.BookingMetrics;
 import com.booking.bookingservice.model.Booking;
-import com.booking.bookingservice.producer.EmailProducer;
+import com.booking.bookingservice.model.BookingSaga;
+import com.booking.bookingservice.outbox.BookingOutbox;
 import com.booking.bookingservice.repo.BookingRepository;
+import com.booking.bookingservice.saga.BookingSagaCoordinator;
 import com.booking.bookingservice.exception.BookingNotFoundException;
 import com.booking.bookingservice.exception.FlightServiceDownException;
 
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class BookingService {
 
     private static final Logger log = LoggerFactory.getLogger(BookingService.class);
+    private static final String NOT_ENOUGH_SEATS = "Not enough available seats";
+    private static final int MAX_PAGE_SIZE = 100;
     private final BookingRepository repository;
     private final FlightClient flightClient;
-    private final EmailProducer emailProducer;
+    private final BookingOutbox outbox;
+    private final BookingSagaCoordinator sagas;
+    private final FlightAvailabilityCache availabilityCache;
+    private final BookingMetrics metrics;
 
     public BookingService(BookingRepository repository,
                           FlightClient flightClient,
-                          EmailProducer emailProducer) {
+                          BookingOutbox outbox,
+                          BookingSagaCoordinator sagas) {
+        this(repository, flightClient, outbox, sagas, FlightAvailabilityCache.disabled());
+    }
+
+    public BookingService(BookingRepository repository,
+                          FlightClient flightClient,
+                          BookingOutbox outbox,
+                          BookingSagaCoordinator sagas,
+                          FlightAvailabilityCache availabilityCache) {
+        this(repository, flightClient, outbox, sagas, availabilityCache, BookingMetrics.disabled());
+    }
+
+    @Autowired
+    public BookingService(BookingRepository repository,
+                          FlightClient flightClient,
+                          BookingOutbox outbox,
+                          BookingSagaCoordinator sagas,
+                          FlightAvailabilityCache availabilityCache,
+                          BookingMetrics metrics) {
         this.repository = repository;
         this.flightClient = flightClient;
-        this.emailProducer = emailProducer;
+        this.outbox = outbox;
+        this.sagas = sagas;
+        this.availabilityCache = availabilityCache;
+        this.metrics = metrics;
     }
 
     @CircuitBreaker(name = "flightservice", fallbackMethod = "bookFallback")
     public Booking bookTicket(BookingRequest req) {
+        Booking booking;
+        try {
+            booking = book(req);
+        } catch (RuntimeException e) {
+            metrics.recordOutcome("FAILED");
+            throw e;
+        }
+        metrics.recordOutcome(booking.getStatus());
+        return booking;
+    }
+
+    private Booking book(BookingRequest req) {
         log.info("Attempt to book {} seats on flight {}", req.getSeats(), req.getFlightId());
 
-        boolean available = flightClient.checkAvailability(req.getFlightId());
+        if (!availabilityCache.mightHaveSeats(req.getFlightId(), req.getSeats())) {
+            // known sold out: answer locally, without a Feign call or a circuit breaker failure
+            log.info("Flight {} has fewer than {} seats left, rejecting without calling flightservice",
+                    req.getFlightId(), req.getSeats());
+            return failedBooking(req);
+        }
 
-        if (!available) {
-            // If service is down, fallback returned false => detect that
-            throw new FlightServiceDownException("Flight Service is DOWN");
+        Booking booking = confirmedBooking(req);
+        booking.setId(new ObjectId().toHexString()); // known up front so the saga can find the booking
+        // the reservation is made under the booking id, so a release can be matched to it
+        booking.setReservationId(booking.getId());
+
+        // stored before anything is reserved, so a crash at any later point leaves a saga to recover
+        BookingSaga saga = metrics.timeSaga(() -> sagas.begin(BookingSaga.Type.BOOK, booking));
+
+        // single round trip: availability check and seat decrement happen atomically in flightservice
+        SeatReservation reservation;
+        try {
+            reservation = flightClient.reserveSeats(req.getFlightId(), req.getSeats(), booking.getReservationId());
+        } catch (RuntimeException e) {
+            // the reserve may have gone through before the call failed
+            sagas.compensate(saga);
+            throw e;
+        }
+
+        if (reservation != null) {
+            availabilityCache.onSeatChange(req.getFlightId(), reservation.getRemainingSeats());
         }
 
-        boolean reduced = flightClient.reduceSeats(req.getFlightId(), req.getSeats());
-        if (!reduced) {
+        if (reservation == null || !reservation.isReserved()) {
+            if (reservedNothing(reservation)) {
+                sagas.complete(saga);
+            } else {
+                sagas.compensate(saga); // the call may have reached flightservice before it failed
+            }
+            // If service is down, fallback returned a rejected reservation => detect that
             throw new FlightServiceDownException("Flight Service is DOWN");
         }
 
+        try {
+            // the confirmation email is written to the outbox with the booking and relayed to RabbitMQ later
+            metrics.timeSave(() -> outbox.save(booking, BookingService::confirmationEmail));
+        } catch (RuntimeException e) {
+            log.error("Failed to save booking {}, releasing {} seats: {}", booking.getId(), req.getSeats(), e.getMessage());
+            sagas.compensate(saga);
+            throw e;
+        }
+        sagas.complete(saga);
+
+        log.info("Booking successful: {}", booking.getId());
+        return booking;
+    }
+
+    /**
+     * True for a rejection flightservice sent itself, which carries the seats it has left; a
+     * degraded call has no count and may have reserved before it failed.
+     */
+    static boolean reservedNothing(@Nullable SeatReservation reservation) {
+        return reservation != null && !reservation.isReserved() && reservation.getRemainingSeats() >= 0;
+    }
+
+    @CircuitBreaker(name = "flightservice", fallbackMethod = "bookBatchFallback")
+    public List<BatchBookingResult> bookBatch(List<BookingRequest> requests) {
+        List<BatchBookingResult> results;
+        try {
+            results = batch(requests);
+        } catch (RuntimeException e) {
+            metrics.recordOutcome("FAILED", requests.size());
+            throw e;
+        }
+        results.forEach(result -> metrics.recordOutcome(result.getStatus()));
+        return results;
+    }
+
+    private List<BatchBookingResult> batch(List<BookingRequest> requests) {
+        log.info("Attempt to book batch of {} requests", requests.size());
+
+        BatchBookingResult[] results = new BatchBookingResult[requests.size()];
+        Map<String, List<Integer>> byFlight = new LinkedHashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest req = requests.get(i);
+            if (req.getFlightId() == null || req.getSeats() <= 0) {
+                results[i] = failedResult(i, req, "Invalid booking request");
+            } else {
+                byFlight.computeIfAbsent(req.getFlightId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // one reservation per flight covers every booking in the batch for that flight
+        List<Booking> bookings = new ArrayList<>();
+        List<Integer> bookingIndexes = new ArrayList<>();
+        List<BookingSaga> reserved = new ArrayList<>();
+
+        byFlight.forEach((flightId, indexes) -> {
+            BookingSaga saga;
+            try {
+                saga = reserveGroup(flightId, indexes, requests, results);
+            } catch (RuntimeException e) {
+                // only this flight failed; seats already reserved for the others stay with their bookings
+                log.warn("Reserving seats on flight {} failed, failing its {} bookings: {}",
+                        flightId, indexes.size(), e.toString());
+                indexes.forEach(i -> results[i] = failedResult(i, requests.get(i), "Could not reserve seats"));
+                return;
+            }
+            if (saga == null) {
+                return;
+            }
+            reserved.add(saga);
+            Booking last = null;
+            for (int i : indexes) {
+                if (results[i] == null) {
+                    last = confirmedBooking(requests.get(i));
+                    last.setReservationId(saga.getReservationId());
+                    bookings.add(last);
+                    bookingIndexes.add(i);
+                }
+            }
+            // saved after the rest of its group, so recovery finds it only if the whole group was saved
+            last.setId(saga.getBookingId());
+        });
+
+        if (bookings.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        try {
+            outbox.saveAll(bookings, BookingService::confirmationEmail);
+        } catch (RuntimeException e) {
+            log.error("Failed to save batch of {} bookings, releasing seats: {}", bookings.size(), e.getMessage());
+            reserved.forEach(sagas::compensate);
+            bookingIndexes.forEach(i -> results[i] = failedResult(i, requests.get(i), "Could not save booking"));
+            return Arrays.asList(results);
+        }
+        reserved.forEach(sagas::complete);
+
+        for (int n = 0; n < bookings.size(); n++) {
+            Booking booking = bookings.get(n);
+            int i = bookingIndexes.get(n);
+            results[i] = new BatchBookingResult(i, booking.getStatus(), booking, null);
+        }
+
+        log.info("Batch booking done: {} of {} confirmed", bookings.size(), requests.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Reserves seats for every request of one flight in a single call. If the flight cannot take
+     * all of them, the requests that fit into the remaining seats are reserved with one more call,
+     * in batch order. Requests left out are marked failed in results. Like a single booking, each
+     * call reserves under its own reservation id and saga, begun before the call.
+     *
+     * @return the saga of the reservation covering the accepted requests, or null if none were accepted
+     */
+    private BookingSaga reserveGroup(String flightId, List<Integer> indexes,
+                                     List<BookingRequest> requests, BatchBookingResult[] results) {
+        int smallest = indexes.stream().mapToInt(i -> requests.get(i).getSeats()).min().orElse(0);
+        if (!availabilityCache.mightHaveSeats(flightId, smallest)) {
+            indexes.forEach(i -> results[i] = failedResult(i, requests.get(i), NOT_ENOUGH_SEATS));
+            return null;
+        }
+
+        int total = indexes.stream().mapToInt(i -> requests.get(i).getSeats()).sum();
+        BookingSaga saga = beginGroup(flightId, total);
+        SeatReservation reservation = reserveGroupSeats(saga);
+        if (reservation != null && reservation.isReserved()) {
+            return saga;
+        }
+
+        if (!reservedNothing(reservation)) {
+            sagas.compensate(saga); // the call may have reached flightservice before it failed
+            indexes.forEach(i -> results[i] = failedResult(i, requests.get(i), "Flight Service is DOWN"));
+            return null;
+        }
+        sagas.complete(saga);
+
+        int remaining = reservation.getRemainingSeats();
+        List<Integer> fitting = new ArrayList<>();
+        int fittingSeats = 0;
+        for (int i : indexes) {
+            int seats = requests.get(i).getSeats();
+            if (fittingSeats + seats <= remaining) {
+                fitting.add(i);
+                fittingSeats += seats;
+            }
+        }
+
+        BookingSaga partialSaga = null;
+        boolean partialReserved = false;
+        if (!fitting.isEmpty()) {
+            partialSaga = beginGroup(flightId, fittingSeats);
+            SeatReservation partial = reserveGroupSeats(partialSaga);
+            partialReserved = partial != null && partial.isReserved();
+            if (!partialReserved && reservedNothing(partial)) {
+                sagas.complete(partialSaga);
+            } else if (!partialReserved) {
+                sagas.compensate(partialSaga);
+            }
+        }
+
+        for (int i : indexes) {
+            if (!partialReserved || !fitting.contains(i)) {
+                results[i] = failedResult(i, requests.get(i), NOT_ENOUGH_SEATS);
+            }
+        }
+        return partialReserved ? partialSaga : null;
+    }
+
+    // the saga's booking id is given to the last booking of the group, as batch saves run in order
+    private BookingSaga beginGroup(String flightId, int seats) {
+        Booking group = new Booking();
+        group.setId(new ObjectId().toHexString());
+        group.setReservationId(group.getId());
+        group.setFlightId(flightId);
+        group.setSeats(seats);
+        return metrics.timeSaga(() -> sagas.begin(BookingSaga.Type.BOOK, group));
+    }
+
+    private SeatReservation reserveGroupSeats(BookingSaga saga) {
+        SeatReservation reservation;
+        try {
+            reservation = flightClient.reserveSeats(saga.getFlightId(), saga.getSeats(), saga.getReservationId());
+        } catch (RuntimeException e) {
+            // the reserve may have gone through before the call failed
+            sagas.compensate(saga);
+            throw e;
+        }
+        if (reservation != null) {
+            availabilityCache.onSeatChange(saga.getFlightId(), reservation.getRemainingSeats());
+        }
+        return reservation;
+    }
+
+    public List<BatchBookingResult> bookBatchFallback(List<BookingRequest> requests, Throwable ex) {
+        log.warn("Batch fallback triggered due to: {}", ex.toString());
+        if (ex instanceof CallNotPermittedException) {
+            // bookBatch never ran, so its outcome has not been counted
+            metrics.recordOutcome("FAILED", requests.size());
+        }
+
+        List<BatchBookingResult> results = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(failedResult(i, requests.get(i), "Flight Service is DOWN"));
+        }
+        return results;
+    }
+
+    private static BatchBookingResult failedResult(int index, BookingRequest req, String error) {
+        return new BatchBookingResult(index, "FAILED", failedBooking(req), error);
+    }
+
+    // Fallback for circuit breaker
+    public Booking bookFallback(BookingRequest req, Throwable ex) {
+        log.warn("Fallback triggered due to: {}", ex.toString());
+        if (ex instanceof CallNotPermittedException) {
+            // bookTicket never ran, so its outcome has not been counted
+            metrics.recordOutcome("FAILED");
+        }
+        return retryableFailure(req);
+    }
+
+    // a fallback answer: flightservice was down or the call failed, so the booking may go through on a retry
+    static Booking retryableFailure(BookingRequest req) {
+        Booking booking = failedBooking(req);
+        booking.setRetryable(true);
+        return booking;
+    }
+
+    static Booking confirmedBooking(BookingRequest req) {
         Booking booking = new Booking();
         booking.setFlightId(req.getFlightId());
         booking.setPassengerName(req.getPassengerName());
@@ -56,33 +372,35 @@ public class BookingService {
         booking.setSeats(req.getSeats());
         booking.setStatus("CONFIRMED");
         booking.setBookingDate(new Date());
+        return booking;
+    }
 
-        repository.save(booking);
-
-        // send email notification via RabbitMQ
-        emailProducer.sendEmail(new EmailNotification(
+    static EmailNotification confirmationEmail(Booking booking) {
+        return new EmailNotification(
                 booking.getEmail(),
                 "Booking Confirmed",
                 "Your booking for flight " + booking.getFlightId() + " is confirmed. Booking id: " + booking.getId()
-        ));
-
-        log.info("Booking successful: {}", booking.getId());
-        return booking;
+        );
     }
 
-    // Fallback for circuit breaker
-    public Booking bookFallback(BookingRequest req, Throwable ex) {
-        log.warn("Fallback triggered due to: {}", ex.toString());
+    static EmailNotification cancellationEmail(Booking booking) {
+        return new EmailNotification(
+                booking.getEmail(),
+                "Booking Cancelled",
+                "Your booking " + booking.getId() + " has been cancelled"
+        );
+    }
 
-        Booking fallbackBooking = new Booking();
-        fallbackBooking.setPassengerName(req.getPassengerName());
-        fallbackBooking.setEmail(req.getEmail());
-        fallbackBooking.setFlightId(req.getFlightId());
-        fallbackBooking.setSeats(req.getSeats());
-        fallbackBooking.setStatus("FAILED");
-        fallbackBooking.setBookingDate(new Date());
+    static Booking failedBooking(BookingRequest req) {
+        Booking failedBooking = new Booking();
+        failedBooking.setPassengerName(req.getPassengerName());
+        failedBooking.setEmail(req.getEmail());
+        failedBooking.setFlightId(req.getFlightId());
+        failedBooking.setSeats(req.getSeats());
+        failedBooking.setStatus("FAILED");
+        failedBooking.setBookingDate(new Date());
 
-        return fallbackBooking; 
+        return failedBooking;
     }
 
 
@@ -92,18 +410,18 @@ public class BookingService {
             return booking;
         }
 
+        BookingSaga saga = sagas.begin(BookingSaga.Type.CANCEL, booking);
         booking.setStatus("CANCELLED");
-        repository.save(booking);
-
-        // restore seats
-        flightClient.increaseSeats(booking.getFlightId(), booking.getSeats());
+        try {
+            outbox.save(booking, BookingService::cancellationEmail);
+        } catch (RuntimeException e) {
+            sagas.complete(saga); // still booked, nothing to give back
+            throw e;
+        }
 
-        // optional: send cancellation email
-        emailProducer.sendEmail(new EmailNotification(
-                booking.getEmail(),
-                "Booking Cancelled",
-                "Your booking " + booking.getId() + " has been cancelled"
-        ));
+        // restore seats: a release command to flightservice, retried in the background if it cannot be sent
+        sagas.compensate(saga);
+        metrics.recordOutcome("CANCELLED");
 
         return booking;
     }
@@ -115,4 +433,63 @@ public class BookingService {
     public List<Booking> getBookingsByEmail(String email) {
         return repository.findByEmail(email);
     }
+
+    public BookingHistoryPage<Booking> getHistoryPage(String email, @Nullable String cursor, int size) {
+        return historyPage(email, cursor, size, Booking.class, Booking::getBookingDate, Booking::getId);
+    }
+
+    public BookingHistoryPage<BookingSummary> getHistorySummaryPage(String email, @Nullable String cursor, int size) {
+        return historyPage(email, cursor, size, BookingSummary.class, BookingSummary::getBookingDate, BookingSummary::getId);
+    }
+
+    // the caller owns the returned streams and must close them to release the cursor
+    public Stream<Booking> streamHistory(String email) {
+        log.info("Streaming booking history for {}", email);
+        return repository.streamByEmailOrderByBookingDateDesc(email);
+    }
+
+    public Stream<BookingSummary> streamHistorySummaries(String email) {
+        log.info("Streaming booking history summaries for {}", email);
+        return repository.streamSummariesByEmailOrderByBookingDateDesc(email);
+    }
+
+    private <T> BookingHistoryPage<T> historyPage(String email, @Nullable String cursor, int size, Class<T> type,
+                                                  Function<T, Date> bookingDate, Function<T, String> id) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Date afterDate = null;
+        String afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterDate = new Date(Long.parseLong(position[0]));
+            afterId = position[1];
+        }
+
+        // one row more than the page tells whether there is a next page, without counting
+        List<T> rows = repository.findHistory(email, afterDate, afterId, limit + 1, type);
+        if (rows.size() <= limit) {
+            return new BookingHistoryPage<>(rows, null);
+        }
+
+        List<T> page = new ArrayList<>(rows.subList(0, limit));
+        T last = page.get(limit - 1);
+        return new BookingHistoryPage<>(page, encodeCursor(bookingDate.apply(last), id.apply(last)));
+    }
+
+    static String encodeCursor(Date bookingDate, String id) {
+        String position = bookingDate.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 2);
+            if (position.length != 2 || position[1].isEmpty()) {
+                throw new IllegalArgumentException();
+            }
+            Long.parseLong(position[0]); // NumberFormatException is an IllegalArgumentException
+            return position;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid cursor: " + cursor);
+        }
+    }
 }
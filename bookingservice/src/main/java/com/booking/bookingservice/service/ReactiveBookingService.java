@@ -0,0 +1,148 @@
+package com.booking.bookingservice.service;
+
+import com.booking.bookingservice.cache.FlightAvailabilityCache;
+import com.booking.bookingservice.client.ReactiveFlightClient;
+import com.booking.bookingservice.dto.BookingRequest;
+import com.booking.bookingservice.dto.BookingSummary;
+import com.booking.bookingservice.dto.SeatReservation;
+import com.booking.bookingservice.exception.BookingNotFoundException;
+import com.booking.bookingservice.exception.FlightServiceDownException;
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.BookingSaga;
+import com.booking.bookingservice.outbox.BookingOutbox;
+import com.booking.bookingservice.repo.ReactiveBookingRepository;
+import com.booking.bookingservice.saga.BookingSagaCoordinator;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking booking flow: reactive Mongo for bookings and WebClient for flightservice, so a
+ * booking waiting on I/O does not hold a request thread. Enabled with booking.reactive.enabled=true.
+ * <p>
+ * Bookings and cancellations go through the same {@link BookingSagaCoordinator} as the blocking flow. Its Mongo and
+ * RabbitMQ calls block, so they run on the bounded elastic scheduler.
+ */
+@Service
+@ConditionalOnProperty(name = "booking.reactive.enabled", havingValue = "true")
+public class ReactiveBookingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveBookingService.class);
+    private final ReactiveBookingRepository repository;
+    private final ReactiveFlightClient flightClient;
+    private final BookingSagaCoordinator sagas;
+    private final FlightAvailabilityCache availabilityCache;
+
+    public ReactiveBookingService(ReactiveBookingRepository repository,
+                                  ReactiveFlightClient flightClient,
+                                  BookingSagaCoordinator sagas,
+                                  FlightAvailabilityCache availabilityCache) {
+        this.repository = repository;
+        this.flightClient = flightClient;
+        this.sagas = sagas;
+        this.availabilityCache = availabilityCache;
+    }
+
+    @CircuitBreaker(name = "flightservice", fallbackMethod = "bookFallback")
+    public Mono<Booking> bookTicket(BookingRequest req) {
+        return Mono.defer(() -> {
+            log.info("Attempt to book {} seats on flight {}", req.getSeats(), req.getFlightId());
+
+            if (!availabilityCache.mightHaveSeats(req.getFlightId(), req.getSeats())) {
+                log.info("Flight {} has fewer than {} seats left, rejecting without calling flightservice",
+                        req.getFlightId(), req.getSeats());
+                return Mono.just(BookingService.failedBooking(req));
+            }
+
+            Booking booking = BookingService.confirmedBooking(req);
+            booking.setId(new ObjectId().toHexString());
+            booking.setReservationId(booking.getId());
+
+            // as in BookingService: the saga is stored before anything is reserved
+            return blocking(() -> sagas.begin(BookingSaga.Type.BOOK, booking))
+                    .flatMap(saga -> flightClient.reserveSeats(req.getFlightId(), req.getSeats(), booking.getReservationId())
+                            .doOnNext(reservation -> availabilityCache.onSeatChange(
+                                    req.getFlightId(), reservation.getRemainingSeats()))
+                            .flatMap(reservation -> reservation.isReserved()
+                                    ? save(booking, saga)
+                                    : rejected(reservation, saga)))
+                    .doOnNext(saved -> log.info("Booking successful: {}", saved.getId()));
+        });
+    }
+
+    private Mono<Booking> save(Booking booking, BookingSaga saga) {
+        // the confirmation email is stored with the booking and relayed to RabbitMQ later
+        return repository.save(BookingOutbox.attach(booking, BookingService::confirmationEmail))
+                .onErrorResume(e -> {
+                    log.error("Failed to save booking {}, releasing {} seats: {}",
+                            booking.getId(), booking.getSeats(), e.getMessage());
+                    return blocking(() -> sagas.compensate(saga)).then(Mono.error(e));
+                })
+                .flatMap(saved -> blocking(() -> sagas.complete(saga)).thenReturn(saved));
+    }
+
+    private Mono<Booking> rejected(SeatReservation reservation, BookingSaga saga) {
+        // a degraded call has no seat count and may have reserved before it failed
+        Runnable settle = BookingService.reservedNothing(reservation)
+                ? () -> sagas.complete(saga)
+                : () -> sagas.compensate(saga);
+        return blocking(settle).then(Mono.error(new FlightServiceDownException("Flight Service is DOWN")));
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static Mono<Void> blocking(Runnable call) {
+        return Mono.<Void>fromRunnable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Fallback for circuit breaker
+    public Mono<Booking> bookFallback(BookingRequest req, Throwable ex) {
+        log.warn("Fallback triggered due to: {}", ex.toString());
+        return Mono.just(BookingService.retryableFailure(req));
+    }
+
+    public Mono<Booking> cancelBooking(String id) {
+        return getBooking(id).flatMap(booking -> {
+            if ("CANCELLED".equals(booking.getStatus())) {
+                return Mono.just(booking);
+            }
+
+            // as in BookingService: the seats go back through a release command the saga retries
+            return blocking(() -> sagas.begin(BookingSaga.Type.CANCEL, booking))
+                    .flatMap(saga -> {
+                        booking.setStatus("CANCELLED");
+                        return repository.save(BookingOutbox.attach(booking, BookingService::cancellationEmail))
+                                .onErrorResume(e -> blocking(() -> sagas.complete(saga)) // still booked
+                                        .then(Mono.error(e)))
+                                .flatMap(saved -> blocking(() -> sagas.compensate(saga)).thenReturn(saved));
+                    });
+        });
+    }
+
+    public Mono<Booking> getBooking(String id) {
+        return repository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new BookingNotFoundException(id)));
+    }
+
+    public Flux<Booking> getBookingsByEmail(String email) {
+        return repository.findByEmail(email);
+    }
+
+    public Flux<Booking> streamHistory(String email) {
+        return repository.findByEmailOrderByBookingDateDesc(email);
+    }
+
+    public Flux<BookingSummary> streamHistorySummaries(String email) {
+        return repository.findSummariesByEmailOrderByBookingDateDesc(email);
+    }
+}
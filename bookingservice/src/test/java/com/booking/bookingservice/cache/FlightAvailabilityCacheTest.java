@@ -0,0 +1,64 @@
+package com.booking.bookingservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightAvailabilityCacheTest {
+
+    private final FlightAvailabilityCache cache = new FlightAvailabilityCache(Duration.ofMinutes(1), 10, 100);
+
+    @Test
+    void testUnknownFlightMightHaveSeats() {
+        assertTrue(cache.mightHaveSeats("FL1", 5));
+    }
+
+    @Test
+    void testSoldOutFlightRejected() {
+        cache.onSeatChange("FL1", 0);
+
+        assertFalse(cache.mightHaveSeats("FL1", 1));
+    }
+
+    @Test
+    void testNearSoldOutFlightRejectsOnlyLargerRequests() {
+        cache.onSeatChange("FL1", 3);
+
+        assertTrue(cache.mightHaveSeats("FL1", 3));
+        assertFalse(cache.mightHaveSeats("FL1", 4));
+    }
+
+    @Test
+    void testPlentyOfSeatsNotRemembered() {
+        cache.onSeatChange("FL1", 0);
+        cache.onSeatChange("FL1", 50);
+
+        assertTrue(cache.mightHaveSeats("FL1", 40));
+    }
+
+    @Test
+    void testUnknownCountForgetsFlight() {
+        cache.onSeatChange("FL1", 0);
+        cache.onSeatChange("FL1", -1);
+
+        assertTrue(cache.mightHaveSeats("FL1", 1));
+    }
+
+    @Test
+    void testReleaseForgetsFlight() {
+        cache.onSeatChange("FL1", 0);
+        cache.onSeatsReleased("FL1");
+
+        assertTrue(cache.mightHaveSeats("FL1", 1));
+    }
+
+    @Test
+    void testDisabledCacheNeverRejects() {
+        FlightAvailabilityCache disabled = FlightAvailabilityCache.disabled();
+        disabled.onSeatChange("FL1", 0);
+
+        assertTrue(disabled.mightHaveSeats("FL1", 1));
+    }
+}
@@ -0,0 +1,41 @@
+package com.booking.bookingservice.config;
+
+import com.booking.bookingservice.dto.SeatReservation;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightClientEncodingConfigTest {
+
+    @Test
+    void testFlightClientAsksForSmileAndDecodesIt() throws Exception {
+        RequestTemplate template = new RequestTemplate();
+        new FlightClientEncodingConfig().acceptSmile().apply(template);
+
+        assertEquals(List.of(FlightClientEncodingConfig.SMILE_FIRST), List.copyOf(template.headers().get("Accept")));
+
+        // what flightservice answers with when it honours the Accept header
+        SeatReservation sent = new SeatReservation("R-1", "FL1", 2, 18, true);
+        Response response = Response.builder()
+                .status(200)
+                .request(Request.create(Request.HttpMethod.POST, "http://flightservice/flights/internal/FL1/reserve",
+                        Map.of(), null, StandardCharsets.UTF_8, null))
+                .headers(Map.of("Content-Type", List.of(SmileMessageConverter.CONTENT_TYPE)))
+                .body(new SmileMapper().writeValueAsBytes(sent))
+                .build();
+
+        Object decoded = new SpringDecoder(HttpMessageConverters::new).decode(response, SeatReservation.class);
+
+        assertEquals(sent, decoded);
+    }
+}
@@ -0,0 +1,124 @@
+package com.booking.bookingservice.consumer;
+
+import com.booking.bookingservice.config.MQConfig;
+import com.booking.bookingservice.config.SmileMessageConverter;
+import com.booking.bookingservice.dto.EmailNotification;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class EmailConsumerTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private RabbitTemplate rabbitTemplate;
+
+    @BeforeEach
+    void setUp() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+    }
+
+    // --------------------------------------------------------------------
+    // 1. BATCH DELIVERED OVER SMTP
+    // --------------------------------------------------------------------
+    @Test
+    void testReceive_SendsWholeBatch() throws Exception {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        EmailConsumer consumer = consumer(mailSender);
+        consumer.receive(List.of(
+                new EmailNotification("a@test.com", "Booking Confirmed", "one"),
+                new EmailNotification("b@test.com", "Booking Confirmed", "two"),
+                new EmailNotification("c@test.com", "Booking Cancelled", "three")));
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(3, received.length);
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class));
+    }
+
+    // --------------------------------------------------------------------
+    // 2. ONLY FAILED MESSAGES ARE RETRIED
+    // --------------------------------------------------------------------
+    @Test
+    void testReceive_RetriesOnlyFailedMessages() throws Exception {
+        JavaMailSender mailSender = mock(JavaMailSender.class);
+        List<Integer> batchSizes = new ArrayList<>();
+        doAnswer(inv -> {
+            batchSizes.add(inv.getArguments().length);
+            if (batchSizes.size() == 1) {
+                SimpleMailMessage second = inv.getArgument(1);
+                throw new MailSendException(Map.of(second, new RuntimeException("mailbox busy")));
+            }
+            return null;
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        consumer(mailSender).receive(List.of(
+                new EmailNotification("a@test.com", "s", "b"),
+                new EmailNotification("b@test.com", "s", "b")));
+
+        assertEquals(List.of(2, 1), batchSizes);
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class));
+    }
+
+    // --------------------------------------------------------------------
+    // 3. EXHAUSTED RETRIES GO TO THE DEAD-LETTER QUEUE
+    // --------------------------------------------------------------------
+    @Test
+    void testReceive_DeadLettersAfterMaxAttempts() throws Exception {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(1); // nothing listens here
+
+        EmailNotification notification = new EmailNotification("a@test.com", "s", "b");
+        consumer(mailSender).receive(List.of(notification));
+
+        verify(rabbitTemplate, times(1)).convertAndSend(MQConfig.EMAIL_DLX, MQConfig.EMAIL_DLQ, notification);
+    }
+
+    // --------------------------------------------------------------------
+    // 4. SMILE ON THE WIRE, JSON STILL READABLE
+    // --------------------------------------------------------------------
+    @Test
+    void testConverter_WritesConfiguredEncodingAndReadsBoth() {
+        EmailNotification notification = new EmailNotification("a@test.com", "Booking Confirmed", "one");
+        MessageConverter smile = new MQConfig().messageConverter("smile");
+        MessageConverter json = new MQConfig().messageConverter("json");
+
+        Message smileMessage = smile.toMessage(notification, new MessageProperties());
+        Message jsonMessage = json.toMessage(notification, new MessageProperties());
+
+        assertEquals(SmileMessageConverter.CONTENT_TYPE, smileMessage.getMessageProperties().getContentType());
+        assertTrue(smileMessage.getBody().length < jsonMessage.getBody().length);
+        assertEquals(notification, smile.fromMessage(smileMessage));
+        assertEquals(notification, smile.fromMessage(jsonMessage));
+        assertThrows(IllegalArgumentException.class, () -> new MQConfig().messageConverter("xml"));
+    }
+
+    private EmailConsumer consumer(JavaMailSender mailSender) {
+        return new EmailConsumer(mailSender, rabbitTemplate, new SimpleMeterRegistry(), 3, Duration.ofMillis(1), 2.0, Duration.ofMillis(5));
+    }
+}
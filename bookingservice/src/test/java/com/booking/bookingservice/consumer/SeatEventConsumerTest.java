@@ -0,0 +1,35 @@
+package com.booking.bookingservice.consumer;
+
+import com.booking.bookingservice.cache.FlightAvailabilityCache;
+import com.booking.bookingservice.dto.SeatRelease;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeatEventConsumerTest {
+
+    private final FlightAvailabilityCache cache = new FlightAvailabilityCache(Duration.ofMinutes(1), 10, 100);
+    private final SeatEventConsumer consumer = new SeatEventConsumer(cache);
+
+    @Test
+    void testReleaseFromAnotherInstanceDropsSoldOutFlight() {
+        cache.onSeatChange("FL1", 0);
+        cache.onSeatChange("FL2", 0);
+
+        consumer.receive(new SeatRelease("FL1", 2, "R1", "S1"));
+
+        assertTrue(cache.mightHaveSeats("FL1", 2));
+        assertFalse(cache.mightHaveSeats("FL2", 1));
+    }
+
+    @Test
+    void testReleaseWithoutFlightIsIgnored() {
+        cache.onSeatChange("FL1", 0);
+
+        consumer.receive(new SeatRelease());
+
+        assertFalse(cache.mightHaveSeats("FL1", 1));
+    }
+}
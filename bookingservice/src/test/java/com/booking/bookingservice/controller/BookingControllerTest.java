@@ -1,7 +1,12 @@
 package com.booking.bookingservice.controller;
 
+import com.booking.bookingservice.dto.BatchBookingResult;
+import com.booking.bookingservice.dto.BookingHistoryPage;
 import com.booking.bookingservice.dto.BookingRequest;
+import com.booking.bookingservice.dto.BookingSummary;
 import com.booking.bookingservice.exception.GlobalExceptionHandler;
+import com.booking.bookingservice.exception.IdempotencyConflictException;
+import com.booking.bookingservice.idempotency.IdempotencyStore;
 import com.booking.bookingservice.model.Booking;
 import com.booking.bookingservice.service.BookingService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -16,12 +21,19 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -39,6 +51,9 @@ public class BookingControllerTest {
     @MockBean
     private BookingService bookingService;
 
+    @MockBean
+    private IdempotencyStore idempotencyStore;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -72,6 +87,88 @@ public class BookingControllerTest {
         .andExpect(jsonPath("$.status").value("CONFIRMED"));
     }
 
+    // --------------------------------------------------
+    // 1a. IDEMPOTENT CREATE
+    // --------------------------------------------------
+    @Test
+    void testCreateBooking_WithIdempotencyKey() throws Exception {
+
+        BookingRequest request = new BookingRequest("FL123", "John Doe", "john@gmail.com", 2);
+
+        Booking original = new Booking();
+        original.setId("B001");
+        original.setStatus("CONFIRMED");
+
+        when(idempotencyStore.execute(eq("key-1"), any(), any())).thenReturn(original);
+
+        mockMvc.perform(post("/booking/create")
+                .header("Idempotency-Key", "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request))
+        )
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.id").value("B001"));
+
+        verify(bookingService, never()).bookTicket(any());
+    }
+
+    @Test
+    void testCreateBooking_IdempotencyConflict() throws Exception {
+
+        BookingRequest request = new BookingRequest("FL123", "John Doe", "john@gmail.com", 2);
+
+        when(idempotencyStore.execute(eq("key-1"), any(), any()))
+                .thenThrow(new IdempotencyConflictException("still in progress"));
+
+        mockMvc.perform(post("/booking/create")
+                .header("Idempotency-Key", "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request))
+        )
+        .andExpect(status().isConflict());
+    }
+
+    // --------------------------------------------------
+    // 1b. BATCH BOOKING
+    // --------------------------------------------------
+    @Test
+    void testCreateBookings_Batch() throws Exception {
+
+        List<BookingRequest> requests = List.of(
+                new BookingRequest("FL123", "John Doe", "john@gmail.com", 2),
+                new BookingRequest("FL123", "Jane Doe", "jane@gmail.com", 1));
+
+        Booking confirmed = new Booking();
+        confirmed.setId("B001");
+        confirmed.setStatus("CONFIRMED");
+
+        when(bookingService.bookBatch(any())).thenReturn(List.of(
+                new BatchBookingResult(0, "CONFIRMED", confirmed, null),
+                new BatchBookingResult(1, "FAILED", new Booking(), "Not enough available seats")));
+
+        mockMvc.perform(post("/booking/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests))
+        )
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2))
+        .andExpect(jsonPath("$[0].booking.id").value("B001"))
+        .andExpect(jsonPath("$[1].error").value("Not enough available seats"));
+    }
+
+    @Test
+    void testCreateBookings_BatchTooLarge() throws Exception {
+
+        List<BookingRequest> requests = Collections.nCopies(101,
+                new BookingRequest("FL123", "John Doe", "john@gmail.com", 1));
+
+        mockMvc.perform(post("/booking/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests))
+        )
+        .andExpect(status().isBadRequest());
+    }
+
     // --------------------------------------------------
     // 2. GET BOOKING BY ID
     // --------------------------------------------------
@@ -124,6 +221,58 @@ public class BookingControllerTest {
     }
 
 
+    // --------------------------------------------------
+    // 3b. BOOKING HISTORY PAGE / EXPORT
+    // --------------------------------------------------
+    @Test
+    void testHistoryPage_Summary() throws Exception {
+
+        BookingSummary summary = new BookingSummary("B1", "FL1", 2, "CONFIRMED", new Date());
+        when(bookingService.getHistorySummaryPage("a@mail.com", null, 20))
+                .thenReturn(new BookingHistoryPage<>(List.of(summary), "next"));
+
+        mockMvc.perform(get("/booking/history/page")
+                .param("email", "a@mail.com")
+                .param("summary", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookings[0].id").value("B1"))
+                .andExpect(jsonPath("$.bookings[0].passengerName").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void testHistoryPage_InvalidCursor() throws Exception {
+
+        when(bookingService.getHistoryPage("a@mail.com", "bad", 20))
+                .thenThrow(new IllegalStateException("Invalid cursor: bad"));
+
+        mockMvc.perform(get("/booking/history/page")
+                .param("email", "a@mail.com")
+                .param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testHistoryStream() throws Exception {
+
+        Booking b1 = new Booking();
+        b1.setId("B1");
+        Booking b2 = new Booking();
+        b2.setId("B2");
+        when(bookingService.streamHistory("a@mail.com")).thenReturn(Stream.of(b1, b2));
+
+        MvcResult result = mockMvc.perform(get("/booking/history/stream")
+                .param("email", "a@mail.com"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(2, body.lines().count());
+    }
+
     // --------------------------------------------------
     // 4. CANCEL BOOKING
     // --------------------------------------------------
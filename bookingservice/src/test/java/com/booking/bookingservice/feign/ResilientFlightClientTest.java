@@ -0,0 +1,155 @@
+package com.booking.bookingservice.feign;
+
+import com.booking.bookingservice.dto.SeatReservation;
+import com.booking.bookingservice.exception.FlightServiceDownException;
+import feign.FeignException;
+import feign.Request;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadConfig;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ResilientFlightClientTest {
+
+    private static final Request REQUEST = Request.create(Request.HttpMethod.POST,
+            "http://flightservice/flights/internal/FL1/reserve", Map.of(), null, StandardCharsets.UTF_8, null);
+
+    private FlightClient feign;
+    private ThreadPoolBulkheadRegistry bulkheads;
+    private SimpleMeterRegistry meterRegistry;
+    private ResilientFlightClient client;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        feign = mock(FlightClient.class);
+        bulkheads = ThreadPoolBulkheadRegistry.of(ThreadPoolBulkheadConfig.custom()
+                .coreThreadPoolSize(1)
+                .maxThreadPoolSize(1)
+                .queueCapacity(1)
+                .build());
+        meterRegistry = new SimpleMeterRegistry();
+        client = client(10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    private ResilientFlightClient client(int maxRetries) {
+        RetryRegistry retries = RetryRegistry.of(RetryConfig.custom().maxAttempts(3).waitDuration(Duration.ofMillis(1)).build());
+        return new ResilientFlightClient(feign, new FlightClientFallback(), bulkheads, retries, meterRegistry,
+                Duration.ofMillis(50), Duration.ofMillis(500), Duration.ofMillis(200), 0.1, maxRetries);
+    }
+
+    // ---------------- bulkheads ----------------
+
+    @Test
+    void testSlowIncreaseDoesNotStarveReserve() throws Exception {
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(feign).increaseSeats("FL1", 1);
+        when(feign.reserveSeats("FL1", 2, "B1")).thenReturn(new SeatReservation("R-1", "FL1", 2, 10, true));
+
+        Thread first = new Thread(() -> callIncrease());
+        Thread queued = new Thread(() -> callIncrease());
+        first.start();
+        queued.start();
+        verify(feign, timeout(1000)).increaseSeats("FL1", 1);
+        Thread.sleep(50);
+
+        // its one thread is busy and its queue full: turned away at once, like the Feign fallback
+        assertThrows(FlightServiceDownException.class, () -> client.increaseSeats("FL1", 1));
+        assertTrue(client.reserveSeats("FL1", 2, "B1").isReserved());
+    }
+
+    private void callIncrease() {
+        try {
+            client.increaseSeats("FL1", 1);
+        } catch (RuntimeException ignored) {
+            // finishes once the test releases flightservice
+        }
+    }
+
+    // ---------------- timeouts ----------------
+
+    @Test
+    void testSlowCheckTimesOutAndTimeoutGrows() {
+        // slower than the longest timeout, so the retries time out too
+        when(feign.checkAvailability("FL1")).thenAnswer(invocation -> {
+            Thread.sleep(600);
+            return true;
+        });
+        double before = meterRegistry.get("flight.client.timeout").tag("method", "check").gauge().value();
+
+        assertFalse(client.checkAvailability("FL1"));
+        assertTrue(meterRegistry.get("flight.client.timeout").tag("method", "check").gauge().value() > before);
+    }
+
+    @Test
+    void testSlowReserveIsNotCutOff() {
+        when(feign.reserveSeats("FL1", 2, "B1")).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return new SeatReservation("R-1", "FL1", 2, 10, true);
+        });
+
+        // slower than the check timeout: a local timeout would report it rejected while flightservice
+        // still takes the seats
+        assertTrue(client.reserveSeats("FL1", 2, "B1").isReserved());
+        verify(feign, times(1)).reserveSeats("FL1", 2, "B1");
+        assertNull(meterRegistry.find("flight.client.timeout").tag("method", "reserve").gauge());
+    }
+
+    @Test
+    void testTimeoutFollowsObservedLatency() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(Duration.ofMillis(10), Duration.ofSeconds(3), Duration.ofSeconds(1));
+        for (int i = 0; i < 50; i++) {
+            timeout.record(Duration.ofMillis(20).toNanos());
+        }
+
+        assertTrue(timeout.current().compareTo(Duration.ofMillis(30)) < 0, timeout.current().toString());
+    }
+
+    // ---------------- retries ----------------
+
+    @Test
+    void testReserveIsRetriedOnlyWhenNotSent() {
+        when(feign.reserveSeats("FL1", 2, "B1"))
+                .thenThrow(new RetryableException(-1, "refused", Request.HttpMethod.POST, new ConnectException(), (Long) null, REQUEST))
+                .thenReturn(new SeatReservation("R-1", "FL1", 2, 10, true));
+        when(feign.reserveSeats("FL2", 2, "B1"))
+                .thenThrow(new FeignException.InternalServerError("boom", REQUEST, null, null));
+
+        assertTrue(client.reserveSeats("FL1", 2, "B1").isReserved());
+        assertThrows(FeignException.InternalServerError.class, () -> client.reserveSeats("FL2", 2, "B1"));
+        verify(feign, times(2)).reserveSeats("FL1", 2, "B1");
+        verify(feign, times(1)).reserveSeats("FL2", 2, "B1");
+    }
+
+    @Test
+    void testRetriesStopWhenBudgetIsSpent() {
+        client = client(1);
+        when(feign.checkAvailability("FL1")).thenThrow(new FeignException.ServiceUnavailable("down", REQUEST, null, null));
+
+        assertThrows(FeignException.ServiceUnavailable.class, () -> client.checkAvailability("FL1"));
+        assertThrows(FeignException.ServiceUnavailable.class, () -> client.checkAvailability("FL1"));
+
+        // one retry in the budget, plus the two calls themselves
+        verify(feign, times(3)).checkAvailability("FL1");
+        assertTrue(meterRegistry.get("flight.client.retries.denied").tag("method", "check").counter().count() >= 1);
+    }
+}
@@ -0,0 +1,191 @@
+package com.booking.bookingservice.idempotency;
+
+import com.booking.bookingservice.dto.BookingRequest;
+import com.booking.bookingservice.exception.IdempotencyConflictException;
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.IdempotencyRecord;
+import com.booking.bookingservice.repo.IdempotencyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyStoreTest {
+
+    private static final BookingRequest REQUEST = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+
+    private IdempotencyRepository repository;
+    private IdempotencyStore store;
+
+    @AfterEach
+    void tearDown() {
+        store.shutdown();
+    }
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRepository.class);
+        store = new IdempotencyStore(repository, mock(MongoTemplate.class),
+                Duration.ofHours(24), Duration.ofMillis(300), Duration.ofMinutes(10), 100);
+    }
+
+    @Test
+    void testRepeatedKeyReturnsOriginalBookingFromCache() {
+        AtomicInteger bookings = new AtomicInteger();
+
+        Booking first = store.execute("key-1", REQUEST, () -> confirmed("B" + bookings.incrementAndGet()));
+        Booking second = store.execute("key-1", REQUEST, () -> confirmed("B" + bookings.incrementAndGet()));
+
+        assertEquals("B1", first.getId());
+        assertSame(first, second);
+        assertEquals(1, bookings.get());
+        verify(repository, times(1)).insert(any(IdempotencyRecord.class));
+        verify(repository).complete(eq("key-1"), anyString(), eq(first));
+    }
+
+    @Test
+    void testRepeatedKeyOnAnotherInstanceReadsStoredBooking() {
+        IdempotencyRecord record = new IdempotencyRecord("key-1", IdempotencyStore.fingerprint(REQUEST));
+        record.setBooking(confirmed("B1"));
+        when(repository.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(repository.findById("key-1")).thenReturn(Optional.of(record));
+
+        Booking booking = store.execute("key-1", REQUEST, () -> fail("must not book twice"));
+
+        assertEquals("B1", booking.getId());
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() {
+        store.execute("key-1", REQUEST, () -> confirmed("B1"));
+
+        BookingRequest other = new BookingRequest("FL999", "John", "john@gmail.com", 2);
+        assertThrows(IdempotencyConflictException.class,
+                () -> store.execute("key-1", other, () -> confirmed("B2")));
+    }
+
+    @Test
+    void testLeasedKeyIsConflict() {
+        when(repository.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(repository.findById("key-1"))
+                .thenReturn(Optional.of(new IdempotencyRecord("key-1", IdempotencyStore.fingerprint(REQUEST))));
+        when(repository.takeOverExpired(eq("key-1"), anyString(), any(Date.class), any(Date.class))).thenReturn(null);
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> store.execute("key-1", REQUEST, () -> confirmed("B2")));
+    }
+
+    @Test
+    void testKeyWithLapsedLeaseIsTakenOver() {
+        IdempotencyRecord orphan = new IdempotencyRecord("key-1", IdempotencyStore.fingerprint(REQUEST));
+        when(repository.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(repository.findById("key-1")).thenReturn(Optional.of(orphan));
+        when(repository.takeOverExpired(eq("key-1"), anyString(), any(Date.class), any(Date.class))).thenReturn(orphan);
+        when(repository.complete(eq("key-1"), anyString(), any(Booking.class))).thenReturn(true);
+
+        Booking booking = store.execute("key-1", REQUEST, () -> confirmed("B2"));
+
+        assertEquals("B2", booking.getId());
+    }
+
+    @Test
+    void testRunningKeysAreRenewedUntilFinished() throws InterruptedException {
+        CountDownLatch booking = new CountDownLatch(1);
+        CountDownLatch renewed = new CountDownLatch(1);
+        doAnswer(inv -> {
+            renewed.countDown();
+            return null;
+        }).when(repository).renewLeases(argThat(keys -> keys.contains("key-1")), anyString(), any(Date.class));
+
+        Thread request = new Thread(() -> store.execute("key-1", REQUEST, () -> {
+            await(booking);
+            return confirmed("B1");
+        }));
+        request.start();
+
+        assertTrue(renewed.await(5, TimeUnit.SECONDS));
+        booking.countDown();
+        request.join();
+
+        clearInvocations(repository);
+        store.renewLeases();
+        verify(repository, never()).renewLeases(any(), anyString(), any(Date.class));
+    }
+
+    @Test
+    void testFailedBookingIsRemembered() {
+        Booking failed = new Booking();
+        failed.setStatus("FAILED");
+        AtomicInteger bookings = new AtomicInteger();
+
+        store.execute("key-1", REQUEST, () -> {
+            bookings.incrementAndGet();
+            return failed;
+        });
+        Booking retried = store.execute("key-1", REQUEST, () -> fail("must not book again"));
+
+        assertSame(failed, retried);
+        assertEquals(1, bookings.get());
+        verify(repository).complete(eq("key-1"), anyString(), eq(failed));
+        verify(repository, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void testRetryableFailureReleasesKey() {
+        Booking fallback = new Booking();
+        fallback.setStatus("FAILED");
+        fallback.setRetryable(true);
+        AtomicInteger bookings = new AtomicInteger();
+
+        store.execute("key-1", REQUEST, () -> {
+            bookings.incrementAndGet();
+            return fallback;
+        });
+        Booking retried = store.execute("key-1", REQUEST, () -> {
+            bookings.incrementAndGet();
+            return confirmed("B1");
+        });
+
+        // the fallback decided nothing, so the retry books again and its outcome is the one kept
+        assertEquals("CONFIRMED", retried.getStatus());
+        assertEquals(2, bookings.get());
+        verify(repository).release(eq("key-1"), anyString());
+        verify(repository, never()).complete(anyString(), anyString(), eq(fallback));
+        verify(repository).complete(eq("key-1"), anyString(), eq(retried));
+    }
+
+    @Test
+    void testExceptionReleasesKey() {
+        assertThrows(RuntimeException.class,
+                () -> store.execute("key-1", REQUEST, () -> { throw new RuntimeException("boom"); }));
+
+        verify(repository).release(eq("key-1"), anyString());
+        verify(repository, never()).complete(anyString(), anyString(), any());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Booking confirmed(String id) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setStatus("CONFIRMED");
+        return booking;
+    }
+}
@@ -0,0 +1,84 @@
+package com.booking.bookingservice.outbox;
+
+import com.booking.bookingservice.dto.EmailNotification;
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.producer.EmailProducer;
+import com.booking.bookingservice.repo.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpTimeoutException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private BookingRepository bookingRepository;
+    private EmailProducer emailProducer;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        emailProducer = mock(EmailProducer.class);
+        relay = new OutboxRelay(bookingRepository, emailProducer, 2, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testRelayPublishesThenRemoves() {
+        List<Booking> first = List.of(booking("1", "a@mail.com"), booking("2", "b@mail.com"));
+        List<Booking> second = List.of(booking("3", "c@mail.com"));
+        when(bookingRepository.claimOutbox(2, Duration.ofSeconds(30))).thenReturn(first).thenReturn(second);
+
+        relay.relay();
+
+        // a full batch means more may be waiting, so the relay keeps draining
+        verify(bookingRepository, times(2)).claimOutbox(2, Duration.ofSeconds(30));
+        verify(emailProducer).publishConfirmed(argThat(list -> list.size() == 2));
+        verify(emailProducer).publishConfirmed(argThat(list -> list.size() == 1));
+        verify(bookingRepository).removeRelayed(first);
+        verify(bookingRepository).removeRelayed(second);
+    }
+
+    @Test
+    void testEveryPendingNotificationOfABookingIsPublished() {
+        Booking booking = booking("1", "a@mail.com");
+        BookingOutbox.attach(booking, b -> new EmailNotification("a@mail.com", "Booking Cancelled", "body"));
+        when(bookingRepository.claimOutbox(2, Duration.ofSeconds(30))).thenReturn(List.of(booking));
+
+        assertEquals(1, relay.relayBatch());
+
+        verify(emailProducer).publishConfirmed(argThat(list -> list.size() == 2
+                && "Booking Cancelled".equals(list.get(1).getSubject())));
+    }
+
+    @Test
+    void testUnconfirmedBatchStaysInOutbox() {
+        when(bookingRepository.claimOutbox(2, Duration.ofSeconds(30)))
+                .thenReturn(List.of(booking("1", "a@mail.com")));
+        doThrow(new AmqpTimeoutException("no confirm")).when(emailProducer).publishConfirmed(anyList());
+
+        relay.relay();
+
+        verify(bookingRepository, never()).removeRelayed(any());
+    }
+
+    @Test
+    void testEmptyOutbox() {
+        when(bookingRepository.claimOutbox(2, Duration.ofSeconds(30))).thenReturn(List.of());
+
+        assertEquals(0, relay.relayBatch());
+        verifyNoInteractions(emailProducer);
+    }
+
+    private static Booking booking(String id, String to) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        return BookingOutbox.attach(booking, b -> new EmailNotification(to, "Booking Confirmed", "body"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.booking.bookingservice.producer;
+
+import com.booking.bookingservice.config.MQConfig;
+import com.booking.bookingservice.dto.EmailNotification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class EmailProducerTest {
+
+    private RabbitTemplate rabbitTemplate;
+    private RabbitOperations ops;
+    private SimpleMeterRegistry registry;
+    private EmailProducer producer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        ops = mock(RabbitOperations.class);
+        registry = new SimpleMeterRegistry();
+        when(rabbitTemplate.invoke(any(RabbitOperations.OperationsCallback.class)))
+                .thenAnswer(inv -> inv.getArgument(0, RabbitOperations.OperationsCallback.class).doInRabbit(ops));
+        producer = new EmailProducer(rabbitTemplate, registry, Duration.ofSeconds(1));
+    }
+
+    @Test
+    void testBatchIsPublishedWithOneConfirmWait() {
+        producer.publishConfirmed(List.of(notification("a"), notification("b")));
+
+        verify(rabbitTemplate, times(1)).invoke(any());
+        verify(ops, times(2)).convertAndSend(eq(MQConfig.EMAIL_QUEUE), any(EmailNotification.class));
+        verify(ops, times(1)).waitForConfirmsOrDie(1000L);
+        assertEquals(1, registry.get("email.publish.latency").timer().count());
+    }
+
+    @Test
+    void testUnconfirmedBatchFails() {
+        doThrow(new AmqpTimeoutException("no confirm")).when(ops).waitForConfirmsOrDie(anyLong());
+
+        assertThrows(AmqpTimeoutException.class, () -> producer.publishConfirmed(List.of(notification("a"))));
+
+        assertEquals(0.0, registry.get("email.publish.unconfirmed").gauge().value());
+    }
+
+    @Test
+    void testEmptyBatchIsNotPublished() {
+        producer.publishConfirmed(List.of());
+
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    private static EmailNotification notification(String to) {
+        return new EmailNotification(to, "subject", "body");
+    }
+}
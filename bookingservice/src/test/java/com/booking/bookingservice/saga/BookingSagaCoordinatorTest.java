@@ -0,0 +1,136 @@
+package com.booking.bookingservice.saga;
+
+import com.booking.bookingservice.cache.FlightAvailabilityCache;
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.BookingSaga;
+import com.booking.bookingservice.producer.SeatCommandProducer;
+import com.booking.bookingservice.repo.BookingRepository;
+import com.booking.bookingservice.repo.BookingSagaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BookingSagaCoordinatorTest {
+
+    private BookingSagaRepository sagaRepository;
+    private BookingRepository bookingRepository;
+    private SeatCommandProducer seatCommands;
+    private BookingSagaCoordinator coordinator;
+
+    @BeforeEach
+    void setUp() {
+        sagaRepository = mock(BookingSagaRepository.class);
+        bookingRepository = mock(BookingRepository.class);
+        seatCommands = mock(SeatCommandProducer.class);
+        coordinator = new BookingSagaCoordinator(sagaRepository, bookingRepository, seatCommands,
+                FlightAvailabilityCache.disabled(), Duration.ofSeconds(30), Duration.ofSeconds(1), 2.0, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testFailedReleaseIsRetriedWithBackoff() {
+        BookingSaga saga = saga(BookingSaga.Type.BOOK, "B1");
+        saga.setId("S1");
+        doThrow(new AmqpConnectException(new RuntimeException("broker down"))).when(seatCommands).releaseSeats("FL1", 2, "B1", "S1");
+
+        coordinator.compensate(saga);
+        coordinator.compensate(saga);
+
+        assertEquals(BookingSaga.Step.COMPENSATING, saga.getStep());
+        assertEquals(2, saga.getAttempts());
+        verify(sagaRepository, times(2)).save(saga);
+        verify(sagaRepository, never()).complete(any());
+
+        assertEquals(Duration.ofSeconds(1), coordinator.backoff(1));
+        assertEquals(Duration.ofSeconds(4), coordinator.backoff(3));
+        assertEquals(Duration.ofSeconds(5), coordinator.backoff(10));
+    }
+
+    @Test
+    void testResentCompensationKeepsItsCommandId() {
+        BookingSaga owed = saga(BookingSaga.Type.BOOK, "B2");
+        owed.setId("S2");
+        doThrow(new AmqpConnectException(new RuntimeException("broker down")))
+                .doNothing()
+                .when(seatCommands).releaseSeats("FL1", 2, "B2", "S2");
+
+        coordinator.compensate(owed);
+        coordinator.recover(owed);
+
+        // both sends carry the saga's id, so flightservice applies one of them
+        verify(seatCommands, times(2)).releaseSeats("FL1", 2, "B2", "S2");
+        verify(sagaRepository).save(owed);
+        verify(sagaRepository).complete("S2");
+    }
+
+    @Test
+    void testRecoverBookingThatWasSaved() {
+        BookingSaga saga = saga(BookingSaga.Type.BOOK, "B1");
+        saga.setId("S1");
+        when(bookingRepository.findById("B1")).thenReturn(Optional.of(new Booking()));
+
+        coordinator.recover(saga);
+
+        verify(seatCommands, never()).releaseSeats(anyString(), anyInt(), any(), any());
+        verify(sagaRepository).complete("S1");
+    }
+
+    @Test
+    void testRecoverBookingThatWasNeverSavedReleasesSeats() {
+        BookingSaga saga = saga(BookingSaga.Type.BOOK, "B1");
+        saga.setId("S1");
+        when(bookingRepository.findById("B1")).thenReturn(Optional.empty());
+
+        coordinator.recover(saga);
+
+        // released against the booking's reservation, so seats only come back if it was applied
+        verify(seatCommands).releaseSeats("FL1", 2, "B1", "S1");
+        verify(sagaRepository).complete("S1");
+    }
+
+    @Test
+    void testRecoverCancellationOnlyWhenBookingWasCancelled() {
+        Booking cancelled = new Booking();
+        cancelled.setStatus("CANCELLED");
+        Booking confirmed = new Booking();
+        confirmed.setStatus("CONFIRMED");
+        when(bookingRepository.findById("B1")).thenReturn(Optional.of(cancelled));
+        when(bookingRepository.findById("B2")).thenReturn(Optional.of(confirmed));
+
+        coordinator.recover(saga(BookingSaga.Type.CANCEL, "B1"));
+        coordinator.recover(saga(BookingSaga.Type.CANCEL, "B2"));
+
+        verify(seatCommands, times(1)).releaseSeats("FL1", 2, null, "cancel:B1");
+    }
+
+    @Test
+    void testWorkerKeepsGoingWhenOneSagaFails() {
+        BookingSaga broken = saga(BookingSaga.Type.BOOK, "B1");
+        BookingSaga owed = saga(BookingSaga.Type.BOOK, "B2");
+        owed.setId("S2");
+        owed.setStep(BookingSaga.Step.COMPENSATING);
+        when(sagaRepository.claimDue(eq(10), any(Duration.class))).thenReturn(List.of(broken, owed));
+        when(bookingRepository.findById("B1")).thenThrow(new RuntimeException("mongo down"));
+
+        int claimed = new SagaRecoveryWorker(sagaRepository, coordinator, 10, Duration.ofSeconds(30)).recoverBatch();
+
+        assertEquals(2, claimed);
+        verify(seatCommands).releaseSeats("FL1", 2, "B2", "S2");
+    }
+
+    private static BookingSaga saga(BookingSaga.Type type, String bookingId) {
+        Booking booking = new Booking();
+        booking.setId(bookingId);
+        booking.setFlightId("FL1");
+        booking.setSeats(2);
+        booking.setReservationId(bookingId);
+        return new BookingSaga(type, booking);
+    }
+}
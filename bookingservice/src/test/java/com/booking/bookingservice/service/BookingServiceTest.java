@@ -1,18 +1,36 @@
 package com.booking.bookingservice.service;
 
+import com.booking.bookingservice.cache.FlightAvailabilityCache;
+import com.booking.bookingservice.dto.BatchBookingResult;
+import com.booking.bookingservice.dto.BookingHistoryPage;
 import com.booking.bookingservice.dto.BookingRequest;
-import com.booking.bookingservice.dto.EmailNotification;
+import com.booking.bookingservice.dto.SeatReservation;
 import com.booking.bookingservice.exception.FlightServiceDownException;
 import com.booking.bookingservice.feign.FlightClient;
+import com.booking.bookingservice.metrics.BookingMetrics;
 import com.booking.bookingservice.model.Booking;
-import com.booking.bookingservice.producer.EmailProducer;
+import com.booking.bookingservice.model.BookingSaga;
+import com.booking.bookingservice.outbox.BookingOutbox;
+import com.booking.bookingservice.producer.SeatCommandProducer;
 import com.booking.bookingservice.repo.BookingRepository;
+import com.booking.bookingservice.repo.BookingSagaRepository;
+import com.booking.bookingservice.saga.BookingSagaCoordinator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.amqp.AmqpConnectException;
 
+import java.time.Duration;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,16 +39,28 @@ public class BookingServiceTest {
 
     private BookingRepository bookingRepository;
     private FlightClient flightClient;
-    private EmailProducer emailProducer;
+    private BookingOutbox outbox;
+    private BookingSagaRepository sagaRepository;
+    private SeatCommandProducer seatCommands;
+    private BookingSagaCoordinator sagas;
     private BookingService bookingService;
 
     @BeforeEach
     void setUp() {
         bookingRepository = mock(BookingRepository.class);
         flightClient = mock(FlightClient.class);
-        emailProducer = mock(EmailProducer.class);
+        outbox = new BookingOutbox(bookingRepository);
+        sagaRepository = mock(BookingSagaRepository.class);
+        seatCommands = mock(SeatCommandProducer.class);
+        when(sagaRepository.insert(any(BookingSaga.class))).thenAnswer(invocation -> {
+            BookingSaga saga = invocation.getArgument(0);
+            saga.setId("saga-1");
+            return saga;
+        });
+        sagas = new BookingSagaCoordinator(sagaRepository, bookingRepository, seatCommands,
+                FlightAvailabilityCache.disabled(), Duration.ofSeconds(30), Duration.ofSeconds(1), 2.0, Duration.ofMinutes(5));
 
-        bookingService = new BookingService(bookingRepository, flightClient, emailProducer);
+        bookingService = new BookingService(bookingRepository, flightClient, outbox, sagas);
     }
 
     // --------------------------------------------------------------------
@@ -40,14 +70,47 @@ public class BookingServiceTest {
     void testBookTicket_Success() {
         BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
 
-        when(flightClient.checkAvailability("FL123")).thenReturn(true);
-        when(flightClient.reduceSeats("FL123", 2)).thenReturn(true);
+        when(flightClient.reserveSeats(eq("FL123"), eq(2), anyString()))
+                .thenReturn(new SeatReservation("R-1", "FL123", 2, 48, true));
 
         Booking result = bookingService.bookTicket(request);
 
         assertEquals("CONFIRMED", result.getStatus());
-        verify(bookingRepository, times(1)).save(any(Booking.class));
-        verify(emailProducer, times(1)).sendEmail(any(EmailNotification.class));
+        assertEquals(result.getId(), result.getReservationId());
+        // the saga is stored before the seats are reserved, under the booking's reservation id
+        InOrder inOrder = inOrder(sagaRepository, flightClient);
+        inOrder.verify(sagaRepository).insert(argThat((BookingSaga saga) -> result.getId().equals(saga.getReservationId())));
+        inOrder.verify(flightClient).reserveSeats("FL123", 2, result.getId());
+        inOrder.verify(sagaRepository).complete("saga-1");
+        verify(flightClient, never()).checkAvailability(anyString());
+        verify(flightClient, never()).reduceSeats(anyString(), anyInt());
+        // the confirmation email is stored inside the booking by the same write
+        verify(bookingRepository, times(1)).save(argThat((Booking booking) -> booking.getOutbox().size() == 1
+                && booking.getOutbox().get(0).getNotification().getBody().contains(result.getId())));
+        verify(sagaRepository, times(1)).insert(argThat((BookingSaga saga) ->
+                saga.getType() == BookingSaga.Type.BOOK && result.getId().equals(saga.getBookingId())));
+        verify(seatCommands, never()).releaseSeats(anyString(), anyInt(), any(), any());
+    }
+
+    // --------------------------------------------------------------------
+    // 1b. SAVE FAILS AFTER SEATS WERE RESERVED → SEATS RELEASED
+    // --------------------------------------------------------------------
+    @Test
+    void testBookTicket_SaveFailureReleasesSeats() {
+        BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+
+        when(flightClient.reserveSeats(eq("FL123"), eq(2), anyString()))
+                .thenReturn(new SeatReservation("R-1", "FL123", 2, 48, true));
+        when(bookingRepository.save(any(Booking.class))).thenThrow(new RuntimeException("mongo down"));
+        doThrow(new AmqpConnectException(new RuntimeException("broker down")))
+                .when(seatCommands).releaseSeats(eq("FL123"), eq(2), anyString(), eq("saga-1"));
+
+        assertThrows(RuntimeException.class, () -> bookingService.bookTicket(request));
+
+        // the broker is down as well: the release is stored for the recovery worker
+        verify(seatCommands, times(1)).releaseSeats(eq("FL123"), eq(2), anyString(), eq("saga-1"));
+        verify(sagaRepository, times(1)).save(argThat((BookingSaga saga) ->
+                saga.getStep() == BookingSaga.Step.COMPENSATING && saga.getAttempts() == 1));
     }
 
     // --------------------------------------------------------------------
@@ -57,29 +120,222 @@ public class BookingServiceTest {
     void testBookTicket_FlightServiceDown() {
         BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
 
-        // fallback returns false → service down
-        when(flightClient.checkAvailability("FL123")).thenReturn(false);
+        // fallback returns a rejected reservation → service down
+        when(flightClient.reserveSeats(eq("FL123"), eq(2), anyString())).thenReturn(SeatReservation.rejected("FL123", 2));
 
         Exception ex = assertThrows(FlightServiceDownException.class,
                 () -> bookingService.bookTicket(request));
 
         assertEquals("Flight Service is DOWN", ex.getMessage());
+        // the call may have reserved before it failed; the release only returns seats if it did
+        verify(seatCommands, times(1)).releaseSeats(eq("FL123"), eq(2), anyString(), eq("saga-1"));
     }
 
     // --------------------------------------------------------------------
-    // 3. SEATS NOT AVAILABLE (availability = true but reduceSeats = false)
+    // 2b. RESERVE CALL THROWS → RESERVATION RELEASED, ERROR PROPAGATED
+    // --------------------------------------------------------------------
+    @Test
+    void testBookTicket_ReserveErrorReleasesReservation() {
+        BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+
+        when(flightClient.reserveSeats(eq("FL123"), eq(2), anyString())).thenThrow(new RuntimeException("read timed out"));
+
+        assertThrows(RuntimeException.class, () -> bookingService.bookTicket(request));
+
+        ArgumentCaptor<String> reservationId = ArgumentCaptor.forClass(String.class);
+        verify(flightClient).reserveSeats(eq("FL123"), eq(2), reservationId.capture());
+        verify(seatCommands, times(1)).releaseSeats("FL123", 2, reservationId.getValue(), "saga-1");
+        verify(sagaRepository, times(1)).complete("saga-1");
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    // --------------------------------------------------------------------
+    // 2c. SAGA CANNOT BE STORED → NOTHING RESERVED
+    // --------------------------------------------------------------------
+    @Test
+    void testBookTicket_SagaFailureReservesNothing() {
+        BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+
+        when(sagaRepository.insert(any(BookingSaga.class))).thenThrow(new RuntimeException("mongo down"));
+
+        assertThrows(RuntimeException.class, () -> bookingService.bookTicket(request));
+
+        verify(flightClient, never()).reserveSeats(anyString(), anyInt(), any());
+        verify(seatCommands, never()).releaseSeats(anyString(), anyInt(), any(), any());
+    }
+
+    // --------------------------------------------------------------------
+    // 3. SEATS NOT AVAILABLE (flightservice rejects the reservation)
     // --------------------------------------------------------------------
     @Test
     void testBookTicket_SeatsNotAvailable() {
         BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
 
-        when(flightClient.checkAvailability("FL123")).thenReturn(true);
-        when(flightClient.reduceSeats("FL123", 2)).thenReturn(false);
+        when(flightClient.reserveSeats(eq("FL123"), eq(2), anyString()))
+                .thenReturn(new SeatReservation(null, "FL123", 2, 1, false));
 
         Exception ex = assertThrows(FlightServiceDownException.class,
                 () -> bookingService.bookTicket(request));
 
         assertEquals("Flight Service is DOWN", ex.getMessage());
+        // flightservice answered with its seat count, so nothing was reserved
+        verify(seatCommands, never()).releaseSeats(anyString(), anyInt(), any(), any());
+        verify(sagaRepository, times(1)).complete("saga-1");
+    }
+
+    // --------------------------------------------------------------------
+    // 3b. KNOWN SOLD-OUT FLIGHT → REJECTED LOCALLY, NO FEIGN CALL
+    // --------------------------------------------------------------------
+    @Test
+    void testBookTicket_SoldOutRejectedLocally() {
+        FlightAvailabilityCache cache = new FlightAvailabilityCache(Duration.ofMinutes(1), 10, 100);
+        bookingService = new BookingService(bookingRepository, flightClient, outbox, sagas, cache);
+        BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+
+        when(flightClient.reserveSeats(eq("FL123"), eq(2), anyString()))
+                .thenReturn(new SeatReservation(null, "FL123", 2, 1, false));
+
+        assertThrows(FlightServiceDownException.class, () -> bookingService.bookTicket(request));
+
+        Booking second = bookingService.bookTicket(request);
+
+        assertEquals("FAILED", second.getStatus());
+        assertFalse(second.isRetryable());
+        verify(flightClient, times(1)).reserveSeats(eq("FL123"), eq(2), anyString());
+        verify(bookingRepository, never()).save(any(Booking.class));
+    }
+
+    // --------------------------------------------------------------------
+    // 3b2. CIRCUIT BREAKER FALLBACK → FAILED, BUT RETRYABLE
+    // --------------------------------------------------------------------
+    @Test
+    void testBookFallback_IsRetryable() {
+        BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+
+        Booking result = bookingService.bookFallback(request, new FlightServiceDownException("Flight Service is DOWN"));
+
+        assertEquals("FAILED", result.getStatus());
+        assertTrue(result.isRetryable());
+    }
+
+    // --------------------------------------------------------------------
+    // 3c. BATCH → ONE RESERVATION PER FLIGHT, ONE SAVE, ONE OUTBOX WRITE
+    // --------------------------------------------------------------------
+    @Test
+    void testBookBatch_GroupsByFlight() {
+        List<BookingRequest> requests = List.of(
+                new BookingRequest("FL1", "A", "a@mail.com", 2),
+                new BookingRequest("FL2", "B", "b@mail.com", 1),
+                new BookingRequest("FL1", "C", "c@mail.com", 3));
+
+        when(flightClient.reserveSeats(eq("FL1"), eq(5), anyString())).thenReturn(new SeatReservation("R-1", "FL1", 5, 20, true));
+        when(flightClient.reserveSeats(eq("FL2"), eq(1), anyString())).thenReturn(new SeatReservation("R-2", "FL2", 1, 20, true));
+
+        List<BatchBookingResult> results = bookingService.bookBatch(requests);
+
+        assertEquals(3, results.size());
+        results.forEach(r -> assertEquals("CONFIRMED", r.getStatus()));
+        // both FL1 bookings share the group's reservation, and the last saved one carries its saga's booking id
+        String reservationId = results.get(2).getBooking().getReservationId();
+        assertEquals(reservationId, results.get(0).getBooking().getReservationId());
+        assertEquals(reservationId, results.get(2).getBooking().getId());
+        InOrder inOrder = inOrder(sagaRepository, flightClient);
+        inOrder.verify(sagaRepository).insert(argThat((BookingSaga saga) -> reservationId.equals(saga.getReservationId())
+                && reservationId.equals(saga.getBookingId()) && saga.getSeats() == 5));
+        inOrder.verify(flightClient).reserveSeats("FL1", 5, reservationId);
+        verify(sagaRepository, times(2)).complete("saga-1");
+        verify(bookingRepository, times(1)).saveAll(argThat((List<Booking> list) -> list.size() == 3
+                && list.stream().allMatch(booking -> booking.getId() != null && booking.getOutbox().size() == 1)));
+    }
+
+    // --------------------------------------------------------------------
+    // 3d. BATCH → PARTIAL: ONLY REQUESTS THAT FIT THE REMAINING SEATS
+    // --------------------------------------------------------------------
+    @Test
+    void testBookBatch_PartialFailure() {
+        List<BookingRequest> requests = List.of(
+                new BookingRequest("FL1", "A", "a@mail.com", 4),
+                new BookingRequest("FL1", "B", "b@mail.com", 2),
+                new BookingRequest("FL1", "C", "c@mail.com", 0));
+
+        when(flightClient.reserveSeats(eq("FL1"), eq(6), anyString())).thenReturn(new SeatReservation(null, "FL1", 6, 3, false));
+        when(flightClient.reserveSeats(eq("FL1"), eq(2), anyString())).thenReturn(new SeatReservation("R-1", "FL1", 2, 1, true));
+
+        List<BatchBookingResult> results = bookingService.bookBatch(requests);
+
+        assertEquals("FAILED", results.get(0).getStatus());
+        assertEquals("Not enough available seats", results.get(0).getError());
+        assertEquals("CONFIRMED", results.get(1).getStatus());
+        assertEquals("FAILED", results.get(2).getStatus());
+        verify(bookingRepository, times(1)).saveAll(argThat(list -> ((List<?>) list).size() == 1));
+        // the rejected call reserved nothing, so its saga is completed without a release
+        verify(sagaRepository, times(2)).insert(any(BookingSaga.class));
+        verify(sagaRepository, times(2)).complete("saga-1");
+        verify(seatCommands, never()).releaseSeats(anyString(), anyInt(), any(), any());
+    }
+
+    // --------------------------------------------------------------------
+    // 3e. BATCH → SAVE FAILS, RESERVED SEATS ARE RELEASED
+    // --------------------------------------------------------------------
+    @Test
+    void testBookBatch_SaveFailureReleasesSeats() {
+        List<BookingRequest> requests = List.of(new BookingRequest("FL1", "A", "a@mail.com", 2));
+
+        when(flightClient.reserveSeats(eq("FL1"), eq(2), anyString())).thenReturn(new SeatReservation("R-1", "FL1", 2, 20, true));
+        when(bookingRepository.saveAll(anyList())).thenThrow(new RuntimeException("mongo down"));
+
+        List<BatchBookingResult> results = bookingService.bookBatch(requests);
+
+        assertEquals("FAILED", results.get(0).getStatus());
+        // released against the group's reservation, under its saga's command id
+        ArgumentCaptor<String> reservationId = ArgumentCaptor.forClass(String.class);
+        verify(flightClient).reserveSeats(eq("FL1"), eq(2), reservationId.capture());
+        verify(seatCommands, times(1)).releaseSeats("FL1", 2, reservationId.getValue(), "saga-1");
+        verify(sagaRepository, times(1)).complete("saga-1");
+    }
+
+    // --------------------------------------------------------------------
+    // 3e2. BATCH → RESERVE TIMES OUT, THE GROUP'S RESERVATION IS RELEASED
+    // --------------------------------------------------------------------
+    @Test
+    void testBookBatch_ReserveTimeoutReleasesReservation() {
+        List<BookingRequest> requests = List.of(
+                new BookingRequest("FL1", "A", "a@mail.com", 2),
+                new BookingRequest("FL1", "B", "b@mail.com", 1));
+
+        when(flightClient.reserveSeats(eq("FL1"), eq(3), anyString())).thenThrow(new RuntimeException("read timed out"));
+
+        List<BatchBookingResult> results = bookingService.bookBatch(requests);
+
+        results.forEach(r -> assertEquals("Could not reserve seats", r.getError()));
+        // the reserve may have gone through before the timeout; the release only returns seats if it did
+        ArgumentCaptor<String> reservationId = ArgumentCaptor.forClass(String.class);
+        verify(flightClient).reserveSeats(eq("FL1"), eq(3), reservationId.capture());
+        verify(seatCommands, times(1)).releaseSeats("FL1", 3, reservationId.getValue(), "saga-1");
+        verify(sagaRepository, times(1)).complete("saga-1");
+        verify(bookingRepository, never()).saveAll(anyList());
+    }
+
+    // --------------------------------------------------------------------
+    // 3f. BATCH → ONE FLIGHT THROWS, THE OTHERS KEEP THEIR SEATS
+    // --------------------------------------------------------------------
+    @Test
+    void testBookBatch_FlightFailureKeepsOtherReservations() {
+        List<BookingRequest> requests = List.of(
+                new BookingRequest("FL1", "A", "a@mail.com", 2),
+                new BookingRequest("FL2", "B", "b@mail.com", 1));
+
+        when(flightClient.reserveSeats(eq("FL1"), eq(2), anyString())).thenReturn(new SeatReservation("R-1", "FL1", 2, 20, true));
+        when(flightClient.reserveSeats(eq("FL2"), eq(1), anyString())).thenThrow(new RuntimeException("connection reset"));
+
+        List<BatchBookingResult> results = bookingService.bookBatch(requests);
+
+        assertEquals("CONFIRMED", results.get(0).getStatus());
+        assertEquals("FAILED", results.get(1).getStatus());
+        assertEquals("Could not reserve seats", results.get(1).getError());
+        verify(bookingRepository, times(1)).saveAll(argThat(list -> ((List<?>) list).size() == 1));
+        verify(seatCommands, never()).releaseSeats(eq("FL1"), anyInt(), any(), any());
+        verify(seatCommands, times(1)).releaseSeats(eq("FL2"), eq(1), anyString(), anyString());
     }
 
     // --------------------------------------------------------------------
@@ -99,8 +355,43 @@ public class BookingServiceTest {
         Booking result = bookingService.cancelBooking("B1");
 
         assertEquals("CANCELLED", result.getStatus());
-        verify(flightClient, times(1)).increaseSeats("FL123", 2);
-        verify(emailProducer, times(1)).sendEmail(any(EmailNotification.class));
+        verify(seatCommands, times(1)).releaseSeats("FL123", 2, null, "cancel:B1");
+        verify(flightClient, never()).increaseSeats(anyString(), anyInt());
+        verify(bookingRepository, times(1)).save(argThat((Booking booking) ->
+                "Booking Cancelled".equals(booking.getOutbox().get(0).getNotification().getSubject())));
+    }
+
+    // --------------------------------------------------------------------
+    // 4b. TWO CANCELS RACE PAST THE CONFIRMED CHECK → ONE COMMAND ID
+    // --------------------------------------------------------------------
+    @Test
+    void testConcurrentCancelsSendTheSameCommand() throws Exception {
+        // each cancel reads its own copy of the booking, still CONFIRMED
+        when(bookingRepository.findById("B1")).thenAnswer(invocation -> {
+            Booking existing = new Booking();
+            existing.setId("B1");
+            existing.setFlightId("FL123");
+            existing.setSeats(2);
+            existing.setStatus("CONFIRMED");
+            return Optional.of(existing);
+        });
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Booking>> cancels = List.of(
+                    executor.submit(() -> { start.await(); return bookingService.cancelBooking("B1"); }),
+                    executor.submit(() -> { start.await(); return bookingService.cancelBooking("B1"); }));
+            start.countDown();
+            for (Future<Booking> cancel : cancels) {
+                assertEquals("CANCELLED", cancel.get(5, TimeUnit.SECONDS).getStatus());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // both releases carry the booking's command id, so flightservice gives the seats back once
+        verify(seatCommands, times(2)).releaseSeats("FL123", 2, null, "cancel:B1");
+        verify(seatCommands, never()).releaseSeats(anyString(), anyInt(), any(), argThat(id -> !"cancel:B1".equals(id)));
     }
 
     // --------------------------------------------------------------------
@@ -118,7 +409,69 @@ public class BookingServiceTest {
         Booking result = bookingService.cancelBooking("B1");
 
         assertEquals("CANCELLED", result.getStatus());
-        verify(flightClient, never()).increaseSeats(anyString(), anyInt());
+        verify(seatCommands, never()).releaseSeats(anyString(), anyInt(), any(), any());
+    }
+
+    // --------------------------------------------------------------------
+    // 5b. OUTCOMES ARE COUNTED BY STATUS
+    // --------------------------------------------------------------------
+    @Test
+    void testOutcomesAreCounted() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bookingService = new BookingService(bookingRepository, flightClient, outbox, sagas,
+                FlightAvailabilityCache.disabled(), new BookingMetrics(registry));
+        BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+        when(flightClient.reserveSeats(eq("FL123"), eq(2), anyString()))
+                .thenReturn(new SeatReservation("R-1", "FL123", 2, 48, true))
+                .thenReturn(SeatReservation.rejected("FL123", 2));
+
+        Booking booked = bookingService.bookTicket(request);
+        assertThrows(FlightServiceDownException.class, () -> bookingService.bookTicket(request));
+        when(bookingRepository.findById(booked.getId())).thenReturn(Optional.of(booked));
+        bookingService.cancelBooking(booked.getId());
+
+        assertEquals(1, registry.get("booking.outcomes").tag("status", "CONFIRMED").counter().count());
+        assertEquals(1, registry.get("booking.outcomes").tag("status", "FAILED").counter().count());
+        assertEquals(1, registry.get("booking.outcomes").tag("status", "CANCELLED").counter().count());
+        assertEquals(1, registry.get("booking.step.latency").tag("step", "save").timer().count());
+    }
+
+    // --------------------------------------------------------------------
+    // 6. HISTORY PAGES → KEYSET CURSOR FROM THE LAST BOOKING
+    // --------------------------------------------------------------------
+    @Test
+    void testHistoryPage_CursorContinuesAfterLastBooking() {
+        Date newest = new Date(2_000_000L);
+        Date older = new Date(1_000_000L);
+        when(bookingRepository.findHistory("a@mail.com", null, null, 3, Booking.class))
+                .thenReturn(List.of(booking("B3", newest), booking("B2", older), booking("B1", older)));
+
+        BookingHistoryPage<Booking> first = bookingService.getHistoryPage("a@mail.com", null, 2);
+
+        assertEquals(2, first.getBookings().size());
+        assertNotNull(first.getNextCursor());
+
+        when(bookingRepository.findHistory("a@mail.com", older, "B2", 3, Booking.class))
+                .thenReturn(List.of(booking("B1", older)));
+
+        BookingHistoryPage<Booking> second = bookingService.getHistoryPage("a@mail.com", first.getNextCursor(), 2);
+
+        assertEquals("B1", second.getBookings().get(0).getId());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testHistoryPage_InvalidCursor() {
+        assertThrows(IllegalStateException.class,
+                () -> bookingService.getHistoryPage("a@mail.com", "not-a-cursor", 20));
+        verify(bookingRepository, never()).findHistory(anyString(), any(), any(), anyInt(), any());
+    }
+
+    private static Booking booking(String id, Date bookingDate) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setBookingDate(bookingDate);
+        return booking;
     }
 
 }
\ No newline at end of file
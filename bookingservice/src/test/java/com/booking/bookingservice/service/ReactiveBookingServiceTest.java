@@ -0,0 +1,173 @@
+package com.booking.bookingservice.service;
+
+import com.booking.bookingservice.cache.FlightAvailabilityCache;
+import com.booking.bookingservice.client.ReactiveFlightClient;
+import com.booking.bookingservice.dto.BookingRequest;
+import com.booking.bookingservice.dto.SeatReservation;
+import com.booking.bookingservice.exception.BookingNotFoundException;
+import com.booking.bookingservice.exception.FlightServiceDownException;
+import com.booking.bookingservice.model.Booking;
+import com.booking.bookingservice.model.BookingSaga;
+import com.booking.bookingservice.repo.ReactiveBookingRepository;
+import com.booking.bookingservice.saga.BookingSagaCoordinator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveBookingServiceTest {
+
+    private ReactiveBookingRepository bookingRepository;
+    private ReactiveFlightClient flightClient;
+    private BookingSagaCoordinator sagas;
+    private ReactiveBookingService bookingService;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(ReactiveBookingRepository.class);
+        flightClient = mock(ReactiveFlightClient.class);
+        sagas = mock(BookingSagaCoordinator.class);
+        when(sagas.begin(any(), any())).thenAnswer(inv -> new BookingSaga(inv.getArgument(0), inv.getArgument(1)));
+
+        bookingService = new ReactiveBookingService(bookingRepository, flightClient, sagas, FlightAvailabilityCache.disabled());
+
+        when(bookingRepository.save(any(Booking.class)))
+                .thenAnswer(inv -> Mono.just(inv.getArgument(0, Booking.class)));
+    }
+
+    @Test
+    void testBookTicket_Success() {
+        BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+        when(flightClient.reserveSeats(eq("FL123"), eq(2), anyString()))
+                .thenAnswer(inv -> Mono.just(new SeatReservation(inv.getArgument(2), "FL123", 2, 48, true)));
+
+        StepVerifier.create(bookingService.bookTicket(request))
+                .assertNext(booking -> {
+                    assertEquals("CONFIRMED", booking.getStatus());
+                    assertEquals(booking.getId(), booking.getReservationId());
+                })
+                .verifyComplete();
+
+        InOrder inOrder = inOrder(sagas, flightClient);
+        inOrder.verify(sagas).begin(eq(BookingSaga.Type.BOOK), any(Booking.class));
+        inOrder.verify(flightClient).reserveSeats(eq("FL123"), eq(2), anyString());
+        inOrder.verify(sagas).complete(any(BookingSaga.class));
+        verify(sagas, never()).compensate(any());
+
+        // the confirmation email is stored inside the booking by the same write
+        verify(bookingRepository, times(1)).save(argThat((Booking booking) -> booking.getOutbox().size() == 1
+                && "Booking Confirmed".equals(booking.getOutbox().get(0).getNotification().getSubject())));
+    }
+
+    @Test
+    void testBookTicket_NotReserved() {
+        BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+        when(flightClient.reserveSeats(eq("FL123"), eq(2), anyString()))
+                .thenReturn(Mono.just(SeatReservation.rejected("FL123", 2)));
+
+        StepVerifier.create(bookingService.bookTicket(request))
+                .expectError(FlightServiceDownException.class)
+                .verify();
+
+        verify(bookingRepository, never()).save(any(Booking.class));
+        // a failed call may have reserved before it was cut off
+        verify(sagas, times(1)).compensate(any(BookingSaga.class));
+    }
+
+    @Test
+    void testBookTicket_SoldOutCompletesSaga() {
+        BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+        when(flightClient.reserveSeats(eq("FL123"), eq(2), anyString()))
+                .thenReturn(Mono.just(new SeatReservation(null, "FL123", 2, 1, false)));
+
+        StepVerifier.create(bookingService.bookTicket(request))
+                .expectError(FlightServiceDownException.class)
+                .verify();
+
+        verify(sagas, times(1)).complete(any(BookingSaga.class));
+        verify(sagas, never()).compensate(any());
+    }
+
+    @Test
+    void testBookTicket_SaveFailureReleasesSeats() {
+        BookingRequest request = new BookingRequest("FL123", "John", "john@gmail.com", 2);
+        when(flightClient.reserveSeats(eq("FL123"), eq(2), anyString()))
+                .thenReturn(Mono.just(new SeatReservation("R-1", "FL123", 2, 48, true)));
+        when(bookingRepository.save(any(Booking.class))).thenReturn(Mono.error(new RuntimeException("mongo down")));
+
+        StepVerifier.create(bookingService.bookTicket(request))
+                .expectErrorMessage("mongo down")
+                .verify();
+
+        verify(sagas, times(1)).compensate(argThat(saga -> saga.getType() == BookingSaga.Type.BOOK
+                && saga.getReservationId().equals(saga.getBookingId())));
+        verify(sagas, never()).complete(any());
+    }
+
+    @Test
+    void testBookTicket_SoldOutRejectedLocally() {
+        FlightAvailabilityCache cache = new FlightAvailabilityCache(Duration.ofMinutes(1), 10, 100);
+        cache.onSeatChange("FL123", 0);
+        ReactiveBookingService cached = new ReactiveBookingService(bookingRepository, flightClient, sagas, cache);
+
+        StepVerifier.create(cached.bookTicket(new BookingRequest("FL123", "John", "john@gmail.com", 1)))
+                .assertNext(booking -> assertEquals("FAILED", booking.getStatus()))
+                .verifyComplete();
+
+        verify(flightClient, never()).reserveSeats(any(), anyInt(), any());
+        verify(sagas, never()).begin(any(), any());
+    }
+
+    @Test
+    void testCancelBooking_RestoresSeats() {
+        Booking booking = confirmed();
+        when(bookingRepository.findById("B1")).thenReturn(Mono.just(booking));
+
+        StepVerifier.create(bookingService.cancelBooking("B1"))
+                .assertNext(cancelled -> assertEquals("CANCELLED", cancelled.getStatus()))
+                .verifyComplete();
+
+        InOrder inOrder = inOrder(sagas, bookingRepository);
+        inOrder.verify(sagas).begin(BookingSaga.Type.CANCEL, booking);
+        inOrder.verify(bookingRepository).save(argThat((Booking saved) ->
+                "Booking Cancelled".equals(saved.getOutbox().get(0).getNotification().getSubject())));
+        inOrder.verify(sagas).compensate(argThat(saga -> saga.getType() == BookingSaga.Type.CANCEL));
+    }
+
+    @Test
+    void testCancelBooking_SaveFailureKeepsSeats() {
+        when(bookingRepository.findById("B1")).thenReturn(Mono.just(confirmed()));
+        when(bookingRepository.save(any(Booking.class))).thenReturn(Mono.error(new RuntimeException("mongo down")));
+
+        StepVerifier.create(bookingService.cancelBooking("B1"))
+                .expectErrorMessage("mongo down")
+                .verify();
+
+        verify(sagas, times(1)).complete(any(BookingSaga.class));
+        verify(sagas, never()).compensate(any());
+    }
+
+    private static Booking confirmed() {
+        Booking booking = new Booking();
+        booking.setId("B1");
+        booking.setFlightId("FL123");
+        booking.setSeats(2);
+        booking.setStatus("CONFIRMED");
+        return booking;
+    }
+
+    @Test
+    void testGetBooking_NotFound() {
+        when(bookingRepository.findById("X")).thenReturn(Mono.empty());
+
+        StepVerifier.create(bookingService.getBooking("X"))
+                .expectError(BookingNotFoundException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,235 @@
+package com.flightbooking.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop users that search, book and cancel through the public HTTP APIs. Bookings go to the
+ * hot flight with the configured share, everything else is spread over the other flights; users
+ * only cancel bookings they made themselves. Operations finishing during the warmup are not recorded.
+ */
+final class BookingFlowScenario {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingFlowScenario.class);
+    private static final String DATE = "2026-01-15";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final LoadTestConfig config;
+    private final String flightUrl;
+    private final String bookingUrl;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(TIMEOUT)
+            .build();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<String[]> routes = new ArrayList<>();
+    private final List<String> flightIds = new ArrayList<>();
+    private final Map<String, Integer> capacity = new LinkedHashMap<>();
+    private String hotFlightId;
+
+    BookingFlowScenario(LoadTestConfig config, String flightUrl, String bookingUrl) {
+        this.config = config;
+        this.flightUrl = flightUrl;
+        this.bookingUrl = bookingUrl;
+    }
+
+    /**
+     * Adds the flights through POST /flights/add. The first flight on the first route is the hot one.
+     */
+    void seed() throws IOException, InterruptedException {
+        for (int r = 0; r < config.routes; r++) {
+            String[] route = {"SRC" + r, "DST" + r};
+            routes.add(route);
+            for (int f = 0; f < config.flightsPerRoute; f++) {
+                boolean hot = hotFlightId == null;
+                int seats = hot ? config.hotFlightSeats : config.flightSeats;
+                Map<String, Object> flight = Map.of(
+                        "flightNumber", "LT" + r + "-" + f,
+                        "airline", "LoadTest Air",
+                        "source", route[0],
+                        "destination", route[1],
+                        "date", DATE,
+                        "availableSeats", seats);
+
+                HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(flightUrl + "/flights/add"))
+                        .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(flight))));
+                if (response.statusCode() != 201) {
+                    throw new IllegalStateException("Could not add flight: " + response.statusCode() + " " + response.body());
+                }
+                String id = mapper.readTree(response.body()).path("id").asText();
+                capacity.put(id, seats);
+                if (hot) {
+                    hotFlightId = id;
+                } else {
+                    flightIds.add(id);
+                }
+            }
+        }
+        log.info("Seeded {} flights on {} routes, hot flight {} has {} seats",
+                capacity.size(), routes.size(), hotFlightId, config.hotFlightSeats);
+    }
+
+    Map<String, Integer> capacity() {
+        return capacity;
+    }
+
+    String hotFlightId() {
+        return hotFlightId;
+    }
+
+    /**
+     * Runs the users for the warmup plus the measured duration.
+     */
+    Map<Operation, Samples> run() throws InterruptedException {
+        long measureFrom = System.nanoTime() + config.warmup.toNanos();
+        long until = measureFrom + config.duration.toNanos();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(config.users);
+        List<Future<Map<Operation, Samples>>> users = new ArrayList<>();
+        for (int u = 0; u < config.users; u++) {
+            int user = u;
+            users.add(pool.submit(() -> {
+                start.await();
+                return new User(user).run(measureFrom, until);
+            }));
+        }
+        start.countDown();
+
+        Map<Operation, Samples> merged = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            merged.put(operation, new Samples());
+        }
+        try {
+            for (Future<Map<Operation, Samples>> user : users) {
+                user.get().forEach((operation, samples) -> merged.get(operation).addAll(samples));
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A load test user failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return merged;
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return http.send(request.timeout(TIMEOUT).header("Content-Type", "application/json").build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private final class User {
+
+        private final String email;
+        private final Deque<String> bookings = new ArrayDeque<>();
+        private final Map<Operation, Samples> samples = new EnumMap<>(Operation.class);
+
+        private User(int id) {
+            this.email = "user" + id + "@loadtest.local";
+            for (Operation operation : Operation.values()) {
+                samples.put(operation, new Samples());
+            }
+        }
+
+        Map<Operation, Samples> run(long measureFrom, long until) throws InterruptedException {
+            while (System.nanoTime() < until) {
+                Operation operation = next();
+                long started = System.nanoTime();
+                Samples.Outcome outcome = execute(operation);
+                long finished = System.nanoTime();
+                if (started >= measureFrom && finished <= until) {
+                    samples.get(operation).record(finished - started, outcome);
+                }
+            }
+            return samples;
+        }
+
+        private Operation next() {
+            int pick = ThreadLocalRandom.current().nextInt(config.totalWeight());
+            if (pick < config.searchWeight) {
+                return Operation.SEARCH;
+            }
+            if (pick < config.searchWeight + config.bookWeight || bookings.isEmpty()) {
+                return Operation.BOOK;
+            }
+            return Operation.CANCEL;
+        }
+
+        private Samples.Outcome execute(Operation operation) throws InterruptedException {
+            try {
+                return switch (operation) {
+                    case SEARCH -> search();
+                    case BOOK -> book();
+                    case CANCEL -> cancel();
+                };
+            } catch (IOException e) {
+                return Samples.Outcome.ERROR;
+            }
+        }
+
+        private Samples.Outcome search() throws IOException, InterruptedException {
+            String[] route = routes.get(ThreadLocalRandom.current().nextInt(routes.size()));
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(flightUrl
+                    + "/flights/search?source=" + route[0] + "&destination=" + route[1] + "&date=" + DATE)).GET());
+            return response.statusCode() == 200 ? Samples.Outcome.OK : Samples.Outcome.ERROR;
+        }
+
+        private Samples.Outcome book() throws IOException, InterruptedException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String flightId = random.nextDouble() < config.hotFlightShare
+                    ? hotFlightId
+                    : flightIds.get(random.nextInt(flightIds.size()));
+            Map<String, Object> request = Map.of(
+                    "flightId", flightId,
+                    "passengerName", email,
+                    "email", email,
+                    "seats", 1 + random.nextInt(config.maxSeatsPerBooking));
+
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(bookingUrl + "/booking/create"))
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(request))));
+
+            // a sold-out flight is answered with a FAILED booking or 503, depending on the circuit breaker
+            if (response.statusCode() == 503) {
+                return Samples.Outcome.REJECTED;
+            }
+            if (response.statusCode() != 201) {
+                return Samples.Outcome.ERROR;
+            }
+            JsonNode booking = mapper.readTree(response.body());
+            if (!"CONFIRMED".equals(booking.path("status").asText())) {
+                return Samples.Outcome.REJECTED;
+            }
+            bookings.push(booking.path("id").asText());
+            return Samples.Outcome.OK;
+        }
+
+        private Samples.Outcome cancel() throws IOException, InterruptedException {
+            String id = bookings.pop();
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(bookingUrl + "/booking/cancel/" + id))
+                    .PUT(HttpRequest.BodyPublishers.noBody()));
+            return response.statusCode() == 200 ? Samples.Outcome.OK : Samples.Outcome.ERROR;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.flightbooking.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread and heap footprint of the JVM while the booking flow runs. Both services run in this
+ * JVM, so the figures cover them together, plus the load test's own user threads. Virtual
+ * threads do not show up in the thread counts; only the platform threads carrying them do.
+ */
+final class FootprintSampler implements AutoCloseable {
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "footprint-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // written by the timer thread only, read once it has stopped
+    private long heapUsedMax;
+    private long heapUsedSum;
+    private long heapCommittedMax;
+    private int liveThreadsMax;
+    private long sampleCount;
+
+    static FootprintSampler start(Duration interval) {
+        FootprintSampler sampler = new FootprintSampler();
+        sampler.threads.resetPeakThreadCount();
+        sampler.timer.scheduleAtFixedRate(sampler::sample, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        return sampler;
+    }
+
+    private void sample() {
+        long used = memory.getHeapMemoryUsage().getUsed();
+        heapUsedMax = Math.max(heapUsedMax, used);
+        heapUsedSum += used;
+        heapCommittedMax = Math.max(heapCommittedMax, memory.getHeapMemoryUsage().getCommitted());
+        liveThreadsMax = Math.max(liveThreadsMax, threads.getThreadCount());
+        sampleCount++;
+    }
+
+    /**
+     * Stops sampling and returns what was seen since {@link #start}.
+     */
+    Footprint stop() throws InterruptedException {
+        timer.shutdown();
+        timer.awaitTermination(5, TimeUnit.SECONDS);
+        return new Footprint(threads.getPeakThreadCount(), liveThreadsMax,
+                heapUsedMax, sampleCount == 0 ? 0 : heapUsedSum / sampleCount, heapCommittedMax);
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    record Footprint(int peakThreads, int maxLiveThreads, long maxHeapUsed, long avgHeapUsed, long maxHeapCommitted) {
+    }
+}
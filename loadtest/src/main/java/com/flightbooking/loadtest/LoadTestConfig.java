@@ -0,0 +1,87 @@
+package com.flightbooking.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load test settings, read from -Dloadtest.* system properties. The defaults are a short run that
+ * fits a laptop; the gate thresholds are meant to be tuned against a baseline run on the machine
+ * that runs the gate.
+ */
+final class LoadTestConfig {
+
+    // -------------------- LOAD --------------------
+    final Duration warmup = duration("warmup", "10s");
+    final Duration duration = duration("duration", "60s");
+    final int users = integer("users", 32);
+    final int searchWeight = integer("mix.search", 60);
+    final int bookWeight = integer("mix.book", 30);
+    final int cancelWeight = integer("mix.cancel", 10);
+    final int maxSeatsPerBooking = integer("max-seats-per-booking", 2);
+
+    // -------------------- FLIGHTS --------------------
+    final int routes = integer("routes", 4);
+    final int flightsPerRoute = integer("flights-per-route", 5);
+    final int flightSeats = integer("flight-seats", 100_000);
+    // one flight with few seats that a share of all bookings go to, so they race for the last seats
+    final int hotFlightSeats = integer("hot-flight.seats", 100);
+    final double hotFlightShare = decimal("hot-flight.share", 0.3);
+
+    // -------------------- SERVICES --------------------
+    final String mongoUri = System.getProperty("loadtest.mongo-uri"); // null: start a Mongo container
+    final String rabbitHost = System.getProperty("loadtest.rabbit-host"); // null: start a RabbitMQ container
+    final int rabbitPort = integer("rabbit-port", 5672);
+    final boolean virtualThreads;
+    // run once on platform threads and once on virtual threads, and compare the two
+    final boolean compareThreads = Boolean.parseBoolean(System.getProperty("loadtest.compare-threads", "false"));
+    final boolean inMemoryInventory = Boolean.parseBoolean(System.getProperty("loadtest.in-memory-inventory", "false"));
+    final Duration settleTimeout = duration("settle-timeout", "30s");
+
+    // -------------------- GATE --------------------
+    final double minThroughput = decimal("gate.min-throughput", 100);
+    final Duration maxP99 = duration("gate.max-p99", "1s");
+    final double maxErrorRate = decimal("gate.max-error-rate", 0.01);
+
+    final Duration footprintInterval = duration("footprint-interval", "250ms");
+
+    final Path report;
+
+    LoadTestConfig() {
+        this(Boolean.parseBoolean(System.getProperty("loadtest.virtual-threads", "false")),
+                Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json")));
+    }
+
+    private LoadTestConfig(boolean virtualThreads, Path report) {
+        this.virtualThreads = virtualThreads;
+        this.report = report;
+    }
+
+    /**
+     * The same settings with the services on platform or virtual threads, reporting to a file
+     * named after the mode.
+     */
+    LoadTestConfig withVirtualThreads(boolean virtualThreads) {
+        String name = report.getFileName().toString().replaceFirst("\\.json$", "");
+        return new LoadTestConfig(virtualThreads,
+                report.resolveSibling(name + (virtualThreads ? "-virtual" : "-platform") + ".json"));
+    }
+
+    int totalWeight() {
+        return searchWeight + bookWeight + cancelWeight;
+    }
+
+    private static Duration duration(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty("loadtest." + name, defaultValue));
+    }
+
+    private static int integer(String name, int defaultValue) {
+        return Integer.getInteger("loadtest." + name, defaultValue);
+    }
+
+    private static double decimal(String name, double defaultValue) {
+        String value = System.getProperty("loadtest." + name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+}
@@ -0,0 +1,77 @@
+package com.flightbooking.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Starts the services, seeds flights, runs the booking flow and checks the result against the
+ * gate. Exits with 0 when the gate passes and 1 when it does not, so CI can run it as a step:
+ * <pre>
+ * mvn -f loadtest/pom.xml compile exec:java -Dloadtest.duration=120s -Dloadtest.users=64
+ * </pre>
+ * With -Dloadtest.compare-threads=true the flow runs twice, on platform and then on virtual
+ * threads, each against freshly started services, and the two are printed side by side. Virtual
+ * threads need a Java 21+ runtime; on an older one the launcher refuses to start rather than
+ * measure platform threads under a virtual-thread label.
+ */
+public final class LoadTestLauncher {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestLauncher.class);
+
+    private LoadTestLauncher() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        boolean passed;
+
+        if (config.compareThreads) {
+            requireVirtualThreads();
+            LoadTestReport platform = run(config.withVirtualThreads(false));
+            LoadTestReport virtual = run(config.withVirtualThreads(true));
+            LoadTestReport.printComparison(System.out, platform, virtual);
+            passed = platform.passed() && virtual.passed();
+        } else {
+            if (config.virtualThreads) {
+                requireVirtualThreads();
+            }
+            passed = run(config).passed();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static LoadTestReport run(LoadTestConfig config) throws Exception {
+        LoadTestReport report;
+
+        try (Services services = Services.start(config)) {
+            BookingFlowScenario scenario = new BookingFlowScenario(config, services.flightUrl(), services.bookingUrl());
+            scenario.seed();
+
+            log.info("Running {} users for {} after {} warmup on {} threads",
+                    config.users, config.duration, config.warmup, config.virtualThreads ? "virtual" : "platform");
+            Map<Operation, Samples> samples;
+            FootprintSampler.Footprint footprint;
+            try (FootprintSampler sampler = FootprintSampler.start(config.footprintInterval)) {
+                samples = scenario.run();
+                footprint = sampler.stop();
+            }
+
+            SeatAudit audit = SeatAudit.settle(services, scenario.capacity(), scenario.hotFlightId(), config.settleTimeout);
+            report = new LoadTestReport(config, samples, audit, footprint);
+        }
+
+        report.print(System.out);
+        report.write(config.report);
+        log.info("Report written to {}", config.report.toAbsolutePath());
+        return report;
+    }
+
+    private static void requireVirtualThreads() {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need a Java 21+ runtime, this is " + Runtime.version()
+                    + "; run the load test with a JDK 21 (the loadtest pom then compiles for 21)");
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.flightbooking.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throughput, latency percentiles, thread and heap footprint and seat audit of one run, checked
+ * against the gate: enough throughput, every operation's p99 under the limit, few enough errors
+ * and no oversold seat.
+ */
+final class LoadTestReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final LoadTestConfig config;
+    private final Map<Operation, Samples> samples;
+    private final SeatAudit audit;
+    private final FootprintSampler.Footprint footprint;
+    private final List<String> failures = new ArrayList<>();
+
+    LoadTestReport(LoadTestConfig config, Map<Operation, Samples> samples, SeatAudit audit,
+                   FootprintSampler.Footprint footprint) {
+        this.config = config;
+        this.samples = samples;
+        this.audit = audit;
+        this.footprint = footprint;
+        evaluate();
+    }
+
+    boolean passed() {
+        return failures.isEmpty();
+    }
+
+    private void evaluate() {
+        if (throughput() < config.minThroughput) {
+            failures.add(String.format("throughput %.1f ops/s is below %.1f ops/s", throughput(), config.minThroughput));
+        }
+        long maxP99 = config.maxP99.toNanos();
+        samples.forEach((operation, stats) -> {
+            if (stats.percentile(99) > maxP99) {
+                failures.add(String.format("%s p99 %.1f ms is above %d ms",
+                        operation, stats.percentile(99) / NANOS_PER_MILLI, config.maxP99.toMillis()));
+            }
+        });
+        if (errorRate() > config.maxErrorRate) {
+            failures.add(String.format("error rate %.4f is above %.4f", errorRate(), config.maxErrorRate));
+        }
+        if (audit.oversold > 0) {
+            failures.add(audit.oversold + " seats oversold");
+        }
+    }
+
+    private long total() {
+        return samples.values().stream().mapToLong(Samples::count).sum();
+    }
+
+    private double throughput() {
+        return total() / (config.duration.toMillis() / 1000.0);
+    }
+
+    private double errorRate() {
+        long total = total();
+        return total == 0 ? 1.0 : samples.values().stream().mapToLong(Samples::errors).sum() / (double) total;
+    }
+
+    void print(PrintStream out) {
+        out.printf("%n%-8s %10s %10s %10s %10s %10s %10s%n", "op", "count", "rejected", "errors", "p50 ms", "p99 ms", "max ms");
+        samples.forEach((operation, stats) -> out.printf("%-8s %10d %10d %10d %10.1f %10.1f %10.1f%n",
+                operation, stats.count(), stats.rejected(), stats.errors(),
+                stats.percentile(50) / NANOS_PER_MILLI, stats.percentile(99) / NANOS_PER_MILLI,
+                stats.percentile(100) / NANOS_PER_MILLI));
+        out.printf("%nthroughput %.1f ops/s, error rate %.4f%n", throughput(), errorRate());
+        out.printf("%s threads on Java %s: peak %d platform threads, heap used max %.1f MB, avg %.1f MB%n",
+                config.virtualThreads ? "virtual" : "platform", Runtime.version().feature(), footprint.peakThreads(),
+                footprint.maxHeapUsed() / BYTES_PER_MB, footprint.avgHeapUsed() / BYTES_PER_MB);
+        out.printf("hot flight: %d of %d seats held by confirmed bookings, %d available%n",
+                audit.hotFlightConfirmed, config.hotFlightSeats, audit.hotFlightAvailable);
+        out.printf("oversold seats %d, leaked seats %d%n%n", audit.oversold, audit.leaked);
+        if (passed()) {
+            out.println("GATE PASSED");
+        } else {
+            out.println("GATE FAILED");
+            failures.forEach(failure -> out.println("  - " + failure));
+        }
+    }
+
+    private Map<String, Object> footprint() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("peakThreads", footprint.peakThreads());
+        map.put("maxLiveThreads", footprint.maxLiveThreads());
+        map.put("loadUserThreads", config.users);
+        map.put("maxHeapUsedMb", footprint.maxHeapUsed() / BYTES_PER_MB);
+        map.put("avgHeapUsedMb", footprint.avgHeapUsed() / BYTES_PER_MB);
+        map.put("maxHeapCommittedMb", footprint.maxHeapCommitted() / BYTES_PER_MB);
+        return map;
+    }
+
+    /**
+     * Side by side figures of a run on platform threads and one on virtual threads.
+     */
+    static void printComparison(PrintStream out, LoadTestReport platform, LoadTestReport virtual) {
+        out.printf("%n%-22s %12s %12s%n", "", "platform", "virtual");
+        out.printf("%-22s %12.1f %12.1f%n", "throughput ops/s", platform.throughput(), virtual.throughput());
+        for (Operation operation : platform.samples.keySet()) {
+            out.printf("%-22s %12.1f %12.1f%n", operation + " p99 ms",
+                    platform.samples.get(operation).percentile(99) / NANOS_PER_MILLI,
+                    virtual.samples.get(operation).percentile(99) / NANOS_PER_MILLI);
+        }
+        out.printf("%-22s %12d %12d%n", "peak platform threads",
+                platform.footprint.peakThreads(), virtual.footprint.peakThreads());
+        out.printf("%-22s %12.1f %12.1f%n", "heap used max MB",
+                platform.footprint.maxHeapUsed() / BYTES_PER_MB, virtual.footprint.maxHeapUsed() / BYTES_PER_MB);
+        out.printf("%-22s %12.1f %12.1f%n%n", "heap used avg MB",
+                platform.footprint.avgHeapUsed() / BYTES_PER_MB, virtual.footprint.avgHeapUsed() / BYTES_PER_MB);
+    }
+
+    void write(Path path) throws IOException {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        samples.forEach((operation, stats) -> {
+            Map<String, Object> op = new LinkedHashMap<>();
+            op.put("count", stats.count());
+            op.put("rejected", stats.rejected());
+            op.put("errors", stats.errors());
+            op.put("p50Ms", stats.percentile(50) / NANOS_PER_MILLI);
+            op.put("p99Ms", stats.percentile(99) / NANOS_PER_MILLI);
+            op.put("maxMs", stats.percentile(100) / NANOS_PER_MILLI);
+            operations.put(operation.name(), op);
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", config.users);
+        report.put("durationSeconds", config.duration.toSeconds());
+        report.put("javaVersion", Runtime.version().toString());
+        report.put("virtualThreads", config.virtualThreads);
+        report.put("inMemoryInventory", config.inMemoryInventory);
+        report.put("throughput", throughput());
+        report.put("errorRate", errorRate());
+        report.put("operations", operations);
+        report.put("footprint", footprint());
+        report.put("hotFlightSeats", config.hotFlightSeats);
+        report.put("hotFlightConfirmedSeats", audit.hotFlightConfirmed);
+        report.put("oversoldSeats", audit.oversold);
+        report.put("leakedSeats", audit.leaked);
+        report.put("passed", passed());
+        report.put("failures", failures);
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+    }
+}
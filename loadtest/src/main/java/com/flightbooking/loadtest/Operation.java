@@ -0,0 +1,7 @@
+package com.flightbooking.loadtest;
+
+enum Operation {
+    SEARCH,
+    BOOK,
+    CANCEL
+}
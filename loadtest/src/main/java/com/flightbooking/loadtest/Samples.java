@@ -0,0 +1,69 @@
+package com.flightbooking.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Latencies and outcomes of one operation. Each user records into its own instance, so recording
+ * needs no synchronization; the instances are merged once the run is over.
+ */
+final class Samples {
+
+    enum Outcome { OK, REJECTED, ERROR }
+
+    private long[] nanos = new long[1024];
+    private int size;
+    private long rejected;
+    private long errors;
+    private boolean sorted;
+
+    void record(long elapsedNanos, Outcome outcome) {
+        if (size == nanos.length) {
+            nanos = Arrays.copyOf(nanos, size * 2);
+        }
+        nanos[size++] = elapsedNanos;
+        sorted = false;
+        if (outcome == Outcome.REJECTED) {
+            rejected++;
+        } else if (outcome == Outcome.ERROR) {
+            errors++;
+        }
+    }
+
+    void addAll(Samples other) {
+        if (size + other.size > nanos.length) {
+            nanos = Arrays.copyOf(nanos, size + other.size);
+        }
+        System.arraycopy(other.nanos, 0, nanos, size, other.size);
+        size += other.size;
+        rejected += other.rejected;
+        errors += other.errors;
+        sorted = false;
+    }
+
+    long count() {
+        return size;
+    }
+
+    long rejected() {
+        return rejected;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /**
+     * @return the latency at the given percentile (0-100) in nanoseconds, 0 when nothing was recorded
+     */
+    long percentile(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(nanos, 0, size);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * size);
+        return nanos[Math.min(Math.max(rank, 1), size) - 1];
+    }
+}
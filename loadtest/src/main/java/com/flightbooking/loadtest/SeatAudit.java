@@ -0,0 +1,69 @@
+package com.flightbooking.loadtest;
+
+import com.flight.flightservice.model.Flight;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares the seats flightservice has given out with the seats held by confirmed bookings, per
+ * flight. Oversold seats are confirmed beyond a flight's capacity (or a negative seat count);
+ * leaked seats are ones taken or given back on one side only. Releases reach flightservice
+ * asynchronously, so the audit is repeated until nothing is leaked or the timeout passes.
+ */
+final class SeatAudit {
+
+    final int oversold;
+    final int leaked;
+    final int hotFlightConfirmed;
+    final int hotFlightAvailable;
+
+    private SeatAudit(int oversold, int leaked, int hotFlightConfirmed, int hotFlightAvailable) {
+        this.oversold = oversold;
+        this.leaked = leaked;
+        this.hotFlightConfirmed = hotFlightConfirmed;
+        this.hotFlightAvailable = hotFlightAvailable;
+    }
+
+    static SeatAudit settle(Services services, Map<String, Integer> capacity, String hotFlightId, Duration timeout)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        SeatAudit audit = audit(services, capacity, hotFlightId);
+        while (audit.leaked > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(500);
+            audit = audit(services, capacity, hotFlightId);
+        }
+        return audit;
+    }
+
+    private static SeatAudit audit(Services services, Map<String, Integer> capacity, String hotFlightId) {
+        Map<String, Integer> confirmed = new HashMap<>();
+        Aggregation confirmedSeats = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("status").is("CONFIRMED")),
+                Aggregation.group("flightId").sum("seats").as("seats"));
+        for (Document seats : services.bookingMongo().aggregate(confirmedSeats, "bookings", Document.class)) {
+            confirmed.put(seats.getString("_id"), seats.getInteger("seats"));
+        }
+
+        Map<String, Integer> available = new HashMap<>();
+        for (Flight flight : services.flightMongo().findAll(Flight.class)) {
+            available.put(flight.getId(), flight.getAvailableSeats());
+        }
+
+        int oversold = 0;
+        int leaked = 0;
+        for (Map.Entry<String, Integer> flight : capacity.entrySet()) {
+            int seats = flight.getValue();
+            int held = confirmed.getOrDefault(flight.getKey(), 0);
+            int left = available.getOrDefault(flight.getKey(), seats);
+            oversold += Math.max(0, Math.max(held - seats, -left));
+            leaked += Math.abs(seats - left - held);
+        }
+        return new SeatAudit(oversold, leaked,
+                confirmed.getOrDefault(hotFlightId, 0), available.getOrDefault(hotFlightId, 0));
+    }
+}
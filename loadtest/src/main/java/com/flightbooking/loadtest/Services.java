@@ -0,0 +1,134 @@
+package com.flightbooking.loadtest;
+
+import com.booking.bookingservice.BookingserviceApplication;
+import com.flight.flightservice.FlightserviceApplication;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * flightservice and bookingservice started side by side in this JVM against one Mongo and one
+ * RabbitMQ, either Testcontainers or ones given with -Dloadtest.mongo-uri / -Dloadtest.rabbit-host.
+ * Each run starts from empty databases. Eureka is replaced by a fixed flightservice address.
+ */
+final class Services implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(Services.class);
+    private static final String FLIGHT_DATABASE = "loadtest_flights";
+    private static final String BOOKING_DATABASE = "loadtest_bookings";
+
+    private final Deque<AutoCloseable> resources = new ArrayDeque<>();
+    private ConfigurableApplicationContext flightservice;
+    private ConfigurableApplicationContext bookingservice;
+
+    static Services start(LoadTestConfig config) {
+        Services services = new Services();
+        try {
+            services.boot(config);
+            return services;
+        } catch (RuntimeException e) {
+            services.close();
+            throw e;
+        }
+    }
+
+    private void boot(LoadTestConfig config) {
+        String mongoUri = config.mongoUri;
+        if (mongoUri == null) {
+            MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+            mongo.start();
+            resources.push(mongo::stop);
+            mongoUri = mongo.getConnectionString();
+        }
+
+        String rabbitHost = config.rabbitHost;
+        int rabbitPort = config.rabbitPort;
+        if (rabbitHost == null) {
+            RabbitMQContainer rabbit = new RabbitMQContainer("rabbitmq:3.13-alpine");
+            rabbit.start();
+            resources.push(rabbit::stop);
+            rabbitHost = rabbit.getHost();
+            rabbitPort = rabbit.getAmqpPort();
+        }
+
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            client.getDatabase(FLIGHT_DATABASE).drop();
+            client.getDatabase(BOOKING_DATABASE).drop();
+        }
+
+        Map<String, Object> common = new HashMap<>();
+        common.put("server.port", 0);
+        common.put("spring.data.mongodb.uri", mongoUri);
+        common.put("spring.rabbitmq.host", rabbitHost);
+        common.put("spring.rabbitmq.port", rabbitPort);
+        common.put("spring.threads.virtual.enabled", config.virtualThreads);
+
+        Map<String, Object> flight = new HashMap<>(common);
+        flight.put("spring.application.name", "flightservice");
+        flight.put("spring.data.mongodb.database", FLIGHT_DATABASE);
+        flight.put("flight.inventory.in-memory", config.inMemoryInventory);
+        flight.put("flight.inventory.journal-dir", "target/seat-journal");
+        flightservice = boot(FlightserviceApplication.class, flight);
+        log.info("flightservice started on {}", flightUrl());
+
+        Map<String, Object> booking = new HashMap<>(common);
+        booking.put("spring.application.name", "bookingservice");
+        booking.put("spring.data.mongodb.database", BOOKING_DATABASE);
+        booking.put("spring.rabbitmq.publisher-confirm-type", "simple");
+        booking.put("spring.cloud.discovery.client.simple.instances.flightservice[0].uri", flightUrl());
+        // confirmation emails go nowhere: sends fail fast and end up in emailQueue.dlq
+        booking.put("spring.mail.host", "localhost");
+        booking.put("spring.mail.port", 2525);
+        bookingservice = boot(BookingserviceApplication.class, booking);
+        log.info("bookingservice started on {}", bookingUrl());
+    }
+
+    private ConfigurableApplicationContext boot(Class<?> application, Map<String, Object> properties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(application)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(properties)
+                .run();
+        resources.push(context::close);
+        return context;
+    }
+
+    String flightUrl() {
+        return "http://localhost:" + flightservice.getEnvironment().getProperty("local.server.port");
+    }
+
+    String bookingUrl() {
+        return "http://localhost:" + bookingservice.getEnvironment().getProperty("local.server.port");
+    }
+
+    MongoTemplate flightMongo() {
+        return flightservice.getBean(MongoTemplate.class);
+    }
+
+    MongoTemplate bookingMongo() {
+        return bookingservice.getBean(MongoTemplate.class);
+    }
+
+    @Override
+    public void close() {
+        // contexts first, then the containers they were using
+        while (!resources.isEmpty()) {
+            try {
+                resources.pop().close();
+            } catch (Exception e) {
+                log.warn("Failed to shut down: {}", e.getMessage());
+            }
+        }
+    }
+}